@@ -0,0 +1,353 @@
+package com.quill.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.QuillApplication;
+import com.quill.backend.model.Connection;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.model.Storage;
+import com.quill.backend.repository.ConnectionRepository;
+import com.quill.backend.repository.DataRecordRepository;
+import com.quill.backend.service.DataConnectionManager;
+import com.quill.backend.service.StorageService;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end MQTT ingest benchmark.
+ *
+ * Starts an in-process Moquette broker and the Quill application on an in-memory H2 database,
+ * registers an MQTT connection against the broker and drives it through
+ * DataConnectionManager and DataManagementService into the local_db storage writer while
+ * configurable publishers load the broker.
+ *
+ * Reports sustained stored messages/s, end-to-end latency percentiles (publish to row creation),
+ * dropped messages and allocated bytes per published message. Exits with status 1 when the
+ * optional {@code benchmark.minThroughput} or {@code benchmark.maxP99Millis} thresholds are missed.
+ *
+ * Run with: {@code mvn -Pbenchmark test-compile exec:java -Dbenchmark.durationSeconds=60}
+ */
+public class MqttThroughputBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final int publishers = Integer.getInteger("benchmark.publishers", 4);
+    private final int topicsPerPublisher = Integer.getInteger("benchmark.topics", 10);
+    private final int payloadBytes = Integer.getInteger("benchmark.payloadBytes", 256);
+    private final int qos = Integer.getInteger("benchmark.qos", 0);
+    private final int ratePerPublisher = Integer.getInteger("benchmark.ratePerPublisher", 1000);
+    private final int warmupSeconds = Integer.getInteger("benchmark.warmupSeconds", 5);
+    private final int durationSeconds = Integer.getInteger("benchmark.durationSeconds", 30);
+    private final int drainSeconds = Integer.getInteger("benchmark.drainSeconds", 5);
+    private final long pollIntervalMs = Long.getLong("benchmark.pollIntervalMs", 100L);
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong publishErrors = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = new MqttThroughputBenchmark().run();
+        System.exit(exitCode);
+    }
+
+    private int run() throws Exception {
+        int brokerPort = freePort();
+        Server broker = startBroker(brokerPort);
+        ConfigurableApplicationContext context = startApplication();
+        try {
+            prepareStorage(context.getBean(StorageService.class));
+            Connection connection = registerConnection(context.getBean(ConnectionRepository.class), brokerPort);
+            DataConnectionManager connectionManager = context.getBean(DataConnectionManager.class);
+            if (!connectionManager.startConnection(connection)) {
+                throw new IllegalStateException("Failed to start benchmark connection");
+            }
+            // Give the subscription time to settle before publishing
+            Thread.sleep(1000);
+
+            long measureStartMicros = epochMicros() + TimeUnit.SECONDS.toMicros(warmupSeconds);
+            CountDownLatch done = new CountDownLatch(publishers);
+            long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+            for (int p = 0; p < publishers; p++) {
+                int publisherId = p;
+                Thread thread = new Thread(() -> publish(brokerPort, publisherId, endNanos, done),
+                    "benchmark-publisher-" + p);
+                thread.start();
+            }
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+            long allocatedBefore = totalAllocatedBytes();
+            long publishedBefore = published.get();
+
+            done.await();
+            long publishedMeasured = published.get() - publishedBefore;
+            long allocatedDuring = totalAllocatedBytes() - allocatedBefore;
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(drainSeconds));
+            connectionManager.stopConnection(connection.getId());
+
+            Report report = collect(context.getBean(DataRecordRepository.class), measureStartMicros);
+            report.published = publishedMeasured;
+            report.allocatedBytes = allocatedDuring;
+            report.print();
+            return report.meetsThresholds() ? 0 : 1;
+        } finally {
+            context.close();
+            broker.stopServer();
+        }
+    }
+
+    private Server startBroker(int port) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("host", "127.0.0.1");
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("allow_anonymous", "true");
+        properties.setProperty("persistence_enabled", "false");
+        properties.setProperty("netty.mqtt.message_size", String.valueOf(Math.max(8192, payloadBytes * 2)));
+        Server broker = new Server();
+        broker.startServer(new MemoryConfig(properties));
+        return broker;
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(QuillApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.flyway.enabled=false",
+                // These run PostgreSQL-only SQL against tables Flyway would create
+                "quill.staging.enabled=false",
+                "quill.rollups.enabled=false",
+                "quill.stats.enabled=false",
+                "quill.partitions.enabled=false",
+                "quill.export.jobs.enabled=false",
+                "logging.level.com.quill=WARN",
+                "logging.level.org.springframework.web=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+            )
+            .run();
+    }
+
+    /**
+     * Route ingest to the local_db writer only, so the benchmark measures the database path
+     */
+    private void prepareStorage(StorageService storageService) {
+        for (Storage storage : storageService.findAll()) {
+            storage.setIsActive(false);
+            storageService.save(storage);
+        }
+        storageService.create("benchmark", "local_db", "{}");
+    }
+
+    private Connection registerConnection(ConnectionRepository repository, int brokerPort) {
+        Connection connection = new Connection();
+        connection.setName("mqtt-benchmark");
+        connection.setSourceType("mqtt");
+        connection.setType("mqtt");
+        connection.setConfiguration(String.format(
+            "{\"host\":\"127.0.0.1\",\"port\":\"%d\",\"topic\":\"bench/#\",\"pollInterval\":\"%d\"}",
+            brokerPort, pollIntervalMs));
+        return repository.save(connection);
+    }
+
+    private void publish(int brokerPort, int publisherId, long endNanos, CountDownLatch done) {
+        String clientId = "bench_pub_" + publisherId;
+        try (MqttClient client = new MqttClient("tcp://127.0.0.1:" + brokerPort, clientId, new MemoryPersistence())) {
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setCleanSession(true);
+            options.setMaxInflight(Math.max(10, ratePerPublisher));
+            client.connect(options);
+
+            long intervalNanos = ratePerPublisher > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerPublisher : 0;
+            long next = System.nanoTime();
+            long seq = 0;
+            char[] padding = new char[Math.max(0, payloadBytes - 64)];
+            Arrays.fill(padding, 'x');
+            String pad = new String(padding);
+
+            while (System.nanoTime() < endNanos) {
+                String topic = "bench/" + publisherId + "/" + (seq % topicsPerPublisher);
+                String payload = "{\"seq\":" + seq + ",\"sentAt\":" + epochMicros() + ",\"pad\":\"" + pad + "\"}";
+                MqttMessage message = new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+                message.setQos(qos);
+                try {
+                    client.publish(topic, message);
+                    published.incrementAndGet();
+                } catch (Exception e) {
+                    publishErrors.incrementAndGet();
+                }
+                seq++;
+
+                if (intervalNanos > 0) {
+                    next += intervalNanos;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+            }
+            client.disconnect();
+        } catch (Exception e) {
+            System.err.println("Publisher " + publisherId + " failed: " + e.getMessage());
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private Report collect(DataRecordRepository repository, long measureStartMicros) {
+        Report report = new Report();
+        Set<String> delivered = new HashSet<>();
+        List<Long> latencies = new ArrayList<>();
+        long firstStored = Long.MAX_VALUE;
+        long lastStored = Long.MIN_VALUE;
+
+        int pageNumber = 0;
+        Page<DataRecord> page;
+        do {
+            page = repository.findAll(PageRequest.of(pageNumber++, 10_000));
+            for (DataRecord record : page.getContent()) {
+                try {
+                    JsonNode content = objectMapper.readTree(record.getContent());
+                    // JSON payloads are stored as a tree; anything else as text
+                    JsonNode payload = content.path("value");
+                    if (payload.isTextual()) {
+                        payload = objectMapper.readTree(payload.asText());
+                    }
+                    long sentAt = payload.path("sentAt").asLong();
+                    if (sentAt < measureStartMicros) {
+                        continue;
+                    }
+                    String key = content.path("topic").asText() + "#" + payload.path("seq").asLong();
+                    if (!delivered.add(key)) {
+                        report.duplicates++;
+                        continue;
+                    }
+                    long storedAt = toEpochMicros(record.getCreatedAt());
+                    latencies.add(storedAt - sentAt);
+                    firstStored = Math.min(firstStored, storedAt);
+                    lastStored = Math.max(lastStored, storedAt);
+                } catch (Exception e) {
+                    report.unparseable++;
+                }
+            }
+        } while (page.hasNext());
+
+        report.stored = delivered.size();
+        report.storedWindowMicros = lastStored > firstStored ? lastStored - firstStored : 0;
+        report.latenciesMicros = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        report.publishErrors = publishErrors.get();
+        return report;
+    }
+
+    private static long totalAllocatedBytes() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static long epochMicros() {
+        return ChronoUnit.MICROS.between(java.time.Instant.EPOCH, java.time.Instant.now());
+    }
+
+    private static long toEpochMicros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(java.time.Instant.EPOCH, time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private class Report {
+        long published;
+        long stored;
+        long duplicates;
+        long unparseable;
+        long publishErrors;
+        long allocatedBytes;
+        long storedWindowMicros;
+        long[] latenciesMicros = new long[0];
+
+        double throughput() {
+            double seconds = storedWindowMicros > 0 ? storedWindowMicros / 1_000_000.0 : durationSeconds;
+            return stored / seconds;
+        }
+
+        double percentileMillis(double percentile) {
+            if (latenciesMicros.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(latenciesMicros.length - 1,
+                Math.ceil(percentile / 100.0 * latenciesMicros.length) - 1);
+            return latenciesMicros[Math.max(0, index)] / 1000.0;
+        }
+
+        void print() {
+            System.out.println();
+            System.out.println("=== MQTT ingest benchmark ===");
+            System.out.printf("publishers=%d topics/publisher=%d payload=%dB qos=%d rate/publisher=%d/s poll=%dms%n",
+                publishers, topicsPerPublisher, payloadBytes, qos, ratePerPublisher, pollIntervalMs);
+            System.out.printf("published:        %d (%d publish errors)%n", published, publishErrors);
+            System.out.printf("stored (unique):  %d (%d duplicates, %d unparseable)%n", stored, duplicates, unparseable);
+            System.out.printf("dropped:          %d (%.2f%%)%n", Math.max(0, published - stored),
+                published > 0 ? 100.0 * Math.max(0, published - stored) / published : 0.0);
+            System.out.printf("throughput:       %.1f msg/s sustained%n", throughput());
+            System.out.printf("latency (ms):     p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                percentileMillis(100));
+            System.out.printf("allocation:       %.0f bytes/message%n",
+                published > 0 ? (double) allocatedBytes / published : 0.0);
+        }
+
+        boolean meetsThresholds() {
+            boolean ok = true;
+            String minThroughput = System.getProperty("benchmark.minThroughput");
+            if (minThroughput != null && throughput() < Double.parseDouble(minThroughput)) {
+                System.out.printf("FAIL: throughput %.1f msg/s below minimum %s%n", throughput(), minThroughput);
+                ok = false;
+            }
+            String maxP99 = System.getProperty("benchmark.maxP99Millis");
+            if (maxP99 != null && !(percentileMillis(99) <= Double.parseDouble(maxP99))) {
+                System.out.printf("FAIL: p99 latency %.2f ms above maximum %s ms%n", percentileMillis(99), maxP99);
+                ok = false;
+            }
+            return ok;
+        }
+    }
+}
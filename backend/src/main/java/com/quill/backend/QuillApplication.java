@@ -1,12 +1,17 @@
 package com.quill.backend;
 
+import com.quill.backend.service.ConnectionResumeService;
 import com.quill.backend.service.StorageService;
+import com.quill.backend.service.cluster.ClusterCoordinator;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 
 @SpringBootApplication
 public class QuillApplication {
@@ -28,4 +33,26 @@ public class QuillApplication {
             }
         };
     }
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CommandLineRunner resumeActiveConnections(
+        ConnectionResumeService connectionResumeService,
+        ConnectionLeaseManager leaseManager,
+        ClusterCoordinator clusterCoordinator
+    ) {
+        return args -> {
+            try {
+                if (leaseManager.isEnabled()) {
+                    // Connections are claimed through leases as this node joins the cluster
+                    clusterCoordinator.start();
+                } else {
+                    // Starts run in the background so the API is available while sources reconnect
+                    connectionResumeService.resumeActiveConnections();
+                }
+            } catch (Exception e) {
+                logger.error("Failed to resume active connections", e);
+            }
+        };
+    }
 }
@@ -0,0 +1,81 @@
+package com.quill.backend.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Separate connection pools for writes and reads.
+ *
+ * The write pool is configured by {@code spring.datasource.*} and serves ingest, migrations and
+ * anything outside a read-only transaction. {@code @Transactional(readOnly = true)} work is routed
+ * to the read pool, so large dashboard reads and exports can no longer take every connection that
+ * inserts need. The read pool connects to {@code quill.datasource.read.url} (a replica) when set
+ * and to the primary otherwise.
+ *
+ * Routing uses {@link LazyConnectionDataSourceProxy}: the physical connection is only fetched at
+ * the first statement, once the transaction's read-only flag is known.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean(destroyMethod = "close")
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties, PoolMetrics poolMetrics) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("quill-write");
+        dataSource.setMetricsTrackerFactory(poolMetrics);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource readDataSource(
+        DataSourceProperties properties,
+        PoolMetrics poolMetrics,
+        @Value("${quill.datasource.read.url:}") String url,
+        @Value("${quill.datasource.read.username:}") String username,
+        @Value("${quill.datasource.read.password:}") String password,
+        @Value("${quill.datasource.read.maximum-pool-size:10}") int maximumPoolSize,
+        @Value("${quill.datasource.read.minimum-idle:2}") int minimumIdle,
+        @Value("${quill.datasource.read.connection-timeout-ms:20000}") long connectionTimeoutMillis
+    ) {
+        boolean replica = !url.isBlank();
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("quill-read");
+        config.setJdbcUrl(replica ? url : properties.determineUrl());
+        config.setUsername(replica && !username.isBlank() ? username : properties.determineUsername());
+        config.setPassword(replica && !password.isBlank() ? password : properties.determinePassword());
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(minimumIdle);
+        config.setConnectionTimeout(connectionTimeoutMillis);
+        config.setReadOnly(true);
+        config.setMetricsTrackerFactory(poolMetrics);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(writeDataSource);
+        routing.setReadOnlyDataSource(readDataSource);
+        return routing;
+    }
+}
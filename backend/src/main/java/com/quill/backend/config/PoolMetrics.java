@@ -0,0 +1,81 @@
+package com.quill.backend.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection wait and usage times per Hikari pool, plus the pool's live counts
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolStats);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> pools = new ArrayList<>();
+        trackers.forEach((name, tracker) -> pools.add(tracker.snapshot(name)));
+        return pools;
+    }
+
+    private static final class Tracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            waitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        Map<String, Object> snapshot(String name) {
+            long count = acquisitions.sum();
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("pool", name);
+            pool.put("active", poolStats.getActiveConnections());
+            pool.put("idle", poolStats.getIdleConnections());
+            pool.put("total", poolStats.getTotalConnections());
+            pool.put("max", poolStats.getMaxConnections());
+            pool.put("waitingThreads", poolStats.getPendingThreads());
+            pool.put("acquisitions", count);
+            pool.put("avgWaitMillis", count > 0 ? waitNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1) : 0.0);
+            pool.put("maxWaitMillis", maxWaitNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+            pool.put("avgUsageMillis", count > 0 ? usageMillis.sum() / (double) count : 0.0);
+            pool.put("timeouts", timeouts.sum());
+            return pool;
+        }
+    }
+}
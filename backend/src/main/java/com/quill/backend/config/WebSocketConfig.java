@@ -4,7 +4,10 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import com.quill.backend.service.live.LiveDataHub;
+import com.quill.backend.websocket.DataStreamWebSocketHandler;
 import com.quill.backend.websocket.TerminalWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.lang.NonNull;
 
@@ -12,14 +15,24 @@ import org.springframework.lang.NonNull;
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    @Autowired
+    private LiveDataHub liveDataHub;
+
     @Bean
     public TerminalWebSocketHandler terminalWebSocketHandler() {
         return new TerminalWebSocketHandler();
     }
 
+    @Bean
+    public DataStreamWebSocketHandler dataStreamWebSocketHandler() {
+        return new DataStreamWebSocketHandler(liveDataHub);
+    }
+
     @Override
     public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
         registry.addHandler(terminalWebSocketHandler(), "/ws/terminal")
                .setAllowedOrigins("*");  // Configure this appropriately in production
+        registry.addHandler(dataStreamWebSocketHandler(), "/ws/data")
+               .setAllowedOrigins("*");
     }
 }
\ No newline at end of file
@@ -2,10 +2,19 @@ package com.quill.backend.controller;
 
 import com.quill.backend.model.Connection;
 import com.quill.backend.repository.ConnectionRepository;
+import com.quill.backend.service.ConnectionResumeService;
 import com.quill.backend.service.DataConnectionManager;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
+import com.quill.backend.service.downsample.DownsampleService;
+import com.quill.backend.service.latest.LatestValueCache;
+import com.quill.backend.service.latest.RegisterValue;
+import com.quill.backend.service.rollup.RollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,6 +30,21 @@ public class ConnectionController {
     @Autowired
     private DataConnectionManager dataConnectionManager;
 
+    @Autowired
+    private ConnectionResumeService connectionResumeService;
+
+    @Autowired
+    private ConnectionLeaseManager connectionLeaseManager;
+
+    @Autowired
+    private DownsampleService downsampleService;
+
+    @Autowired
+    private LatestValueCache latestValueCache;
+
+    @Autowired
+    private RollupService rollupService;
+
     @PostMapping("/{id}/start")
     public ResponseEntity<?> startConnection(@PathVariable Long id) {
         try {
@@ -202,4 +226,72 @@ public class ConnectionController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @GetMapping("/resume-report")
+    public ResponseEntity<Map<String, Object>> getResumeReport() {
+        return ResponseEntity.ok(connectionResumeService.getLastReport());
+    }
+
+    @GetMapping("/cluster")
+    public ResponseEntity<Map<String, Object>> getClusterStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(connectionLeaseManager.getStatus());
+        status.put("runningConnections", dataConnectionManager.getRunningConnectionIds());
+        return ResponseEntity.ok(status);
+    }
+
+    @GetMapping("/{id}/readings/latest")
+    public ResponseEntity<?> getLatestReadings(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer register,
+            @RequestParam(defaultValue = "holding") String registerType) {
+        boolean cached = latestValueCache.isAuthoritative();
+        if (register == null) {
+            List<RegisterValue> values = cached ? latestValueCache.getRegisters(id) : latestValueCache.loadRegisters(id);
+            return ResponseEntity.ok(values);
+        }
+        RegisterValue value = cached
+            ? latestValueCache.getLatest(id, register, registerType)
+            : latestValueCache.loadLatest(id, register, registerType);
+        return value != null ? ResponseEntity.ok(value) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/readings/downsample")
+    public ResponseEntity<Map<String, Object>> downsampleReadings(
+            @PathVariable Long id,
+            @RequestParam int register,
+            @RequestParam(defaultValue = "holding") String registerType,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(defaultValue = "500") int points,
+            @RequestParam(defaultValue = "minmax") String mode) {
+        try {
+            LocalDateTime start = LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            LocalDateTime end = LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            return ResponseEntity.ok(downsampleService.downsampleRegister(id, register, registerType, start, end, points, mode));
+        } catch (Exception e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Aggregates of one register from the 1m/1h/1d rollups; step in seconds, derived from the range if omitted
+    @GetMapping("/{id}/readings/rollups")
+    public ResponseEntity<Map<String, Object>> readingRollups(
+            @PathVariable Long id,
+            @RequestParam int register,
+            @RequestParam(defaultValue = "holding") String registerType,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(required = false) Long step) {
+        try {
+            LocalDateTime start = LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            LocalDateTime end = LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            return ResponseEntity.ok(rollupService.queryRegister(id, register, registerType, start, end, step));
+        } catch (Exception e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
 }
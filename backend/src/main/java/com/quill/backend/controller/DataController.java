@@ -1,24 +1,66 @@
 package com.quill.backend.controller;
 
+import com.quill.backend.config.PoolMetrics;
+import com.quill.backend.dto.DataPage;
+import com.quill.backend.dto.DataRecordView;
 import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.DataCursor;
 import com.quill.backend.service.DataManagementService;
+import com.quill.backend.service.cache.ReadCache;
+import com.quill.backend.service.downsample.DownsampleService;
+import com.quill.backend.service.export.ExportFormat;
+import com.quill.backend.service.export.ExportQuery;
+import com.quill.backend.service.export.ExportService;
+import com.quill.backend.service.partition.PartitionManager;
+import com.quill.backend.service.rollup.RollupService;
+import com.quill.backend.service.search.SearchCriteria;
+import com.quill.backend.service.search.SearchService;
+import com.quill.backend.service.staging.StagingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/data")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = DataController.NEXT_CURSOR_HEADER)
 public class DataController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     
     @Autowired
     private DataManagementService dataManagementService;
+
+    @Autowired
+    private StagingService stagingService;
+
+    @Autowired
+    private PartitionManager partitionManager;
+
+    @Autowired
+    private DownsampleService downsampleService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private ReadCache readCache;
+
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @Autowired
+    private ExportService exportService;
     
     // Store single data record
     @PostMapping("/store")
@@ -50,12 +92,14 @@ public class DataController {
         }
     }
     
-    // Get data by source ID
+    // Get data by source ID, newest first; pass X-Next-Cursor back as cursor for the next page
     @GetMapping("/source/{sourceId}")
-    public ResponseEntity<List<DataRecord>> getDataBySource(@PathVariable String sourceId) {
+    public ResponseEntity<List<DataRecordView>> getDataBySource(
+            @PathVariable String sourceId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<DataRecord> data = dataManagementService.getDataBySource(sourceId);
-            return ResponseEntity.ok(data);
+            return pageResponse(dataManagementService.getDataBySource(sourceId, cursor, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -63,10 +107,12 @@ public class DataController {
     
     // Get data by data type
     @GetMapping("/type/{dataType}")
-    public ResponseEntity<List<DataRecord>> getDataByType(@PathVariable String dataType) {
+    public ResponseEntity<List<DataRecordView>> getDataByType(
+            @PathVariable String dataType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<DataRecord> data = dataManagementService.getDataByType(dataType);
-            return ResponseEntity.ok(data);
+            return pageResponse(dataManagementService.getDataByType(dataType, cursor, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -74,10 +120,32 @@ public class DataController {
     
     // Get recent data records
     @GetMapping("/recent")
-    public ResponseEntity<List<DataRecord>> getRecentData(@RequestParam(defaultValue = "100") int limit) {
+    public ResponseEntity<List<DataRecordView>> getRecentData(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
         try {
-            List<DataRecord> data = dataManagementService.getRecentData(limit);
-            return ResponseEntity.ok(data);
+            return pageResponse(dataManagementService.getRecentData(cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Get the newest record of every recently active source, by source id
+    @GetMapping("/latest")
+    public ResponseEntity<Map<String, DataRecord>> getLatestSnapshot() {
+        try {
+            return ResponseEntity.ok(dataManagementService.getLatestSnapshot());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Get the newest record of one source
+    @GetMapping("/latest/{sourceId}")
+    public ResponseEntity<DataRecord> getLatestBySource(@PathVariable String sourceId) {
+        try {
+            DataRecord record = dataManagementService.getLatestBySource(sourceId);
+            return record != null ? ResponseEntity.ok(record) : ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -85,14 +153,15 @@ public class DataController {
     
     // Get data by time range
     @GetMapping("/range")
-    public ResponseEntity<List<DataRecord>> getDataByTimeRange(
+    public ResponseEntity<List<DataRecordView>> getDataByTimeRange(
             @RequestParam String startTime,
-            @RequestParam String endTime) {
+            @RequestParam String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
             LocalDateTime start = LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
             LocalDateTime end = LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            List<DataRecord> data = dataManagementService.getDataByTimeRange(start, end);
-            return ResponseEntity.ok(data);
+            return pageResponse(dataManagementService.getDataByTimeRange(start, end, cursor, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -113,53 +182,93 @@ public class DataController {
     
     // Export data as JSON
     @GetMapping("/export/json")
-    public ResponseEntity<String> exportDataAsJson(
+    public ResponseEntity<StreamingResponseBody> exportDataAsJson(
             @RequestParam(required = false) String sourceId,
             @RequestParam(required = false) String dataType,
-            @RequestParam(defaultValue = "1000") int limit) {
-        try {
-            List<DataRecord> data;
-            if (sourceId != null) {
-                data = dataManagementService.getDataBySource(sourceId);
-            } else if (dataType != null) {
-                data = dataManagementService.getDataByType(dataType);
-            } else {
-                data = dataManagementService.getRecentData(limit);
-            }
-            
-            String jsonResult = dataManagementService.exportToJson(data);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(jsonResult);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
-        }
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(ExportFormat.JSON, sourceId, dataType, startTime, endTime, cursor, limit, gzip);
     }
     
     // Export data as CSV
     @GetMapping("/export/csv")
-    public ResponseEntity<String> exportDataAsCsv(
+    public ResponseEntity<StreamingResponseBody> exportDataAsCsv(
             @RequestParam(required = false) String sourceId,
             @RequestParam(required = false) String dataType,
-            @RequestParam(defaultValue = "1000") int limit) {
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(ExportFormat.CSV, sourceId, dataType, startTime, endTime, cursor, limit, gzip);
+    }
+
+    // Export data as Parquet, with typed columns for the staged payload fields of sourceId
+    @GetMapping("/export/parquet")
+    public ResponseEntity<StreamingResponseBody> exportDataAsParquet(
+            @RequestParam(required = false) String sourceId,
+            @RequestParam(required = false) String dataType,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return export(ExportFormat.PARQUET, sourceId, dataType, startTime, endTime, cursor, limit, false);
+    }
+
+    // Export data as an Arrow IPC stream, with typed columns for the staged payload fields of sourceId
+    @GetMapping("/export/arrow")
+    public ResponseEntity<StreamingResponseBody> exportDataAsArrow(
+            @RequestParam(required = false) String sourceId,
+            @RequestParam(required = false) String dataType,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(ExportFormat.ARROW, sourceId, dataType, startTime, endTime, cursor, limit, gzip);
+    }
+
+    /**
+     * Stream the export from a database cursor; without a limit every matching record is written
+     */
+    private ResponseEntity<StreamingResponseBody> export(ExportFormat format, String sourceId, String dataType,
+                                                         String startTime, String endTime, String cursor,
+                                                         Integer limit, boolean gzip) {
+        ExportQuery query = new ExportQuery();
         try {
-            List<DataRecord> data;
-            if (sourceId != null) {
-                data = dataManagementService.getDataBySource(sourceId);
-            } else if (dataType != null) {
-                data = dataManagementService.getDataByType(dataType);
-            } else {
-                data = dataManagementService.getRecentData(limit);
+            query.setSourceId(sourceId);
+            query.setDataType(dataType);
+            if (startTime != null) {
+                query.setStartTime(LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            }
+            if (endTime != null) {
+                query.setEndTime(LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             }
-            
-            String csvResult = dataManagementService.exportToCsv(data);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("text/csv"))
-                    .header("Content-Disposition", "attachment; filename=\"data_export.csv\"")
-                    .body(csvResult);
+            query.setAfter(DataCursor.decode(cursor));
+            query.setLimit(limit);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error," + e.getMessage());
+            return ResponseEntity.badRequest().build();
         }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                exportService.export(query, format, compressed);
+                compressed.finish();
+            } else {
+                exportService.export(query, format, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header("Content-Disposition", "attachment; filename=\"data_export." + format.getExtension() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
     
     // Cleanup old data
@@ -177,6 +286,68 @@ public class DataController {
         }
     }
     
+    // Downsample one numeric payload field for charting (lttb or minmax)
+    @GetMapping("/downsample")
+    public ResponseEntity<Map<String, Object>> downsample(
+            @RequestParam String sourceId,
+            @RequestParam String field,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(defaultValue = "500") int points,
+            @RequestParam(defaultValue = "lttb") String mode) {
+        try {
+            LocalDateTime start = LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            LocalDateTime end = LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            return ResponseEntity.ok(downsampleService.downsampleField(sourceId, field, start, end, points, mode));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Aggregates of one numeric payload field from the 1m/1h/1d rollups; step in seconds, derived from the range if omitted
+    @GetMapping("/rollups")
+    public ResponseEntity<Map<String, Object>> rollups(
+            @RequestParam String sourceId,
+            @RequestParam String field,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(required = false) Long step) {
+        try {
+            LocalDateTime start = LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            LocalDateTime end = LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            return ResponseEntity.ok(rollupService.queryField(sourceId, field, start, end, step));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Hit/miss counters and size of the read result cache
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStatus() {
+        return ResponseEntity.ok(readCache.getStatus());
+    }
+
+    // Connection wait times and counts of the write and read pools
+    @GetMapping("/pools")
+    public ResponseEntity<List<Map<String, Object>>> getPoolMetrics() {
+        return ResponseEntity.ok(poolMetrics.snapshot());
+    }
+
+    // List the time partitions of data_records or modbus_readings
+    @GetMapping("/partitions")
+    public ResponseEntity<List<Map<String, Object>>> getPartitions(
+            @RequestParam(defaultValue = "data_records") String table) {
+        try {
+            return ResponseEntity.ok(partitionManager.getPartitions(table));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     // Get stored data with filters (uses the existing getStoredData method)
     @GetMapping("/stored")
     public ResponseEntity<List<Map<String, Object>>> getStoredData(@RequestParam Map<String, String> filters) {
@@ -211,27 +382,86 @@ public class DataController {
         return ResponseEntity.ok(health);
     }
     
-    // Search data records
+    // Get the inferred column layout of a source's staged payloads
+    @GetMapping("/staged/{sourceId}/schema")
+    public ResponseEntity<Map<String, Object>> getStagedSchema(@PathVariable String sourceId) {
+        Map<String, Object> schema = stagingService.getSchema(sourceId);
+        return schema != null ? ResponseEntity.ok(schema) : ResponseEntity.notFound().build();
+    }
+
+    // Get typed field values from the staging table, without parsing JSON content
+    @GetMapping("/staged/{sourceId}")
+    public ResponseEntity<List<Map<String, Object>>> getStagedData(
+            @PathVariable String sourceId,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            LocalDateTime start = startTime != null ? LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+            LocalDateTime end = endTime != null ? LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+            List<Map<String, Object>> rows = stagingService.query(sourceId, fields, start, end, Math.max(1, Math.min(limit, 10000)));
+            return ResponseEntity.ok(rows);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Search record payloads: full text (ranked), JSON containment, JSON path or substring.
+    // Without any of those it lists by source, type or recency as before.
     @GetMapping("/search")
-    public ResponseEntity<List<DataRecord>> searchData(
+    public ResponseEntity<List<DataRecordView>> searchData(
             @RequestParam(required = false) String query,
+            @RequestParam(required = false) String match,
+            @RequestParam(required = false) String path,
+            @RequestParam(required = false) String contains,
             @RequestParam(required = false) String sourceId,
             @RequestParam(required = false) String dataType,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "100") int limit) {
         try {
-            List<DataRecord> data;
-            
-            if (sourceId != null && !sourceId.isEmpty()) {
-                data = dataManagementService.getDataBySource(sourceId);
-            } else if (dataType != null && !dataType.isEmpty()) {
-                data = dataManagementService.getDataByType(dataType);
-            } else {
-                data = dataManagementService.getRecentData(limit);
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setText(query);
+            criteria.setMatch(match);
+            criteria.setPath(path);
+            criteria.setSubstring(contains);
+            if (!criteria.hasContentFilter()) {
+                return pageResponse(selectPage(sourceId, dataType, cursor, limit));
             }
-            
-            return ResponseEntity.ok(data);
+            criteria.setSourceId(sourceId);
+            criteria.setDataType(dataType);
+            if (startTime != null) {
+                criteria.setStartTime(LocalDateTime.parse(startTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            }
+            if (endTime != null) {
+                criteria.setEndTime(LocalDateTime.parse(endTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            }
+            return pageResponse(searchService.search(criteria, cursor, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private DataPage selectPage(String sourceId, String dataType, String cursor, int limit) {
+        if (sourceId != null && !sourceId.isEmpty()) {
+            return dataManagementService.getDataBySource(sourceId, cursor, limit);
+        } else if (dataType != null && !dataType.isEmpty()) {
+            return dataManagementService.getDataByType(dataType, cursor, limit);
+        }
+        return dataManagementService.getRecentData(cursor, limit);
+    }
+
+    private ResponseEntity<List<DataRecordView>> pageResponse(DataPage page) {
+        return ResponseEntity.ok().headers(cursorHeaders(page)).body(page.getRecords());
+    }
+
+    private HttpHeaders cursorHeaders(DataPage page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return headers;
+    }
 }
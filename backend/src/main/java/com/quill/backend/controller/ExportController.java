@@ -0,0 +1,101 @@
+package com.quill.backend.controller;
+
+import com.quill.backend.dto.ExportJobRequest;
+import com.quill.backend.model.ExportJob;
+import com.quill.backend.service.DataCursor;
+import com.quill.backend.service.export.ExportFormat;
+import com.quill.backend.service.export.ExportJobService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    // Queue a background export
+    @PostMapping
+    public ResponseEntity<?> submitExport(@Valid @RequestBody ExportJobRequest request) {
+        try {
+            ExportJob job = new ExportJob();
+            job.setFormat(request.getFormat());
+            job.setStorageId(request.getStorageId());
+            job.setObjectKey(request.getKey());
+            job.setSourceId(request.getSourceId());
+            job.setDataType(request.getDataType());
+            if (request.getStartTime() != null) {
+                job.setStartTime(LocalDateTime.parse(request.getStartTime(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            }
+            if (request.getEndTime() != null) {
+                job.setEndTime(LocalDateTime.parse(request.getEndTime(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            }
+            job.setStartCursor(DataCursor.decode(request.getCursor()).encode());
+            job.setRowLimit(request.getLimit());
+            return ResponseEntity.ok(exportJobService.submit(job));
+        } catch (Exception e) {
+            return error(e.getMessage());
+        }
+    }
+
+    // Newest export jobs first
+    @GetMapping
+    public ResponseEntity<List<ExportJob>> getExports() {
+        return ResponseEntity.ok(exportJobService.listJobs());
+    }
+
+    // Status and progress; completed jobs include a downloadUrl
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJob> getExport(@PathVariable Long id) {
+        return exportJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Cancel a queued or running export
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancelExport(@PathVariable Long id) {
+        if (!exportJobService.cancel(id)) {
+            return error("Export job " + id + " is not queued or running");
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("id", id);
+        return ResponseEntity.ok(result);
+    }
+
+    // Download a completed export written to a FILESYSTEM storage (S3 exports use a presigned URL)
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable Long id) {
+        ExportJob job = exportJobService.getJob(id).orElse(null);
+        Path file = job != null ? exportJobService.getLocalFile(job) : null;
+        if (file == null || !Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportFormat.of(job.getFormat()).getContentType()))
+                .header("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("error", message);
+        return ResponseEntity.badRequest().body(body);
+    }
+}
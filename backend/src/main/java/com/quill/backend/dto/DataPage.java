@@ -0,0 +1,24 @@
+package com.quill.backend.dto;
+
+import java.util.List;
+
+/**
+ * One page of data records and the cursor for the next one (null on the last page)
+ */
+public class DataPage {
+    private final List<DataRecordView> records;
+    private final String nextCursor;
+
+    public DataPage(List<DataRecordView> records, String nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DataRecordView> getRecords() {
+        return records;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,56 @@
+package com.quill.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.quill.backend.model.DataRecord;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only copy of a data record as returned by the read APIs. Repository queries construct it
+ * directly, so no entity is hydrated or tracked and the storage is referenced by id only.
+ */
+public class DataRecordView {
+    private final Long id;
+    private final String sourceId;
+    private final String dataType;
+    private final String content;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime timestamp;
+    private final DataRecord.DataStatus status;
+    private final Long storageId;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime createdAt;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime updatedAt;
+
+    public DataRecordView(Long id, String sourceId, String dataType, String content, LocalDateTime timestamp,
+                          DataRecord.DataStatus status, Long storageId, LocalDateTime createdAt,
+                          LocalDateTime updatedAt) {
+        this.id = id;
+        this.sourceId = sourceId;
+        this.dataType = dataType;
+        this.content = content;
+        this.timestamp = timestamp;
+        this.status = status;
+        this.storageId = storageId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static DataRecordView of(DataRecord record) {
+        return new DataRecordView(record.getId(), record.getSourceId(), record.getDataType(), record.getContent(),
+            record.getTimestamp(), record.getStatus(),
+            record.getStorage() != null ? record.getStorage().getId() : null,
+            record.getCreatedAt(), record.getUpdatedAt());
+    }
+
+    public Long getId() { return id; }
+    public String getSourceId() { return sourceId; }
+    public String getDataType() { return dataType; }
+    public String getContent() { return content; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public DataRecord.DataStatus getStatus() { return status; }
+    public Long getStorageId() { return storageId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,51 @@
+package com.quill.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class ExportJobRequest {
+    @NotBlank(message = "Export format is required")
+    private String format;
+
+    @NotNull(message = "Storage id is required")
+    private Long storageId;
+
+    private String sourceId;
+    private String dataType;
+    // ISO local date-times, e.g. 2026-10-01T00:00:00
+    private String startTime;
+    private String endTime;
+    // Start below this record, as returned in X-Next-Cursor by the read APIs
+    private String cursor;
+    private Integer limit;
+    // Object key or path under the storage; generated if not set
+    private String key;
+
+    // Getters and Setters
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public Long getStorageId() { return storageId; }
+    public void setStorageId(Long storageId) { this.storageId = storageId; }
+
+    public String getSourceId() { return sourceId; }
+    public void setSourceId(String sourceId) { this.sourceId = sourceId; }
+
+    public String getDataType() { return dataType; }
+    public void setDataType(String dataType) { this.dataType = dataType; }
+
+    public String getStartTime() { return startTime; }
+    public void setStartTime(String startTime) { this.startTime = startTime; }
+
+    public String getEndTime() { return endTime; }
+    public void setEndTime(String endTime) { this.endTime = endTime; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+}
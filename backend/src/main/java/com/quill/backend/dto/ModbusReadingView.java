@@ -0,0 +1,39 @@
+package com.quill.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only copy of a Modbus reading, constructed by repository queries. The connection is
+ * referenced by id only.
+ */
+public class ModbusReadingView {
+    private final Long id;
+    private final Long connectionId;
+    private final Integer register;
+    private final String registerType;
+    private final Integer value;
+    private final String quality;
+    private final String errorMessage;
+    private final LocalDateTime readAt;
+
+    public ModbusReadingView(Long id, Long connectionId, Integer register, String registerType, Integer value,
+                             String quality, String errorMessage, LocalDateTime readAt) {
+        this.id = id;
+        this.connectionId = connectionId;
+        this.register = register;
+        this.registerType = registerType;
+        this.value = value;
+        this.quality = quality;
+        this.errorMessage = errorMessage;
+        this.readAt = readAt;
+    }
+
+    public Long getId() { return id; }
+    public Long getConnectionId() { return connectionId; }
+    public Integer getRegister() { return register; }
+    public String getRegisterType() { return registerType; }
+    public Integer getValue() { return value; }
+    public String getQuality() { return quality; }
+    public String getErrorMessage() { return errorMessage; }
+    public LocalDateTime getReadAt() { return readAt; }
+}
@@ -1,6 +1,8 @@
 package com.quill.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -37,6 +39,12 @@ public class DataRecord {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Parsed content kept while the record moves through the ingest pipeline, so later stages
+    // do not parse it again; cleared whenever the content string is replaced
+    @Transient
+    @JsonIgnore
+    private JsonNode contentTree;
+
     // Constructors
     public DataRecord() {}
 
@@ -60,7 +68,16 @@ public class DataRecord {
     public void setDataType(String dataType) { this.dataType = dataType; }
 
     public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public void setContent(String content) {
+        this.content = content;
+        this.contentTree = null;
+    }
+
+    public JsonNode getContentTree() { return contentTree; }
+    public void setContentTree(JsonNode contentTree) {
+        this.content = contentTree.toString();
+        this.contentTree = contentTree;
+    }
 
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
@@ -0,0 +1,168 @@
+package com.quill.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "export_jobs")
+public class ExportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(nullable = false, length = 16)
+    private String format;
+
+    @Column(name = "storage_id", nullable = false)
+    private Long storageId;
+
+    @Column(name = "object_key", nullable = false, length = 1024)
+    private String objectKey;
+
+    @Column(name = "source_id")
+    private String sourceId;
+
+    @Column(name = "data_type")
+    private String dataType;
+
+    @Column(name = "start_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime endTime;
+
+    @Column(name = "row_limit")
+    private Integer rowLimit;
+
+    @JsonIgnore
+    @Column(name = "start_cursor")
+    private String startCursor;
+
+    @JsonIgnore
+    @Column(name = "checkpoint_cursor")
+    private String checkpointCursor;
+
+    @Column(name = "records_written", nullable = false)
+    private long recordsWritten;
+
+    @Column(name = "bytes_written", nullable = false)
+    private long bytesWritten;
+
+    @JsonIgnore
+    @Column(name = "target_state", columnDefinition = "TEXT")
+    private String targetState;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "owner_node", length = 128)
+    private String ownerNode;
+
+    @Column(name = "heartbeat_at")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "created_at", nullable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    // Set when a job is returned by the API
+    @Transient
+    private Double progress;
+
+    @Transient
+    private String downloadUrl;
+
+    public ExportJob() {
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public JobStatus getStatus() { return status; }
+    public void setStatus(JobStatus status) { this.status = status; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public Long getStorageId() { return storageId; }
+    public void setStorageId(Long storageId) { this.storageId = storageId; }
+
+    public String getObjectKey() { return objectKey; }
+    public void setObjectKey(String objectKey) { this.objectKey = objectKey; }
+
+    public String getSourceId() { return sourceId; }
+    public void setSourceId(String sourceId) { this.sourceId = sourceId; }
+
+    public String getDataType() { return dataType; }
+    public void setDataType(String dataType) { this.dataType = dataType; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public Integer getRowLimit() { return rowLimit; }
+    public void setRowLimit(Integer rowLimit) { this.rowLimit = rowLimit; }
+
+    public String getStartCursor() { return startCursor; }
+    public void setStartCursor(String startCursor) { this.startCursor = startCursor; }
+
+    public String getCheckpointCursor() { return checkpointCursor; }
+    public void setCheckpointCursor(String checkpointCursor) { this.checkpointCursor = checkpointCursor; }
+
+    public long getRecordsWritten() { return recordsWritten; }
+    public void setRecordsWritten(long recordsWritten) { this.recordsWritten = recordsWritten; }
+
+    public long getBytesWritten() { return bytesWritten; }
+    public void setBytesWritten(long bytesWritten) { this.bytesWritten = bytesWritten; }
+
+    public String getTargetState() { return targetState; }
+    public void setTargetState(String targetState) { this.targetState = targetState; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public String getOwnerNode() { return ownerNode; }
+    public void setOwnerNode(String ownerNode) { this.ownerNode = ownerNode; }
+
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public Double getProgress() { return progress; }
+    public void setProgress(Double progress) { this.progress = progress; }
+
+    public String getDownloadUrl() { return downloadUrl; }
+    public void setDownloadUrl(String downloadUrl) { this.downloadUrl = downloadUrl; }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+}
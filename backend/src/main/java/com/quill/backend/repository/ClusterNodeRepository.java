@@ -0,0 +1,36 @@
+package com.quill.backend.repository;
+
+import com.quill.backend.model.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * Node membership. Timestamps come from the database clock so nodes with skewed clocks agree.
+ */
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cluster_nodes (node_id, host, started_at, heartbeat_at) " +
+                   "VALUES (:nodeId, :host, now(), now()) " +
+                   "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now(), host = EXCLUDED.host",
+           nativeQuery = true)
+    int heartbeat(@Param("nodeId") String nodeId, @Param("host") String host);
+
+    @Query(value = "SELECT node_id FROM cluster_nodes " +
+                   "WHERE heartbeat_at > now() - make_interval(secs => :timeoutSeconds) ORDER BY node_id",
+           nativeQuery = true)
+    List<String> findLiveNodeIds(@Param("timeoutSeconds") double timeoutSeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM cluster_nodes WHERE heartbeat_at < now() - make_interval(secs => :retentionSeconds)",
+           nativeQuery = true)
+    int deleteStale(@Param("retentionSeconds") double retentionSeconds);
+}
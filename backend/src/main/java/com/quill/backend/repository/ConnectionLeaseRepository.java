@@ -0,0 +1,64 @@
+package com.quill.backend.repository;
+
+import com.quill.backend.model.ConnectionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * Connection ownership leases. All writes are single conditional statements, so two nodes
+ * racing for the same connection cannot both succeed.
+ */
+@Repository
+public interface ConnectionLeaseRepository extends JpaRepository<ConnectionLease, Long> {
+
+    /**
+     * Take the lease if it is free, expired, or already ours (which renews it)
+     * @return 1 if this node now holds the lease, 0 if another node holds a live lease
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO connection_leases (connection_id, owner_node, acquired_at, expires_at) " +
+                   "VALUES (:connectionId, :nodeId, now(), now() + make_interval(secs => :leaseSeconds)) " +
+                   "ON CONFLICT (connection_id) DO UPDATE SET " +
+                   "acquired_at = CASE WHEN connection_leases.owner_node = EXCLUDED.owner_node " +
+                   "THEN connection_leases.acquired_at ELSE now() END, " +
+                   "owner_node = EXCLUDED.owner_node, expires_at = EXCLUDED.expires_at " +
+                   "WHERE connection_leases.owner_node = EXCLUDED.owner_node OR connection_leases.expires_at < now()",
+           nativeQuery = true)
+    int tryAcquire(@Param("connectionId") Long connectionId,
+                   @Param("nodeId") String nodeId,
+                   @Param("leaseSeconds") double leaseSeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE connection_leases SET expires_at = now() + make_interval(secs => :leaseSeconds) " +
+                   "WHERE owner_node = :nodeId AND expires_at >= now()",
+           nativeQuery = true)
+    int renewAll(@Param("nodeId") String nodeId, @Param("leaseSeconds") double leaseSeconds);
+
+    @Query(value = "SELECT connection_id FROM connection_leases WHERE owner_node = :nodeId AND expires_at >= now()",
+           nativeQuery = true)
+    List<Long> findHeldConnectionIds(@Param("nodeId") String nodeId);
+
+    @Query(value = "SELECT connection_id FROM connection_leases WHERE owner_node <> :nodeId AND expires_at >= now()",
+           nativeQuery = true)
+    List<Long> findConnectionIdsHeldByOthers(@Param("nodeId") String nodeId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM connection_leases WHERE connection_id = :connectionId AND owner_node = :nodeId",
+           nativeQuery = true)
+    int release(@Param("connectionId") Long connectionId, @Param("nodeId") String nodeId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM connection_leases WHERE owner_node = :nodeId", nativeQuery = true)
+    int releaseAll(@Param("nodeId") String nodeId);
+
+    List<ConnectionLease> findByOwnerNode(String ownerNode);
+}
@@ -4,7 +4,11 @@ import com.quill.backend.model.Connection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ConnectionRepository extends JpaRepository<Connection, Long> {
     // Basic CRUD is auto-provided
+
+    List<Connection> findByStatus(Connection.ConnectionStatus status);
 }
@@ -1,25 +1,53 @@
 package com.quill.backend.repository;
 
+import com.quill.backend.dto.DataRecordView;
 import com.quill.backend.model.DataRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Reads are keyset-paginated on (timestamp, id), newest first: each page returns the records
+ * strictly before the given position. Start from {@code DataCursor.FIRST} for the first page.
+ *
+ * Reads run in read-only transactions and select {@link DataRecordView}s, so no entities are
+ * hydrated or snapshotted and the lazy storage association is never touched.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface DataRecordRepository extends JpaRepository<DataRecord, Long> {
+    String VIEW = "SELECT new com.quill.backend.dto.DataRecordView(d.id, d.sourceId, d.dataType, d.content, " +
+                  "d.timestamp, d.status, d.storage.id, d.createdAt, d.updatedAt) FROM DataRecord d ";
     
-    List<DataRecord> findBySourceIdOrderByTimestampDesc(String sourceId);
+    @Query(VIEW + "WHERE d.sourceId = :sourceId AND d.timestamp <= :ts " +
+           "AND (d.timestamp < :ts OR d.id < :id) ORDER BY d.timestamp DESC, d.id DESC")
+    List<DataRecordView> findBySourceIdBefore(@Param("sourceId") String sourceId, @Param("ts") LocalDateTime timestamp,
+                                              @Param("id") long id, Limit limit);
     
-    List<DataRecord> findByDataTypeOrderByTimestampDesc(String dataType);
+    @Query(VIEW + "WHERE d.dataType = :dataType AND d.timestamp <= :ts " +
+           "AND (d.timestamp < :ts OR d.id < :id) ORDER BY d.timestamp DESC, d.id DESC")
+    List<DataRecordView> findByDataTypeBefore(@Param("dataType") String dataType, @Param("ts") LocalDateTime timestamp,
+                                              @Param("id") long id, Limit limit);
     
-    @Query("SELECT d FROM DataRecord d ORDER BY d.timestamp DESC LIMIT ?1")
-    List<DataRecord> findTopByOrderByTimestampDesc(int limit);
+    @Query(VIEW + "WHERE d.timestamp <= :ts " +
+           "AND (d.timestamp < :ts OR d.id < :id) ORDER BY d.timestamp DESC, d.id DESC")
+    List<DataRecordView> findBefore(@Param("ts") LocalDateTime timestamp, @Param("id") long id, Limit limit);
     
-    List<DataRecord> findByTimestampBetweenOrderByTimestampDesc(LocalDateTime startTime, LocalDateTime endTime);
+    @Query(VIEW + "WHERE d.timestamp >= :start AND d.timestamp <= :end AND d.timestamp <= :ts " +
+           "AND (d.timestamp < :ts OR d.id < :id) ORDER BY d.timestamp DESC, d.id DESC")
+    List<DataRecordView> findInRangeBefore(@Param("start") LocalDateTime startTime, @Param("end") LocalDateTime endTime,
+                                           @Param("ts") LocalDateTime timestamp, @Param("id") long id, Limit limit);
     
-    List<DataRecord> findByTimestampBefore(LocalDateTime cutoffDate);
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DataRecord d WHERE d.timestamp < :cutoff")
+    int deleteByTimestampBefore(@Param("cutoff") LocalDateTime cutoffDate);
     
     long countByTimestampAfter(LocalDateTime timestamp);
     
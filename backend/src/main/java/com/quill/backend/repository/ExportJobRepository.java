@@ -0,0 +1,87 @@
+package com.quill.backend.repository;
+
+import com.quill.backend.model.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * Export jobs. State changes are single conditional statements on (status, owner_node), so a
+ * job is run by at most one worker and a cancelled job stops at its next checkpoint.
+ */
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    List<ExportJob> findTop100ByOrderByIdDesc();
+
+    /**
+     * Jobs waiting to run, and running jobs whose worker stopped sending heartbeats
+     */
+    @Query(value = "SELECT id FROM export_jobs WHERE status = 'QUEUED' " +
+                   "OR (status = 'RUNNING' AND heartbeat_at < now() - make_interval(secs => :staleSeconds)) " +
+                   "ORDER BY id LIMIT 8",
+           nativeQuery = true)
+    List<Long> findClaimable(@Param("staleSeconds") double staleSeconds);
+
+    /**
+     * @return 1 if this node now runs the job, 0 if another worker took it first
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE export_jobs SET status = 'RUNNING', owner_node = :nodeId, heartbeat_at = now(), " +
+                   "started_at = coalesce(started_at, now()) WHERE id = :id AND (status = 'QUEUED' " +
+                   "OR (status = 'RUNNING' AND heartbeat_at < now() - make_interval(secs => :staleSeconds)))",
+           nativeQuery = true)
+    int claim(@Param("id") Long id, @Param("nodeId") String nodeId, @Param("staleSeconds") double staleSeconds);
+
+    /**
+     * Record progress. Runs in its own transaction because it is called from inside the export's
+     * read-only one.
+     * @return 0 if the job was cancelled or taken over, and the worker should stop
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE export_jobs SET checkpoint_cursor = :cursor, records_written = :records, " +
+                   "bytes_written = :bytes, target_state = :targetState, heartbeat_at = now() " +
+                   "WHERE id = :id AND status = 'RUNNING' AND owner_node = :nodeId",
+           nativeQuery = true)
+    int checkpoint(@Param("id") Long id, @Param("nodeId") String nodeId, @Param("cursor") String cursor,
+                   @Param("records") long records, @Param("bytes") long bytes,
+                   @Param("targetState") String targetState);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE export_jobs SET heartbeat_at = now() " +
+                   "WHERE id IN (:ids) AND status = 'RUNNING' AND owner_node = :nodeId",
+           nativeQuery = true)
+    int heartbeat(@Param("ids") List<Long> ids, @Param("nodeId") String nodeId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE export_jobs SET status = :status, error = :error, finished_at = now() " +
+                   "WHERE id = :id AND status = 'RUNNING' AND owner_node = :nodeId",
+           nativeQuery = true)
+    int finish(@Param("id") Long id, @Param("nodeId") String nodeId, @Param("status") String status,
+               @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE export_jobs SET status = 'CANCELLED', finished_at = now() " +
+                   "WHERE id = :id AND status IN ('QUEUED', 'RUNNING')",
+           nativeQuery = true)
+    int cancel(@Param("id") Long id);
+
+    /**
+     * Put back jobs this node was running when it stopped
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE export_jobs SET status = 'QUEUED' WHERE status = 'RUNNING' AND owner_node = :nodeId",
+           nativeQuery = true)
+    int requeueOwned(@Param("nodeId") String nodeId);
+}
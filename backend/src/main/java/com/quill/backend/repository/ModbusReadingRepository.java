@@ -1,30 +1,45 @@
 package com.quill.backend.repository;
 
+import com.quill.backend.dto.ModbusReadingView;
 import com.quill.backend.model.ModbusReading;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Reads run in read-only transactions and select {@link ModbusReadingView}s, so no entities are
+ * hydrated and the lazy connection association is never touched.
+ */
+@Transactional(readOnly = true)
 public interface ModbusReadingRepository extends JpaRepository<ModbusReading, Long> {
-    List<ModbusReading> findByConnectionId(Long connectionId);
+    String VIEW = "SELECT new com.quill.backend.dto.ModbusReadingView(r.id, r.connection.id, r.register, " +
+                  "r.registerType, r.value, r.quality, r.errorMessage, r.readAt) FROM ModbusReading r ";
+
+    @Query(VIEW + "WHERE r.connection.id = :connectionId ORDER BY r.readAt DESC")
+    List<ModbusReadingView> findByConnectionId(@Param("connectionId") Long connectionId);
     
-    List<ModbusReading> findByConnectionIdAndRegisterAndRegisterType(
-        Long connectionId, Integer register, String registerType);
+    @Query(VIEW + "WHERE r.connection.id = :connectionId AND r.register = :register " +
+           "AND r.registerType = :registerType ORDER BY r.readAt DESC")
+    List<ModbusReadingView> findByConnectionIdAndRegisterAndRegisterType(
+        @Param("connectionId") Long connectionId,
+        @Param("register") Integer register,
+        @Param("registerType") String registerType);
     
-    @Query("SELECT r FROM ModbusReading r WHERE r.connection.id = :connectionId " +
+    @Query(VIEW + "WHERE r.connection.id = :connectionId " +
            "AND r.readAt BETWEEN :startTime AND :endTime")
-    List<ModbusReading> findReadingsInTimeRange(
+    List<ModbusReadingView> findReadingsInTimeRange(
         @Param("connectionId") Long connectionId,
         @Param("startTime") LocalDateTime startTime,
         @Param("endTime") LocalDateTime endTime);
     
-    @Query("SELECT r FROM ModbusReading r WHERE r.connection.id = :connectionId " +
+    @Query(VIEW + "WHERE r.connection.id = :connectionId " +
            "AND r.register = :register AND r.registerType = :registerType " +
            "ORDER BY r.readAt DESC LIMIT 1")
-    ModbusReading findLatestReading(
+    ModbusReadingView findLatestReading(
         @Param("connectionId") Long connectionId,
         @Param("register") Integer register,
         @Param("registerType") String registerType);
-}
\ No newline at end of file
+}
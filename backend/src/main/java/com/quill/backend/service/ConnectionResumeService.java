@@ -0,0 +1,266 @@
+package com.quill.backend.service;
+
+import com.quill.backend.model.Connection;
+import com.quill.backend.repository.ConnectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Restarts collection for connections that were active before the node went down.
+ *
+ * Starts run concurrently on a bounded pool. Start times are staggered globally and,
+ * more widely, per endpoint (broker or PLC address) with random jitter, so a restart
+ * does not hit one device with a burst of reconnects. A start that fails, e.g. because
+ * the device is still coming back up, is retried with exponential backoff.
+ */
+@Service
+public class ConnectionResumeService {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionResumeService.class);
+
+    private final ConnectionRepository connectionRepository;
+    private final DataConnectionManager dataConnectionManager;
+
+    @Value("${quill.connections.resume.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quill.connections.resume.concurrency:8}")
+    private int concurrency;
+
+    @Value("${quill.connections.resume.stagger-ms:50}")
+    private long staggerMillis;
+
+    @Value("${quill.connections.resume.endpoint-stagger-ms:250}")
+    private long endpointStaggerMillis;
+
+    @Value("${quill.connections.resume.jitter-ms:100}")
+    private long jitterMillis;
+
+    @Value("${quill.connections.resume.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${quill.connections.resume.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    @Value("${quill.connections.resume.start-timeout-ms:30000}")
+    private long startTimeoutMillis;
+
+    private volatile Map<String, Object> lastReport = Map.of("status", "NOT_RUN");
+
+    @Autowired
+    public ConnectionResumeService(ConnectionRepository connectionRepository, DataConnectionManager dataConnectionManager) {
+        this.connectionRepository = connectionRepository;
+        this.dataConnectionManager = dataConnectionManager;
+    }
+
+    /**
+     * Start all connections marked active, without blocking the caller
+     * @return A future completing with the resume report once every start has finished
+     */
+    public CompletableFuture<Map<String, Object>> resumeActiveConnections() {
+        if (!enabled) {
+            logger.info("Connection resume at startup is disabled");
+            lastReport = Map.of("status", "DISABLED");
+            return CompletableFuture.completedFuture(lastReport);
+        }
+        List<Connection> connections = connectionRepository.findByStatus(Connection.ConnectionStatus.ACTIVE);
+        return resume(connections);
+    }
+
+    /**
+     * Start the given connections concurrently with staggered start times
+     */
+    public CompletableFuture<Map<String, Object>> resume(List<Connection> connections) {
+        if (connections.isEmpty()) {
+            lastReport = buildReport(0, List.of(), 0);
+            return CompletableFuture.completedFuture(lastReport);
+        }
+
+        logger.info("Resuming {} active connections (concurrency {})", connections.size(), concurrency);
+        lastReport = Map.of("status", "RUNNING", "connections", connections.size());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "connection-resume-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long startedAt = System.nanoTime();
+        ConcurrentLinkedQueue<Map<String, Object>> results = new ConcurrentLinkedQueue<>();
+        Map<String, Integer> startsPerEndpoint = new HashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            int endpointIndex = startsPerEndpoint.merge(endpointKey(connection), 1, Integer::sum) - 1;
+            long delay = i * staggerMillis
+                + endpointIndex * endpointStaggerMillis
+                + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0);
+
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            executor.schedule(() -> attempt(connection, delay, 1, executor, results, future),
+                delay, TimeUnit.MILLISECONDS);
+            futures.add(future);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                executor.shutdown();
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                lastReport = buildReport(connections.size(), new ArrayList<>(results), elapsedMillis);
+                logger.info("Connection resume finished: {} started, {} failed in {} ms (p50 {} ms, max {} ms)",
+                    lastReport.get("started"), lastReport.get("failed"), elapsedMillis,
+                    lastReport.get("p50StartMillis"), lastReport.get("maxStartMillis"));
+                return lastReport;
+            });
+    }
+
+    /**
+     * Start one connection, rescheduling itself on the pool until it starts or runs out of attempts
+     */
+    private void attempt(Connection connection, long scheduledDelay, int attempt, ScheduledExecutorService executor,
+                         ConcurrentLinkedQueue<Map<String, Object>> results, CompletableFuture<Void> done) {
+        Map<String, Object> result;
+        boolean retry = false;
+        try {
+            result = startOne(connection, scheduledDelay, attempt);
+            retry = Boolean.TRUE.equals(result.remove("retryable")) && attempt < maxAttempts && stillActive(connection);
+        } catch (Exception e) {
+            result = Map.of("connectionId", connection.getId(), "started", false, "startMillis", 0L,
+                "attempts", attempt, "error", String.valueOf(e.getMessage()));
+        }
+
+        if (retry) {
+            long backoff = retryDelayMillis << Math.min(attempt - 1, 6);
+            logger.info("Retrying connection {} in {} ms (attempt {} of {})",
+                connection.getId(), backoff, attempt + 1, maxAttempts);
+            executor.schedule(() -> attempt(connection, scheduledDelay, attempt + 1, executor, results, done),
+                backoff, TimeUnit.MILLISECONDS);
+            return;
+        }
+        results.add(result);
+        done.complete(null);
+    }
+
+    private Map<String, Object> startOne(Connection connection, long scheduledDelay, int attempt) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("connectionId", connection.getId());
+        result.put("name", connection.getName());
+        result.put("delayMillis", scheduledDelay);
+        result.put("attempts", attempt);
+
+        // Measured until polling is scheduled, so slow broker or PLC connects are included
+        long start = System.nanoTime();
+        boolean started;
+        boolean retryable = false;
+        String error = null;
+        try {
+            if (dataConnectionManager.isRunning(connection.getId())) {
+                started = true;
+            } else {
+                started = dataConnectionManager.startConnectionAsync(connection)
+                    .get(startTimeoutMillis, TimeUnit.MILLISECONDS);
+                if (!started) {
+                    error = connection.getLastError();
+                    retryable = true;
+                }
+            }
+        } catch (TimeoutException e) {
+            // Still starting in the background, so it must not be started again
+            started = false;
+            error = "Start did not complete within " + startTimeoutMillis + " ms";
+        } catch (IllegalStateException | IllegalArgumentException | UnsupportedOperationException e) {
+            // Already running, owned by another node, misconfigured or not startable at all
+            started = false;
+            error = e.getMessage();
+        } catch (Exception e) {
+            started = false;
+            retryable = true;
+            error = e.getMessage();
+        }
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        result.put("started", started);
+        result.put("startMillis", latencyMillis);
+        if (error != null) {
+            result.put("error", error);
+        }
+        if (started) {
+            logger.debug("Resumed connection {} in {} ms", connection.getId(), latencyMillis);
+        } else {
+            logger.warn("Failed to resume connection {} after {} ms (attempt {}): {}",
+                connection.getId(), latencyMillis, attempt, error);
+        }
+        result.put("retryable", retryable);
+        return result;
+    }
+
+    /**
+     * A connection the user stopped or deleted while a retry was pending is left alone
+     */
+    private boolean stillActive(Connection connection) {
+        return connectionRepository.findById(connection.getId())
+            .map(current -> current.getStatus() != Connection.ConnectionStatus.INACTIVE)
+            .orElse(false);
+    }
+
+    /**
+     * Connections pointing at the same broker or device share a stagger lane
+     */
+    private String endpointKey(Connection connection) {
+        try {
+            String host = connection.getConfigurationValue("host");
+            if (host == null) {
+                host = connection.getConfigurationValue("ipAddress");
+            }
+            return host + ":" + connection.getConfigurationValue("port");
+        } catch (Exception e) {
+            return "connection-" + connection.getId();
+        }
+    }
+
+    private Map<String, Object> buildReport(int total, List<Map<String, Object>> results, long elapsedMillis) {
+        long[] latencies = results.stream()
+            .mapToLong(r -> (Long) r.get("startMillis"))
+            .sorted()
+            .toArray();
+        long started = results.stream().filter(r -> Boolean.TRUE.equals(r.get("started"))).count();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("status", "COMPLETED");
+        report.put("completedAt", LocalDateTime.now().toString());
+        report.put("connections", total);
+        report.put("started", started);
+        report.put("failed", results.size() - started);
+        report.put("elapsedMillis", elapsedMillis);
+        report.put("p50StartMillis", latencies.length > 0 ? latencies[latencies.length / 2] : 0);
+        report.put("maxStartMillis", latencies.length > 0 ? latencies[latencies.length - 1] : 0);
+        report.put("results", results);
+        return report;
+    }
+
+    /**
+     * @return The report of the most recent resume run
+     */
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+}
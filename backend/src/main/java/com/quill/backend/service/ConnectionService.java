@@ -2,6 +2,7 @@ package com.quill.backend.service;
 
 import com.quill.backend.model.Connection;
 import com.quill.backend.repository.ConnectionRepository;
+import com.quill.backend.service.latest.LatestValueCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
@@ -13,6 +14,12 @@ public class ConnectionService {
     
     @Autowired
     private ConnectionRepository connectionRepository;
+
+    @Autowired
+    private DataTransformationService transformationService;
+
+    @Autowired
+    private LatestValueCache latestValueCache;
     
     // Find all connections
     public List<Connection> findAll() {
@@ -27,7 +34,9 @@ public class ConnectionService {
     // Save connection
     public Connection save(Connection connection) {
         connection.setUpdatedAt(LocalDateTime.now());
-        return connectionRepository.save(connection);
+        Connection saved = connectionRepository.save(connection);
+        transformationService.refresh(saved);
+        return saved;
     }
     
     // Create new connection
@@ -53,7 +62,10 @@ public class ConnectionService {
         connection.setConfiguration(configuration);
         connection.setUpdatedAt(LocalDateTime.now());
         
-        return connectionRepository.save(connection);
+        Connection saved = connectionRepository.save(connection);
+        // Running pollers pick up the recompiled transformation rules on their next batch
+        transformationService.refresh(saved);
+        return saved;
     }
     
     // Test connection
@@ -109,6 +121,8 @@ public class ConnectionService {
     public void deleteConnection(Long id) {
         Connection connection = findById(id).orElseThrow(() -> new RuntimeException("Connection not found"));
         connectionRepository.delete(connection);
+        transformationService.invalidate(id);
+        latestValueCache.evictConnection(id);
     }
     
     // Find connections by source type
@@ -3,42 +3,78 @@ package com.quill.backend.service;
 import com.quill.backend.model.Connection;
 import com.quill.backend.model.DataRecord;
 import com.quill.backend.repository.ConnectionRepository;
+import com.quill.backend.service.aggregation.WindowAggregationService;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
 import com.quill.backend.service.datasource.DataSourceHandler;
 import com.quill.backend.service.datasource.DataSourceHandlerFactory;
+import com.quill.backend.service.flow.ConnectionFlow;
+import com.quill.backend.service.flow.IngestFlowController;
+import com.quill.backend.service.flow.OverloadPolicy;
+import com.quill.backend.service.scheduling.PollScheduler;
+import com.quill.backend.service.scheduling.PollTask;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class DataConnectionManager {
 
     private final ConcurrentHashMap<Long, DataSourceHandler> activeHandlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, PollTask> pollTasks = new ConcurrentHashMap<>();
     private final ConnectionRepository connectionRepository;
     private final DataSourceHandlerFactory handlerFactory;
     private final DataManagementService dataManagementService;
+    private final PollScheduler pollScheduler;
+    private final ConnectionLeaseManager leaseManager;
+    private final IngestFlowController flowController;
+    private final DataTransformationService transformationService;
+    private final WindowAggregationService aggregationService;
 
     @Autowired
     public DataConnectionManager(
         ConnectionRepository connectionRepository, 
         DataSourceHandlerFactory handlerFactory,
-        DataManagementService dataManagementService
+        DataManagementService dataManagementService,
+        PollScheduler pollScheduler,
+        ConnectionLeaseManager leaseManager,
+        IngestFlowController flowController,
+        DataTransformationService transformationService,
+        WindowAggregationService aggregationService
     ) {
         this.connectionRepository = connectionRepository;
         this.handlerFactory = handlerFactory;
         this.dataManagementService = dataManagementService;
+        this.pollScheduler = pollScheduler;
+        this.leaseManager = leaseManager;
+        this.flowController = flowController;
+        this.transformationService = transformationService;
+        this.aggregationService = aggregationService;
     }
 
     private final Logger logger = LoggerFactory.getLogger(DataConnectionManager.class);
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
 
     public boolean startConnection(Connection connection) {
+        CompletableFuture<Boolean> started = startConnectionAsync(connection);
+        // Collection may still be starting; only a failure that already happened is reported here
+        return !started.isDone() || started.join();
+    }
+
+    /**
+     * Start collecting from a connection
+     * @return A future completing with true once polling is scheduled, or false if the start failed
+     */
+    public CompletableFuture<Boolean> startConnectionAsync(Connection connection) {
         Long connectionId = connection.getId();
         
         // Check if already running
@@ -46,44 +82,72 @@ public class DataConnectionManager {
             throw new IllegalStateException("Connection is already running");
         }
 
-        // Get appropriate handler for this connection type
-        DataSourceHandler handler = handlerFactory.getHandlerForConnection(connection)
-            .orElseThrow(() -> new UnsupportedOperationException(
-                "Unsupported connection type: " + connection.getSourceType()));
+        // Validate polling settings before anything is reserved, so a bad value cannot
+        // leave a registered handler without a poll task behind
+        long interval = getPollingInterval(connection);
+        OverloadPolicy overloadPolicy = flowController.resolvePolicy(connection.getConfigurationValue("overloadPolicy"));
+
+        // Only the lease holder may poll, so two nodes never collect from the same device
+        if (!leaseManager.tryAcquire(connectionId)) {
+            throw new IllegalStateException("Connection is owned by node " + leaseManager.getOwner(connectionId));
+        }
+
+        // Create a dedicated handler instance for this connection
+        DataSourceHandler handler = handlerFactory.createHandlerForConnection(connection).orElse(null);
+        if (handler == null) {
+            leaseManager.release(connectionId);
+            throw new UnsupportedOperationException("Unsupported connection type: " + connection.getSourceType());
+        }
+
+        // Reserve the slot atomically so concurrent starts cannot both run
+        if (activeHandlers.putIfAbsent(connectionId, handler) != null) {
+            releaseHandler(connectionId, handler);
+            throw new IllegalStateException("Connection is already running");
+        }
 
         try {
             // Initialize the handler
             handler.initialize(connection);
-            activeHandlers.put(connectionId, handler);
+
+            // Mark the connection active before collection starts; startCollection may complete
+            // inline, and a failure it reports must not be overwritten afterwards
+            connection.setStatus(Connection.ConnectionStatus.ACTIVE);
+            connectionRepository.save(connection);
 
             // Start data collection
-            handler.startCollection().thenRun(() -> {
-                // Schedule regular data collection
-                scheduler.scheduleAtFixedRate(() -> {
-                    try {
-                        List<DataRecord> data = handler.readLatestData();
-                        if (!data.isEmpty()) {
-                            dataManagementService.storeDataBatch(data);
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error collecting data for connection {}: {}", 
-                            connectionId, e.getMessage(), e);
-                    }
-                }, 0, getPollingInterval(connection), TimeUnit.MILLISECONDS);
+            return handler.startCollection().thenApply(ignored -> {
+                // Schedule regular data collection; reads, transformation and aggregation run on the
+                // poll worker pool and batches are stored on the flow controller's writer pool
+                ConnectionFlow<DataRecord> flow = flowController.open(pollOwner(connectionId),
+                    overloadPolicy, interval, dataManagementService::storeDataBatch);
+                PollTask task = pollScheduler.schedule(pollOwner(connectionId), 0, interval,
+                    () -> collect(connection, handler, flow));
+                flow.attach(task);
+                pollTasks.put(connectionId, task);
+                // The connection may have been stopped while collection was starting
+                if (activeHandlers.get(connectionId) != handler) {
+                    task.cancel();
+                    flow.close();
+                    pollTasks.remove(connectionId, task);
+                }
+                return true;
             }).exceptionally(ex -> {
+                // Free the slot and the lease so the connection can be started again
+                if (activeHandlers.remove(connectionId, handler)) {
+                    cancelPolling(connectionId);
+                    releaseHandler(connectionId, handler);
+                    leaseManager.release(connectionId);
+                }
                 handleConnectionError(connection, ex);
-                return null;
+                return false;
             });
 
-            // Update connection status
-            connection.setStatus(Connection.ConnectionStatus.ACTIVE);
-            connectionRepository.save(connection);
-            return true;
-
         } catch (Exception e) {
-            activeHandlers.remove(connectionId);
+            activeHandlers.remove(connectionId, handler);
+            releaseHandler(connectionId, handler);
+            leaseManager.release(connectionId);
             handleConnectionError(connection, e);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
     }
 
@@ -93,14 +157,23 @@ public class DataConnectionManager {
 
         DataSourceHandler handler = activeHandlers.get(connectionId);
         if (handler == null) {
+            if (leaseManager.isEnabled() && connection.getStatus() == Connection.ConnectionStatus.ACTIVE) {
+                // Running on another node; its owner stops it on the next heartbeat
+                connection.setStatus(Connection.ConnectionStatus.INACTIVE);
+                return connectionRepository.save(connection);
+            }
             throw new IllegalStateException("Connection is not running");
         }
 
         try {
+            // Cancel polling before stopping the handler so no read races the shutdown
+            cancelPolling(connectionId);
+
             // Stop data collection
             handler.stopCollection().get(5, TimeUnit.SECONDS);
             handler.shutdown();
             activeHandlers.remove(connectionId);
+            leaseManager.release(connectionId);
 
             // Update connection status
             connection.setStatus(Connection.ConnectionStatus.INACTIVE);
@@ -111,9 +184,63 @@ public class DataConnectionManager {
         }
     }
 
+    private void collect(Connection connection, DataSourceHandler handler, ConnectionFlow<DataRecord> flow) {
+        try {
+            flow.poll(() -> {
+                List<DataRecord> data = transformationService.transformRecords(connection, handler.readLatestData());
+                // Runs even for an empty read so idle windows still close
+                return aggregationService.aggregate(connection, data, System.currentTimeMillis());
+            });
+        } catch (Exception e) {
+            logger.error("Error collecting data for connection {}: {}", 
+                connection.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void releaseHandler(Long connectionId, DataSourceHandler handler) {
+        try {
+            handler.shutdown();
+        } catch (Exception e) {
+            logger.warn("Error releasing handler for connection {}: {}", connectionId, e.getMessage());
+        }
+    }
+
+    private void cancelPolling(Long connectionId) {
+        PollTask task = pollTasks.remove(connectionId);
+        if (task != null) {
+            task.cancel();
+        }
+        pollScheduler.cancelOwner(pollOwner(connectionId));
+        ConnectionFlow<?> flow = flowController.getFlow(pollOwner(connectionId));
+        if (flow != null) {
+            flow.close();
+        }
+        // Store the windows that were still open
+        List<DataRecord> openWindows = aggregationService.close(connectionId);
+        if (!openWindows.isEmpty()) {
+            dataManagementService.storeDataBatch(openWindows);
+        }
+    }
+
+    private static String pollOwner(Long connectionId) {
+        return "connection-" + connectionId;
+    }
+
     private long getPollingInterval(Connection connection) {
         String intervalStr = connection.getConfigurationValue("pollInterval");
-        return intervalStr != null ? Long.parseLong(intervalStr) : 1000; // Default to 1 second
+        if (intervalStr == null) {
+            return 1000; // Default to 1 second
+        }
+        long interval;
+        try {
+            interval = Long.parseLong(intervalStr.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid pollInterval: " + intervalStr);
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("pollInterval must be positive: " + intervalStr);
+        }
+        return interval;
     }
     private void handleConnectionError(Connection connection, Throwable e) {
         connection.setStatus(Connection.ConnectionStatus.ERROR);
@@ -126,20 +253,38 @@ public class DataConnectionManager {
         return activeHandlers.containsKey(connectionId);
     }
 
-    public void shutdown() {
-        scheduler.shutdown();
+    public Set<Long> getRunningConnectionIds() {
+        return Set.copyOf(activeHandlers.keySet());
+    }
+
+    /**
+     * Stop collecting locally without changing the connection's status, e.g. when its lease
+     * moves to another node. The connection keeps running elsewhere.
+     * @param releaseLease false when the lease is already lost and must not be touched
+     */
+    public void detachConnection(Long connectionId, boolean releaseLease) {
+        DataSourceHandler handler = activeHandlers.remove(connectionId);
+        if (handler == null) {
+            return;
+        }
+        cancelPolling(connectionId);
         try {
-            if (!scheduler.awaitTermination(60, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
+            handler.stopCollection().get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warn("Error stopping collection for detached connection {}: {}", connectionId, e.getMessage());
+        }
+        releaseHandler(connectionId, handler);
+        if (releaseLease) {
+            leaseManager.release(connectionId);
         }
+    }
 
+    @PreDestroy
+    public void shutdown() {
         // Shutdown all active handlers
         activeHandlers.forEach((id, handler) -> {
             try {
+                cancelPolling(id);
                 handler.shutdown();
             } catch (Exception e) {
                 logger.error("Error shutting down handler for connection {}: {}", id, e.getMessage(), e);
@@ -155,9 +300,49 @@ public class DataConnectionManager {
      */
     public List<DataRecord> getDiagnostics(Long connectionId) {
         DataSourceHandler handler = activeHandlers.get(connectionId);
-        if (handler != null) {
-            return handler.getDiagnostics();
+        if (handler == null) {
+            return List.of();
+        }
+        List<DataRecord> diagnostics = new ArrayList<>(handler.getDiagnostics());
+        PollTask task = pollTasks.get(connectionId);
+        if (task != null) {
+            DataRecord pollStatus = new DataRecord();
+            pollStatus.setSourceId(connectionId.toString());
+            pollStatus.setDataType("diagnostic");
+            pollStatus.setTimestamp(LocalDateTime.now());
+            pollStatus.setContent(String.format(Locale.ROOT,
+                "{\"type\":\"poll_status\",\"interval_ms\":%d,\"executions\":%d,\"overruns\":%d," +
+                "\"failures\":%d,\"last_duration_ms\":%.3f,\"max_duration_ms\":%.3f}",
+                task.getPeriodMillis(),
+                task.getExecutions(),
+                task.getOverruns(),
+                task.getFailures(),
+                task.getLastDurationMillis(),
+                task.getMaxDurationMillis()
+            ));
+            diagnostics.add(pollStatus);
+        }
+        String aggregation = aggregationService.getDiagnosticJson(connectionId);
+        if (aggregation != null) {
+            DataRecord aggregationStatus = new DataRecord();
+            aggregationStatus.setSourceId(connectionId.toString());
+            aggregationStatus.setDataType("diagnostic");
+            aggregationStatus.setTimestamp(LocalDateTime.now());
+            aggregationStatus.setContent(aggregation);
+            diagnostics.add(aggregationStatus);
+        }
+        // Flow control for this connection's poller and, for Modbus, the register poller
+        for (String key : List.of(pollOwner(connectionId), "modbus-" + connectionId)) {
+            ConnectionFlow<?> flow = flowController.getFlow(key);
+            if (flow != null) {
+                DataRecord flowStatus = new DataRecord();
+                flowStatus.setSourceId(connectionId.toString());
+                flowStatus.setDataType("diagnostic");
+                flowStatus.setTimestamp(LocalDateTime.now());
+                flowStatus.setContent(flow.toDiagnosticJson());
+                diagnostics.add(flowStatus);
+            }
         }
-        return List.of();
+        return diagnostics;
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.quill.backend.service;
+
+import com.quill.backend.dto.DataRecordView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a newest-first listing of data records: the (timestamp, id) of the last record
+ * returned. Encoded as an opaque URL-safe token for the {@code cursor} request parameter.
+ */
+public final class DataCursor {
+    /** Before every stored record */
+    public static final DataCursor FIRST = new DataCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    private DataCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static DataCursor after(DataRecordView record) {
+        return new DataCursor(record.getTimestamp(), record.getId());
+    }
+
+    /**
+     * @param token A token from {@link #encode}, or null/blank for the first page
+     */
+    public static DataCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new DataCursor(LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String value = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public long getId() { return id; }
+}
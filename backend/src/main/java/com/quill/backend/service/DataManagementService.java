@@ -1,13 +1,20 @@
 package com.quill.backend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.dto.DataPage;
+import com.quill.backend.dto.DataRecordView;
 import com.quill.backend.model.DataRecord;
 import com.quill.backend.model.Storage;
 import com.quill.backend.repository.DataRecordRepository;
+import com.quill.backend.service.cache.ReadCache;
+import com.quill.backend.service.latest.LatestValueCache;
+import com.quill.backend.service.partition.PartitionManager;
+import com.quill.backend.service.stats.IngestStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
@@ -21,6 +28,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class DataManagementService {
@@ -37,6 +45,27 @@ public class DataManagementService {
     @Autowired
     private S3Client s3Client;
 
+    @Autowired
+    private PartitionManager partitionManager;
+
+    @Autowired
+    private LatestValueCache latestValueCache;
+
+    @Autowired
+    private IngestStats ingestStats;
+
+    @Autowired
+    private ReadCache readCache;
+
+    @Autowired(required = false)
+    private List<IngestListener> ingestListeners = List.of();
+
+    @Value("${quill.data.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${quill.data.max-page-size:1000}")
+    private int maxPageSize;
+
     private final Map<String, StorageWriter> storageWriters = new HashMap<>();
 
     public DataManagementService() {
@@ -112,6 +141,7 @@ public class DataManagementService {
 
             // Wait for all writes to complete
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            notifyListeners(List.of(record));
 
             result.put("success", true);
             result.put("message", "Data stored successfully");
@@ -133,6 +163,7 @@ public class DataManagementService {
             }
 
             List<CompletableFuture<Void>> futures = new ArrayList<>();
+            List<DataRecord> localRecords = null;
 
             // For each storage destination
             for (Storage storage : activeStorages) {
@@ -143,12 +174,16 @@ public class DataManagementService {
                         copy.setSourceId(record.getSourceId());
                         copy.setDataType(record.getDataType());
                         copy.setContent(record.getContent());
-                        copy.setTimestamp(LocalDateTime.now());
+                        // Aggregates and Sparkplug metrics carry their own time
+                        copy.setTimestamp(record.getTimestamp() != null ? record.getTimestamp() : LocalDateTime.now());
                         copy.setStatus(DataRecord.DataStatus.RECEIVED);
                         copy.setStorage(storage);
                         return copy;
                     })
                     .toList();
+                if ("local_db".equalsIgnoreCase(storage.getStorageType())) {
+                    localRecords = storageRecords;
+                }
 
                 // Write records to this storage asynchronously
                 futures.add(CompletableFuture.runAsync(() -> {
@@ -167,6 +202,8 @@ public class DataManagementService {
 
             // Wait for all writes to complete
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            // Prefer the local copies: they carry the generated record ids
+            notifyListeners(localRecords != null ? localRecords : dataRecords);
 
             result.put("success", true);
             result.put("message", "Batch of " + dataRecords.size() + " records stored successfully.");
@@ -178,6 +215,16 @@ public class DataManagementService {
         return result;
     }
 
+    private void notifyListeners(List<DataRecord> records) {
+        for (IngestListener listener : ingestListeners) {
+            try {
+                listener.onStored(records);
+            } catch (Exception e) {
+                logger.warn("Ingest listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
     private StorageWriter getStorageWriter(String storageType) {
         StorageWriter writer = storageWriters.get(storageType.toLowerCase());
         if (writer == null) {
@@ -187,8 +234,15 @@ public class DataManagementService {
     }
 
     private void writeToLocalDb(DataRecord record, Storage storage) throws Exception {
-        // Always save to local DB for data access
-        dataRecordRepository.save(record);
+        // Always save to local DB for data access; the stats cut waits for the save and its count
+        Lock storeLock = ingestStats.storeLock();
+        storeLock.lock();
+        try {
+            dataRecordRepository.save(record);
+            ingestStats.onSaved(record);
+        } finally {
+            storeLock.unlock();
+        }
     }
 
     private void writeToS3(DataRecord record, Storage storage) throws Exception {
@@ -234,23 +288,86 @@ public class DataManagementService {
         }
     }
 
-    public List<DataRecord> getDataBySource(String sourceId) {
-        return dataRecordRepository.findBySourceIdOrderByTimestampDesc(sourceId);
+    public DataPage getDataBySource(String sourceId, String cursor, Integer limit) {
+        DataCursor position = DataCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        return readCache.bySource(sourceId, cursor, pageSize, () -> page(dataRecordRepository.findBySourceIdBefore(
+            sourceId, position.getTimestamp(), position.getId(), Limit.of(pageSize + 1)), pageSize));
+    }
+
+    public DataPage getDataByType(String dataType, String cursor, Integer limit) {
+        DataCursor position = DataCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        return readCache.byType(dataType, cursor, pageSize, () -> page(dataRecordRepository.findByDataTypeBefore(
+            dataType, position.getTimestamp(), position.getId(), Limit.of(pageSize + 1)), pageSize));
+    }
+
+    public DataPage getRecentData(String cursor, Integer limit) {
+        DataCursor position = DataCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        if (position == DataCursor.FIRST) {
+            List<DataRecord> cached = latestValueCache.getRecent(pageSize + 1);
+            if (cached != null) {
+                return page(cached.stream().map(DataRecordView::of).toList(), pageSize);
+            }
+        }
+        return readCache.recent(cursor, pageSize, () -> page(dataRecordRepository.findBefore(
+            position.getTimestamp(), position.getId(), Limit.of(pageSize + 1)), pageSize));
+    }
+
+    public DataPage getDataByTimeRange(LocalDateTime startTime, LocalDateTime endTime, String cursor, Integer limit) {
+        DataCursor position = DataCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        return readCache.range(startTime, endTime, cursor, pageSize, () -> page(dataRecordRepository.findInRangeBefore(
+            startTime, endTime, position.getTimestamp(), position.getId(), Limit.of(pageSize + 1)), pageSize));
     }
 
-    public List<DataRecord> getDataByType(String dataType) {
-        return dataRecordRepository.findByDataTypeOrderByTimestampDesc(dataType);
+    /**
+     * @return The newest non-diagnostic record of a source, or null if it has none
+     */
+    public DataRecord getLatestBySource(String sourceId) {
+        if (latestValueCache.isAuthoritative()) {
+            return latestValueCache.getLatest(sourceId);
+        }
+        return latestValueCache.loadLatest(sourceId);
     }
 
-    public List<DataRecord> getRecentData(int limit) {
-        return dataRecordRepository.findTopByOrderByTimestampDesc(limit);
+    /**
+     * @return The newest record of every source that stored data recently, by source id
+     */
+    public Map<String, DataRecord> getLatestSnapshot() {
+        if (latestValueCache.isAuthoritative()) {
+            return latestValueCache.getSourceSnapshot();
+        }
+        return latestValueCache.loadSourceSnapshot();
     }
 
-    public List<DataRecord> getDataByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
-        return dataRecordRepository.findByTimestampBetweenOrderByTimestampDesc(startTime, endTime);
+    /**
+     * Clamp a requested page size to the server-side cap
+     */
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * @param rows Up to pageSize + 1 rows; the extra row only signals that another page exists
+     */
+    private DataPage page(List<DataRecordView> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new DataPage(rows, null);
+        }
+        List<DataRecordView> records = new ArrayList<>(rows.subList(0, pageSize));
+        return new DataPage(records, DataCursor.after(records.get(pageSize - 1)).encode());
     }
 
     public Map<String, Object> getDataStats() {
+        Map<String, Object> counted = ingestStats.getStats();
+        if (counted != null) {
+            return counted;
+        }
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalRecords", dataRecordRepository.count());
         stats.put("recordsToday", dataRecordRepository.countByTimestampAfter(LocalDateTime.now().minusDays(1)));
@@ -258,33 +375,20 @@ public class DataManagementService {
         return stats;
     }
 
-    public String exportToJson(List<DataRecord> data) throws JsonProcessingException {
-        return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(data);
-    }
-
-    public String exportToCsv(List<DataRecord> data) {
-        if (data == null || data.isEmpty()) {
-            return "";
-        }
-        StringBuilder csv = new StringBuilder("id,sourceId,dataType,timestamp,content\n");
-        for (DataRecord record : data) {
-            csv.append(record.getId()).append(",")
-               .append(record.getSourceId()).append(",")
-               .append(record.getDataType()).append(",")
-               .append(record.getTimestamp()).append(",")
-               .append("\"" + record.getContent().replace("\"", "\"\"") + "\"\n");
-        }
-        return csv.toString();
-    }
-
     public Map<String, Object> cleanupOldData(int daysOld) {
         Map<String, Object> result = new HashMap<>();
         try {
             LocalDateTime cutoff = LocalDateTime.now().minusDays(daysOld);
-            List<DataRecord> oldRecords = dataRecordRepository.findByTimestampBefore(cutoff);
-            dataRecordRepository.deleteAll(oldRecords);
+            // Whole partitions go first; only the partition straddling the cutoff is deleted from
+            int droppedPartitions = partitionManager.dropPartitionsBefore("data_records", cutoff);
+            int deleted = dataRecordRepository.deleteByTimestampBefore(cutoff);
+            latestValueCache.warm();
+            ingestStats.rebaseline();
+            readCache.invalidateAll();
             result.put("success", true);
-            result.put("message", "Deleted " + oldRecords.size() + " records older than " + daysOld + " days.");
+            result.put("droppedPartitions", droppedPartitions);
+            result.put("message", "Deleted records older than " + daysOld + " days (" + droppedPartitions
+                + " partitions dropped, " + deleted + " rows deleted).");
         } catch (Exception e) {
             result.put("success", false);
             result.put("error", e.getMessage());
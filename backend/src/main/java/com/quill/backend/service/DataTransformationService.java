@@ -2,16 +2,26 @@ package com.quill.backend.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.LongNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import com.quill.backend.model.Connection;
 import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.expression.DerivedTagCompiler;
+import com.quill.backend.service.expression.ExpressionCompiler;
+import com.quill.backend.service.transform.CompiledPipeline;
+import com.quill.backend.service.transform.TransformStep;
+import com.quill.backend.service.transform.TransformationCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
@@ -19,10 +29,14 @@ public class DataTransformationService {
     private static final Logger logger = LoggerFactory.getLogger(DataTransformationService.class);
     private final ObjectMapper objectMapper;
     private final Map<String, DataTransformer> transformers;
+    private final Map<Long, ConnectionContext> contexts;
+    private final ExpressionCompiler expressionCompiler;
 
     public DataTransformationService() {
         this.objectMapper = new ObjectMapper();
         this.transformers = new ConcurrentHashMap<>();
+        this.contexts = new ConcurrentHashMap<>();
+        this.expressionCompiler = new ExpressionCompiler();
         initializeTransformers();
     }
 
@@ -39,18 +53,20 @@ public class DataTransformationService {
      */
     public DataRecord transformData(Connection connection, Object rawData) {
         try {
-            String sourceType = connection.getSourceType();
-            DataTransformer transformer = transformers.get(sourceType.toLowerCase());
-            
-            if (transformer == null) {
-                throw new IllegalArgumentException("No transformer found for source type: " + sourceType);
+            ConnectionContext context = getContext(connection);
+            if (context.transformer == null) {
+                throw new IllegalArgumentException("No transformer found for source type: " + connection.getSourceType());
             }
 
-            JsonNode transformedData = transformer.transform(connection, rawData);
+            LocalDateTime now = LocalDateTime.now();
+            ObjectNode transformedData = context.transformer.transform(connection, rawData);
+            context.pipeline.apply(transformedData);
+            addMetadata(transformedData, context, now);
+
             DataRecord record = new DataRecord();
-            record.setSourceId(connection.getId().toString());
-            record.setDataType(sourceType);
-            record.setTimestamp(LocalDateTime.now());
+            record.setSourceId(context.sourceId);
+            record.setDataType(context.sourceType);
+            record.setTimestamp(now);
             record.setContent(transformedData.toString());
 
             return record;
@@ -60,7 +76,86 @@ public class DataTransformationService {
         }
     }
 
-    private JsonNode transformModbusData(Connection connection, Object rawData) throws Exception {
+    /**
+     * Apply the connection's compiled transformation rules to records read by its handler.
+     * Records are returned unchanged when the connection has no rules.
+     */
+    public List<DataRecord> transformRecords(Connection connection, List<DataRecord> records) {
+        CompiledPipeline pipeline = getContext(connection).pipeline;
+        if (pipeline.isEmpty() || records.isEmpty()) {
+            return records;
+        }
+        List<DataRecord> result = new ArrayList<>(records.size());
+        for (DataRecord record : records) {
+            if ("diagnostic".equals(record.getDataType()) || record.getContent() == null) {
+                result.add(record);
+                continue;
+            }
+            try {
+                JsonNode content = record.getContentTree() != null
+                    ? record.getContentTree()
+                    : objectMapper.readTree(record.getContent());
+                if (content instanceof ObjectNode) {
+                    pipeline.apply((ObjectNode) content);
+                    record.setContentTree(content);
+                }
+            } catch (Exception e) {
+                logger.debug("Leaving record for connection {} untransformed: {}", connection.getId(), e.getMessage());
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    /**
+     * Recompile a connection's rules after its configuration was saved
+     */
+    public void refresh(Connection connection) {
+        contexts.put(connection.getId(), compile(connection));
+    }
+
+    public void invalidate(Long connectionId) {
+        contexts.remove(connectionId);
+    }
+
+    private ConnectionContext getContext(Connection connection) {
+        ConnectionContext context = contexts.get(connection.getId());
+        if (context != null && context.isCurrentFor(connection)) {
+            return context;
+        }
+        ConnectionContext compiled = compile(connection);
+        contexts.put(connection.getId(), compiled);
+        return compiled;
+    }
+
+    private ConnectionContext compile(Connection connection) {
+        List<TransformStep> steps = new ArrayList<>();
+        JsonNode config = null;
+        try {
+            config = connection.getConfiguration() != null
+                ? objectMapper.readTree(connection.getConfiguration())
+                : null;
+            steps.addAll(TransformationCompiler.compile(config != null ? config.get("transformations") : null));
+        } catch (Exception e) {
+            // A broken rule set must not stop collection; store untransformed data instead
+            logger.error("Invalid transformations for connection {}: {}", connection.getId(), e.getMessage());
+            steps.clear();
+        }
+        if (config != null) {
+            // Derived tags run after the rules so they see renamed and converted fields
+            try {
+                steps.addAll(DerivedTagCompiler.compile(config.get("derivedTags"), expressionCompiler));
+            } catch (Exception e) {
+                logger.error("Invalid derived tags for connection {}: {}", connection.getId(), e.getMessage());
+            }
+        }
+        CompiledPipeline pipeline = steps.isEmpty() ? CompiledPipeline.empty() : new CompiledPipeline(steps);
+        String sourceType = connection.getSourceType();
+        return new ConnectionContext(connection, pipeline,
+            sourceType != null ? transformers.get(sourceType.toLowerCase()) : null);
+    }
+
+    private ObjectNode transformModbusData(Connection connection, Object rawData) throws Exception {
         ObjectNode node = objectMapper.createObjectNode();
         
         if (rawData instanceof Map) {
@@ -75,12 +170,11 @@ public class DataTransformationService {
                 node.put("errorMessage", (String) data.get("errorMessage"));
             }
         }
-        
-        addMetadata(node, connection);
+
         return node;
     }
 
-    private JsonNode transformMqttData(Connection connection, Object rawData) throws Exception {
+    private ObjectNode transformMqttData(Connection connection, Object rawData) throws Exception {
         ObjectNode node = objectMapper.createObjectNode();
         
         if (rawData instanceof Map) {
@@ -101,12 +195,11 @@ public class DataTransformationService {
                 }
             }
         }
-        
-        addMetadata(node, connection);
+
         return node;
     }
 
-    private JsonNode transformSerialData(Connection connection, Object rawData) throws Exception {
+    private ObjectNode transformSerialData(Connection connection, Object rawData) throws Exception {
         ObjectNode node = objectMapper.createObjectNode();
         
         if (rawData instanceof String) {
@@ -115,12 +208,11 @@ public class DataTransformationService {
             node.put("data", new String((byte[]) rawData));
             node.put("rawHex", bytesToHex((byte[]) rawData));
         }
-        
-        addMetadata(node, connection);
+
         return node;
     }
 
-    private JsonNode transformApiData(Connection connection, Object rawData) throws Exception {
+    private ObjectNode transformApiData(Connection connection, Object rawData) throws Exception {
         ObjectNode node = objectMapper.createObjectNode();
         
         if (rawData instanceof String) {
@@ -133,16 +225,16 @@ public class DataTransformationService {
         } else if (rawData instanceof Map) {
             node.set("data", objectMapper.valueToTree(rawData));
         }
-        
-        addMetadata(node, connection);
+
         return node;
     }
 
-    private void addMetadata(ObjectNode node, Connection connection) {
-        node.put("connectionId", connection.getId());
-        node.put("connectionName", connection.getName());
-        node.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
-        node.put("sourceType", connection.getSourceType());
+    private void addMetadata(ObjectNode node, ConnectionContext context, LocalDateTime timestamp) {
+        // Shared immutable nodes built once per connection
+        node.set("connectionId", context.idNode);
+        node.set("connectionName", context.nameNode);
+        node.put("timestamp", timestamp.format(DateTimeFormatter.ISO_DATE_TIME));
+        node.set("sourceType", context.sourceTypeNode);
     }
 
     private static String bytesToHex(byte[] bytes) {
@@ -155,6 +247,47 @@ public class DataTransformationService {
 
     @FunctionalInterface
     private interface DataTransformer {
-        JsonNode transform(Connection connection, Object data) throws Exception;
+        ObjectNode transform(Connection connection, Object data) throws Exception;
+    }
+
+    /**
+     * Everything resolved once per connection: the source-type transformer, the compiled
+     * rule pipeline and the metadata values copied into each record
+     */
+    private static final class ConnectionContext {
+        final CompiledPipeline pipeline;
+        final DataTransformer transformer;
+        final String sourceId;
+        final String sourceType;
+        final LongNode idNode;
+        final TextNode nameNode;
+        final TextNode sourceTypeNode;
+        final String name;
+        final String configuration;
+        final LocalDateTime updatedAt;
+
+        ConnectionContext(Connection connection, CompiledPipeline pipeline, DataTransformer transformer) {
+            this.pipeline = pipeline;
+            this.transformer = transformer;
+            this.sourceId = connection.getId().toString();
+            this.sourceType = connection.getSourceType();
+            this.idNode = LongNode.valueOf(connection.getId());
+            this.name = connection.getName();
+            this.nameNode = TextNode.valueOf(name);
+            this.sourceTypeNode = TextNode.valueOf(sourceType);
+            this.configuration = connection.getConfiguration();
+            this.updatedAt = connection.getUpdatedAt();
+        }
+
+        boolean isCurrentFor(Connection connection) {
+            // Compiled from a newer save than the caller's copy of the connection
+            if (updatedAt != null && connection.getUpdatedAt() != null && updatedAt.isAfter(connection.getUpdatedAt())) {
+                return true;
+            }
+            // The running connection passes the same configuration string, so this is usually a reference check
+            return Objects.equals(configuration, connection.getConfiguration())
+                && Objects.equals(name, connection.getName())
+                && Objects.equals(sourceType, connection.getSourceType());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.quill.backend.service;
+
+import com.quill.backend.model.DataRecord;
+
+import java.util.List;
+
+/**
+ * Notified by {@link DataManagementService} after a batch has been stored. Runs on the thread
+ * that stored the batch; implementations must not throw for bad records.
+ */
+public interface IngestListener {
+    void onStored(List<DataRecord> records);
+}
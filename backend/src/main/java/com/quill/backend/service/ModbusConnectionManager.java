@@ -4,6 +4,12 @@ import com.quill.backend.exception.ModbusConnectionException;
 import com.quill.backend.model.Connection;
 import com.quill.backend.model.ModbusReading;
 import com.quill.backend.repository.ModbusReadingRepository;
+import com.quill.backend.service.flow.ConnectionFlow;
+import com.quill.backend.service.flow.IngestFlowController;
+import com.quill.backend.service.latest.LatestValueCache;
+import com.quill.backend.service.rollup.RollupService;
+import com.quill.backend.service.scheduling.PollScheduler;
+import com.quill.backend.service.scheduling.PollTask;
 import net.wimpi.modbus.ModbusIOException;
 import net.wimpi.modbus.ModbusSlaveException;
 import net.wimpi.modbus.io.ModbusTCPTransaction;
@@ -26,16 +32,26 @@ public class ModbusConnectionManager {
     
     private final ModbusReadingRepository readingRepository;
     private final Map<Long, TCPMasterConnection> activeConnections;
-    private final Map<Long, ScheduledFuture<?>> pollingTasks;
-    private final ScheduledExecutorService scheduler;
+    private final Map<Long, PollTask> pollingTasks;
+    private final Map<Long, ConnectionFlow<ModbusReading>> flows;
+    private final PollScheduler pollScheduler;
+    private final IngestFlowController flowController;
     private final RetryStrategy retryStrategy;
+    private final LatestValueCache latestValueCache;
+    private final RollupService rollupService;
 
     @Autowired
-    public ModbusConnectionManager(ModbusReadingRepository readingRepository) {
+    public ModbusConnectionManager(ModbusReadingRepository readingRepository, PollScheduler pollScheduler,
+                                   IngestFlowController flowController, LatestValueCache latestValueCache,
+                                   RollupService rollupService) {
         this.readingRepository = readingRepository;
+        this.latestValueCache = latestValueCache;
+        this.rollupService = rollupService;
         this.activeConnections = new ConcurrentHashMap<>();
         this.pollingTasks = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newScheduledThreadPool(4);
+        this.flows = new ConcurrentHashMap<>();
+        this.pollScheduler = pollScheduler;
+        this.flowController = flowController;
         this.retryStrategy = RetryStrategy.defaultStrategy();
     }
 
@@ -59,12 +75,26 @@ public class ModbusConnectionManager {
             connection.getConfigurationValue("pollInterval") : "1000"
         );
 
-        ScheduledFuture<?> task = scheduler.scheduleAtFixedRate(
-            () -> pollData(connection),
+        // Readings are saved on the flow controller's writer pool once a credit is granted
+        ConnectionFlow<ModbusReading> flow = flowController.open(
+            "modbus-" + connectionId,
+            connection.getConfigurationValue("overloadPolicy"),
+            pollInterval,
+            readings -> {
+                readingRepository.saveAll(readings);
+                latestValueCache.onReadings(readings);
+                rollupService.onReadings(readings);
+            }
+        );
+        flows.put(connectionId, flow);
+
+        PollTask task = pollScheduler.schedule(
+            "modbus-" + connectionId,
             0,
             pollInterval,
-            TimeUnit.MILLISECONDS
+            () -> pollData(connection, flow)
         );
+        flow.attach(task);
 
         pollingTasks.put(connectionId, task);
         logger.info("Started Modbus connection for connection {}", connectionId);
@@ -74,9 +104,13 @@ public class ModbusConnectionManager {
         Long connectionId = connection.getId();
         
         // Cancel polling
-        ScheduledFuture<?> task = pollingTasks.remove(connectionId);
+        PollTask task = pollingTasks.remove(connectionId);
         if (task != null) {
-            task.cancel(true);
+            task.cancel();
+        }
+        ConnectionFlow<ModbusReading> flow = flows.remove(connectionId);
+        if (flow != null) {
+            flow.close();
         }
 
         // Close connection
@@ -151,7 +185,7 @@ public class ModbusConnectionManager {
         }
     }
 
-    private void pollData(Connection connection) {
+    private void pollData(Connection connection, ConnectionFlow<ModbusReading> flow) {
         TCPMasterConnection con = activeConnections.get(connection.getId());
         if (con == null || !con.isConnected()) {
             handleDisconnection(connection);
@@ -159,11 +193,10 @@ public class ModbusConnectionManager {
         }
 
         try {
-            List<ModbusReading> readings = retryStrategy.execute(
+            flow.poll(() -> retryStrategy.execute(
                 () -> readRegisters(connection, con),
                 this::shouldRetryException
-            );
-            readingRepository.saveAll(readings);
+            ));
         } catch (Exception e) {
             logger.error("Error polling data for connection {}: {}", connection.getId(), e.getMessage());
             handleError(connection, e);
@@ -297,6 +330,7 @@ public class ModbusConnectionManager {
         errorReading.setQuality("BAD");
         errorReading.setErrorMessage(message);
         readingRepository.save(errorReading);
+        latestValueCache.onReadings(List.of(errorReading));
 
         logger.error("Modbus error for connection {}: {} - {}", connection.getId(), errorType, message);
     }
@@ -312,15 +346,9 @@ public class ModbusConnectionManager {
     }
 
     public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(60, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        pollingTasks.values().forEach(PollTask::cancel);
+        flows.values().forEach(ConnectionFlow::close);
+        flows.clear();
 
         // Close all connections
         for (TCPMasterConnection con : activeConnections.values()) {
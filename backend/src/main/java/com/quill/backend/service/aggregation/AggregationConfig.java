@@ -0,0 +1,129 @@
+package com.quill.backend.service.aggregation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quill.backend.service.transform.FieldAccessor;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parsed {@code aggregation} block of a connection's configuration:
+ * <pre>
+ * "aggregation": {
+ *   "windowMillis": 1000,            // window length
+ *   "slideMillis": 1000,             // optional; less than windowMillis gives sliding windows
+ *   "allowedLatenessMillis": 2000,   // how far behind the newest sample data may arrive
+ *   "fields": ["value", "/payload/temperature"],
+ *   "tagField": "topic",             // optional; splits series by this field's value
+ *   "functions": ["min", "max", "avg", "last", "count"],
+ *   "passthrough": false,            // also store the raw records
+ *   "tags": { "line1/flow": { "windowMillis": 60000 } }
+ * }
+ * </pre>
+ */
+final class AggregationConfig {
+    static final int MIN = 1;
+    static final int MAX = 1 << 1;
+    static final int AVG = 1 << 2;
+    static final int SUM = 1 << 3;
+    static final int LAST = 1 << 4;
+    static final int COUNT = 1 << 5;
+
+    final long windowMillis;
+    final long slideMillis;
+    final long latenessMillis;
+    final String[] fieldNames;
+    final FieldAccessor[] fields;
+    final FieldAccessor tagField;
+    final int functions;
+    final boolean passthrough;
+    final Map<String, long[]> tagWindows;
+
+    private AggregationConfig(JsonNode node) {
+        this.windowMillis = positive(node.path("windowMillis").asLong(1000), "windowMillis");
+        long slide = node.path("slideMillis").asLong(windowMillis);
+        this.slideMillis = validSlide(windowMillis, slide);
+        this.latenessMillis = Math.max(0, node.path("allowedLatenessMillis").asLong(0));
+
+        JsonNode fieldList = node.path("fields");
+        if (!fieldList.isArray() || fieldList.isEmpty()) {
+            throw new IllegalArgumentException("aggregation.fields must list at least one field");
+        }
+        this.fieldNames = new String[fieldList.size()];
+        this.fields = new FieldAccessor[fieldList.size()];
+        for (int i = 0; i < fieldList.size(); i++) {
+            fieldNames[i] = fieldList.get(i).asText();
+            fields[i] = FieldAccessor.compile(fieldNames[i]);
+        }
+
+        String tag = node.path("tagField").asText("");
+        this.tagField = tag.isEmpty() ? null : FieldAccessor.compile(tag);
+
+        int mask = 0;
+        JsonNode functionList = node.path("functions");
+        if (functionList.isArray() && !functionList.isEmpty()) {
+            for (JsonNode f : functionList) {
+                mask |= function(f.asText());
+            }
+        } else {
+            mask = MIN | MAX | AVG | LAST | COUNT;
+        }
+        this.functions = mask;
+        this.passthrough = node.path("passthrough").asBoolean(false);
+
+        this.tagWindows = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> it = node.path("tags").fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            long window = positive(entry.getValue().path("windowMillis").asLong(windowMillis), "windowMillis");
+            long tagSlide = validSlide(window, entry.getValue().path("slideMillis").asLong(window));
+            tagWindows.put(entry.getKey(), new long[] { window, tagSlide });
+        }
+    }
+
+    static AggregationConfig parse(JsonNode node) {
+        return node == null || node.isMissingNode() || node.isNull() ? null : new AggregationConfig(node);
+    }
+
+    long windowFor(String tag) {
+        long[] override = tagWindows.get(tag);
+        return override != null ? override[0] : windowMillis;
+    }
+
+    long slideFor(String tag) {
+        long[] override = tagWindows.get(tag);
+        return override != null ? override[1] : slideMillis;
+    }
+
+    boolean has(int function) {
+        return (functions & function) != 0;
+    }
+
+    private static int function(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "min": return MIN;
+            case "max": return MAX;
+            case "avg": case "mean": return AVG;
+            case "sum": return SUM;
+            case "last": return LAST;
+            case "count": return COUNT;
+            default: throw new IllegalArgumentException("Unknown aggregate function: " + name);
+        }
+    }
+
+    private static long positive(long value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("aggregation." + name + " must be positive");
+        }
+        return value;
+    }
+
+    private static long validSlide(long window, long slide) {
+        if (slide <= 0 || slide > window || window % slide != 0) {
+            throw new IllegalArgumentException("aggregation.slideMillis must divide windowMillis");
+        }
+        return slide;
+    }
+}
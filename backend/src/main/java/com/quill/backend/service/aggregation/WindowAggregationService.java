@@ -0,0 +1,84 @@
+package com.quill.backend.service.aggregation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.model.Connection;
+import com.quill.backend.model.DataRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming window aggregation between data sources and storage, configured per connection
+ * with an {@code aggregation} block (see {@link AggregationConfig}). Connections without one
+ * pass through untouched.
+ */
+@Service
+public class WindowAggregationService {
+    private static final Logger logger = LoggerFactory.getLogger(WindowAggregationService.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, Entry> aggregators = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final String configuration;
+        final WindowAggregator aggregator;
+
+        Entry(String configuration, WindowAggregator aggregator) {
+            this.configuration = configuration;
+            this.aggregator = aggregator;
+        }
+    }
+
+    /**
+     * Fold a batch into the connection's windows
+     * @return Closed-window aggregates plus any records that are not aggregated
+     */
+    public List<DataRecord> aggregate(Connection connection, List<DataRecord> records, long nowMillis) {
+        WindowAggregator aggregator = getAggregator(connection);
+        return aggregator == null ? records : aggregator.process(records, nowMillis);
+    }
+
+    /**
+     * Drop the connection's window state
+     * @return Aggregates for windows that were still open
+     */
+    public List<DataRecord> close(Long connectionId) {
+        Entry entry = aggregators.remove(connectionId);
+        return entry == null || entry.aggregator == null ? List.of() : entry.aggregator.flush();
+    }
+
+    /**
+     * @return Aggregation diagnostics as JSON, or null if the connection does not aggregate
+     */
+    public String getDiagnosticJson(Long connectionId) {
+        Entry entry = aggregators.get(connectionId);
+        return entry == null || entry.aggregator == null ? null : entry.aggregator.toDiagnosticJson();
+    }
+
+    private WindowAggregator getAggregator(Connection connection) {
+        Entry entry = aggregators.get(connection.getId());
+        if (entry != null && Objects.equals(entry.configuration, connection.getConfiguration())) {
+            return entry.aggregator;
+        }
+        WindowAggregator aggregator = null;
+        try {
+            JsonNode config = connection.getConfiguration() != null
+                ? objectMapper.readTree(connection.getConfiguration())
+                : null;
+            AggregationConfig parsed = AggregationConfig.parse(config != null ? config.get("aggregation") : null);
+            if (parsed != null) {
+                aggregator = new WindowAggregator(connection.getId().toString(), parsed, objectMapper);
+            }
+        } catch (Exception e) {
+            logger.error("Invalid aggregation config for connection {}: {}", connection.getId(), e.getMessage());
+        }
+        aggregators.put(connection.getId(), new Entry(connection.getConfiguration(), aggregator));
+        return aggregator;
+    }
+}
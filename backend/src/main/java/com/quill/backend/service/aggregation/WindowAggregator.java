@@ -0,0 +1,205 @@
+package com.quill.backend.service.aggregation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quill.backend.model.DataRecord;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Windowed aggregation for one connection. Numeric fields of incoming records are folded into
+ * per-series window state and replaced by one {@code aggregate} record per series and window.
+ *
+ * The watermark is the newest event time seen minus the allowed lateness, advanced by wall-clock
+ * time while the source is idle so the last windows still close. Samples for windows that have
+ * already been emitted are dropped and counted.
+ */
+final class WindowAggregator implements WindowSeries.Emitter {
+    static final String DATA_TYPE = "aggregate";
+
+    private final String sourceId;
+    private final AggregationConfig config;
+    private final ObjectMapper objectMapper;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<String, WindowSeries[]> seriesByTag = new HashMap<>();
+
+    private long maxEventTs = Long.MIN_VALUE;
+    private long lastArrivalMillis;
+    private List<DataRecord> output;
+
+    private long samples;
+    private long emitted;
+    private long lateSamples;
+
+    WindowAggregator(String sourceId, AggregationConfig config, ObjectMapper objectMapper) {
+        this.sourceId = sourceId;
+        this.config = config;
+        this.objectMapper = objectMapper;
+    }
+
+    synchronized List<DataRecord> process(List<DataRecord> records, long nowMillis) {
+        output = new ArrayList<>();
+        boolean received = false;
+        for (DataRecord record : records) {
+            if (!accept(record)) {
+                output.add(record);
+                continue;
+            }
+            received = true;
+            if (config.passthrough) {
+                output.add(record);
+            }
+        }
+        if (received) {
+            lastArrivalMillis = nowMillis;
+        }
+        if (maxEventTs != Long.MIN_VALUE) {
+            long watermark = maxEventTs + (nowMillis - lastArrivalMillis) - config.latenessMillis;
+            for (WindowSeries[] series : seriesByTag.values()) {
+                for (WindowSeries s : series) {
+                    s.advance(watermark, this);
+                }
+            }
+        }
+        List<DataRecord> result = output;
+        output = null;
+        return result;
+    }
+
+    /**
+     * Emit every window that holds data, regardless of the watermark
+     */
+    synchronized List<DataRecord> flush() {
+        output = new ArrayList<>();
+        for (WindowSeries[] series : seriesByTag.values()) {
+            for (WindowSeries s : series) {
+                s.flush(this);
+            }
+        }
+        List<DataRecord> result = output;
+        output = null;
+        return result;
+    }
+
+    /**
+     * @return true if the record carried at least one configured numeric field
+     */
+    private boolean accept(DataRecord record) {
+        if (DATA_TYPE.equals(record.getDataType()) || "diagnostic".equals(record.getDataType())
+                || record.getContent() == null || record.getTimestamp() == null) {
+            return false;
+        }
+        ObjectNode content;
+        try {
+            // Parsed earlier in the pipeline unless the record came straight from storage or a handler
+            JsonNode node = record.getContentTree() != null
+                ? record.getContentTree()
+                : objectMapper.readTree(record.getContent());
+            if (!(node instanceof ObjectNode)) {
+                return false;
+            }
+            content = (ObjectNode) node;
+        } catch (Exception e) {
+            return false;
+        }
+
+        String tag = "";
+        if (config.tagField != null) {
+            JsonNode tagValue = config.tagField.get(content);
+            tag = tagValue != null ? tagValue.asText() : "";
+        }
+        WindowSeries[] series = seriesByTag.computeIfAbsent(tag, this::createSeries);
+
+        long ts = record.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+        boolean accepted = false;
+        for (int i = 0; i < series.length; i++) {
+            double value = config.fields[i].getDouble(content);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            accepted = true;
+            samples++;
+            if (!series[i].add(ts, value, this)) {
+                lateSamples++;
+            }
+        }
+        if (accepted && ts > maxEventTs) {
+            maxEventTs = ts;
+        }
+        return accepted;
+    }
+
+    private WindowSeries[] createSeries(String tag) {
+        WindowSeries[] series = new WindowSeries[config.fields.length];
+        long window = config.windowFor(tag);
+        long slide = config.slideFor(tag);
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new WindowSeries(tag, config.fieldNames[i], window, slide, config.latenessMillis);
+        }
+        return series;
+    }
+
+    @Override
+    public void emit(WindowSeries series, long windowStart, long windowEnd,
+                     long count, double min, double max, double sum, double last) {
+        ObjectNode content = objectMapper.createObjectNode();
+        if (!series.tag.isEmpty()) {
+            content.put("tag", series.tag);
+        }
+        content.put("field", series.field);
+        content.put("windowStart", format(windowStart));
+        content.put("windowEnd", format(windowEnd));
+        content.put("windowMillis", windowEnd - windowStart);
+        if (config.has(AggregationConfig.COUNT)) {
+            content.put("count", count);
+        }
+        if (config.has(AggregationConfig.MIN)) {
+            content.put("min", min);
+        }
+        if (config.has(AggregationConfig.MAX)) {
+            content.put("max", max);
+        }
+        if (config.has(AggregationConfig.AVG)) {
+            content.put("avg", sum / count);
+        }
+        if (config.has(AggregationConfig.SUM)) {
+            content.put("sum", sum);
+        }
+        if (config.has(AggregationConfig.LAST)) {
+            content.put("last", last);
+        }
+
+        DataRecord record = new DataRecord();
+        record.setSourceId(sourceId);
+        record.setDataType(DATA_TYPE);
+        record.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(windowStart), zone));
+        record.setContent(content.toString());
+        output.add(record);
+        emitted++;
+    }
+
+    private String format(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    synchronized String toDiagnosticJson() {
+        int seriesCount = 0;
+        for (WindowSeries[] series : seriesByTag.values()) {
+            seriesCount += series.length;
+        }
+        return String.format(Locale.ROOT,
+            "{\"type\":\"aggregation_status\",\"window_ms\":%d,\"slide_ms\":%d,\"lateness_ms\":%d," +
+            "\"series\":%d,\"samples\":%d,\"aggregates_emitted\":%d,\"late_samples\":%d}",
+            config.windowMillis, config.slideMillis, config.latenessMillis,
+            seriesCount, samples, emitted, lateSamples);
+    }
+}
@@ -0,0 +1,174 @@
+package com.quill.backend.service.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * Window state for one series (tag and field). Samples are accumulated into panes of
+ * {@code slide} milliseconds held in a fixed ring of primitive arrays; a window is the
+ * combination of {@code window / slide} consecutive panes. Tumbling windows are the case
+ * {@code slide == window}.
+ *
+ * Adding a sample never allocates. Windows are emitted once the watermark passes their end.
+ */
+final class WindowSeries {
+
+    /**
+     * Receives a closed window. Called with primitives so nothing is boxed.
+     */
+    interface Emitter {
+        void emit(WindowSeries series, long windowStart, long windowEnd,
+                  long count, double min, double max, double sum, double last);
+    }
+
+    final String tag;
+    final String field;
+    private final long window;
+    private final long slide;
+    private final int ring;
+
+    private final long[] paneId;
+    private final long[] count;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final double[] last;
+    private final long[] lastTs;
+
+    private long nextWindowEnd = Long.MIN_VALUE;
+    private long latestPane = Long.MIN_VALUE;
+    private long latestTs = Long.MIN_VALUE;
+    private double latestValue = Double.NaN;
+
+    WindowSeries(String tag, String field, long windowMillis, long slideMillis, long latenessMillis) {
+        this.tag = tag;
+        this.field = field;
+        this.window = windowMillis;
+        this.slide = slideMillis;
+        // Panes of one window, plus room for samples up to the allowed lateness ahead of the oldest open window
+        this.ring = (int) (windowMillis / slideMillis + (latenessMillis + slideMillis - 1) / slideMillis + 2);
+        this.paneId = new long[ring];
+        this.count = new long[ring];
+        this.min = new double[ring];
+        this.max = new double[ring];
+        this.sum = new double[ring];
+        this.last = new double[ring];
+        this.lastTs = new long[ring];
+        Arrays.fill(paneId, Long.MIN_VALUE);
+    }
+
+    /**
+     * @return false if the sample arrived after its windows were emitted and was dropped
+     */
+    boolean add(long ts, double value, Emitter emitter) {
+        long pane = Math.floorDiv(ts, slide);
+        if (nextWindowEnd == Long.MIN_VALUE) {
+            nextWindowEnd = (pane + 1) * slide;
+        }
+        if (pane < oldestOpenPane()) {
+            return false;
+        }
+        // Re-reading an unchanged snapshot yields the same timestamp and value; count it once.
+        // Distinct samples that share a millisecond are all kept.
+        if (ts == latestTs && Double.compare(value, latestValue) == 0) {
+            return true;
+        }
+        // A sample far ahead of the open windows forces the oldest ones out to free their panes
+        while (pane - oldestOpenPane() >= ring) {
+            emitNext(emitter);
+        }
+
+        int slot = (int) Math.floorMod(pane, (long) ring);
+        if (paneId[slot] != pane) {
+            paneId[slot] = pane;
+            count[slot] = 0;
+            min[slot] = Double.POSITIVE_INFINITY;
+            max[slot] = Double.NEGATIVE_INFINITY;
+            sum[slot] = 0.0;
+            last[slot] = Double.NaN;
+            lastTs[slot] = Long.MIN_VALUE;
+        }
+        count[slot]++;
+        if (value < min[slot]) {
+            min[slot] = value;
+        }
+        if (value > max[slot]) {
+            max[slot] = value;
+        }
+        sum[slot] += value;
+        if (ts >= lastTs[slot]) {
+            last[slot] = value;
+            lastTs[slot] = ts;
+        }
+        if (pane > latestPane) {
+            latestPane = pane;
+        }
+        if (ts >= latestTs) {
+            latestTs = ts;
+            latestValue = value;
+        }
+        return true;
+    }
+
+    /**
+     * Emit every window that ends at or before the watermark
+     */
+    void advance(long watermark, Emitter emitter) {
+        if (nextWindowEnd == Long.MIN_VALUE) {
+            return;
+        }
+        while (nextWindowEnd <= watermark) {
+            if (Math.floorDiv(nextWindowEnd - window, slide) > latestPane) {
+                // No data in this or any later window yet; skip the empty stretch
+                nextWindowEnd = (Math.floorDiv(watermark, slide) + 1) * slide;
+                return;
+            }
+            emitNext(emitter);
+        }
+    }
+
+    /**
+     * Emit all windows that contain data, e.g. when the connection stops
+     */
+    void flush(Emitter emitter) {
+        if (nextWindowEnd == Long.MIN_VALUE) {
+            return;
+        }
+        advance((latestPane + 1) * slide + window, emitter);
+    }
+
+    private long oldestOpenPane() {
+        return Math.floorDiv(nextWindowEnd - window, slide);
+    }
+
+    private void emitNext(Emitter emitter) {
+        long end = nextWindowEnd;
+        long start = end - window;
+        long firstPane = Math.floorDiv(start, slide);
+        long lastPane = Math.floorDiv(end, slide) - 1;
+
+        long n = 0;
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        double total = 0.0;
+        double latest = Double.NaN;
+        long latestAt = Long.MIN_VALUE;
+        for (long p = firstPane; p <= lastPane; p++) {
+            int slot = (int) Math.floorMod(p, (long) ring);
+            if (paneId[slot] != p || count[slot] == 0) {
+                continue;
+            }
+            n += count[slot];
+            lo = Math.min(lo, min[slot]);
+            hi = Math.max(hi, max[slot]);
+            total += sum[slot];
+            if (lastTs[slot] >= latestAt) {
+                latest = last[slot];
+                latestAt = lastTs[slot];
+            }
+        }
+        if (n > 0) {
+            emitter.emit(this, start, end, n, lo, hi, total, latest);
+        }
+        nextWindowEnd = end + slide;
+    }
+}
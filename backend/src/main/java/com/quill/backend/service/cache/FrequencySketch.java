@@ -0,0 +1,61 @@
+package com.quill.backend.service.cache;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often keys were used recently. Counters are
+ * halved after a sample period so old popularity fades.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0x0c1d4f91, 0x6d2b79f5, 0x3c6ef372};
+
+    private final byte[][] table;
+    private final int mask;
+    private final int samplePeriod;
+    private int additions;
+
+    /**
+     * @param expectedEntries Rough number of entries the cache holds
+     */
+    FrequencySketch(int expectedEntries) {
+        int width = Integer.highestOneBit(Math.max(256, Math.min(1 << 22, expectedEntries)) * 2 - 1);
+        this.table = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.samplePeriod = 10 * width;
+    }
+
+    void increment(int hash) {
+        for (int i = 0; i < DEPTH; i++) {
+            int index = index(hash, i);
+            if (table[i][index] < MAX_COUNT) {
+                table[i][index]++;
+            }
+        }
+        if (++additions >= samplePeriod) {
+            halve();
+        }
+    }
+
+    int frequency(int hash) {
+        int min = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table[i][index(hash, i)]);
+        }
+        return min;
+    }
+
+    private void halve() {
+        for (byte[] row : table) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = (byte) (row[j] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
@@ -0,0 +1,214 @@
+package com.quill.backend.service.cache;
+
+import com.quill.backend.dto.DataPage;
+import com.quill.backend.dto.DataRecordView;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.DataCursor;
+import com.quill.backend.service.IngestListener;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Result cache for the data read endpoints, invalidated by ingest rather than by time.
+ *
+ * Every stored batch bumps a version for each source and data type it contains, plus a global
+ * version. A cached page remembers the version of its scope and is only served while the version
+ * is unchanged: a source page is invalidated by that source's ingest, a range page by any ingest.
+ *
+ * Pages that end before {@code now - quill.cache.closed-after-ms} are closed. Most records are
+ * stamped close to the time they are stored, so a closed page is kept until evicted. That covers
+ * historical ranges and every page after a cursor older than that. Some records keep an older
+ * timestamp of their own (window aggregates, Sparkplug metrics). A batch with a record that old
+ * bumps a separate late version of its scopes, and only that invalidates closed pages. Cleanup
+ * deletes rows, so it clears the whole cache.
+ *
+ * With clustering enabled other nodes ingest without bumping these versions, and their late
+ * records can land in closed pages too, so nothing is cached.
+ */
+@Service
+public class ReadCache implements IngestListener {
+    private static final long RECORD_OVERHEAD_BYTES = 160;
+
+    private final boolean enabled;
+    private final boolean authoritative;
+    private final long closedAfterMillis;
+    private final TinyLfuCache<String, Entry> cache;
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final Map<String, AtomicLong> sourceVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> typeVersions = new ConcurrentHashMap<>();
+    // Bumped only by batches with records old enough to fall into closed pages
+    private final AtomicLong globalLateVersion = new AtomicLong();
+    private final Map<String, AtomicLong> sourceLateVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> typeLateVersions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public ReadCache(
+        ConnectionLeaseManager leaseManager,
+        @Value("${quill.cache.enabled:true}") boolean enabled,
+        @Value("${quill.cache.max-bytes:67108864}") long maxBytes,
+        @Value("${quill.cache.closed-after-ms:60000}") long closedAfterMillis
+    ) {
+        this.enabled = enabled;
+        this.authoritative = !leaseManager.isEnabled();
+        this.closedAfterMillis = closedAfterMillis;
+        // Sized for pages of a few dozen small records
+        this.cache = new TinyLfuCache<>(maxBytes, (int) Math.min(Integer.MAX_VALUE, maxBytes / 16384));
+    }
+
+    @Override
+    public void onStored(List<DataRecord> records) {
+        LocalDateTime closedBefore = closedBefore();
+        Set<String> sources = new HashSet<>();
+        Set<String> types = new HashSet<>();
+        Set<String> lateSources = new HashSet<>();
+        Set<String> lateTypes = new HashSet<>();
+        for (DataRecord record : records) {
+            String source = String.valueOf(record.getSourceId());
+            String type = String.valueOf(record.getDataType());
+            sources.add(source);
+            types.add(type);
+            if (record.getTimestamp() != null && record.getTimestamp().isBefore(closedBefore)) {
+                lateSources.add(source);
+                lateTypes.add(type);
+            }
+        }
+        for (String source : lateSources) {
+            version(sourceLateVersions, source).incrementAndGet();
+        }
+        for (String type : lateTypes) {
+            version(typeLateVersions, type).incrementAndGet();
+        }
+        if (!lateSources.isEmpty()) {
+            globalLateVersion.incrementAndGet();
+        }
+        for (String source : sources) {
+            version(sourceVersions, source).incrementAndGet();
+        }
+        for (String type : types) {
+            version(typeVersions, type).incrementAndGet();
+        }
+        globalVersion.incrementAndGet();
+    }
+
+    public DataPage bySource(String sourceId, String cursor, int pageSize, Supplier<DataPage> loader) {
+        return lookup("source\u0000" + sourceId + "\u0000" + cursor + "\u0000" + pageSize,
+            versionOf(sourceVersions, sourceId), versionOf(sourceLateVersions, sourceId), closedBelow(cursor), loader);
+    }
+
+    public DataPage byType(String dataType, String cursor, int pageSize, Supplier<DataPage> loader) {
+        return lookup("type\u0000" + dataType + "\u0000" + cursor + "\u0000" + pageSize,
+            versionOf(typeVersions, dataType), versionOf(typeLateVersions, dataType), closedBelow(cursor), loader);
+    }
+
+    public DataPage recent(String cursor, int pageSize, Supplier<DataPage> loader) {
+        return lookup("recent\u0000" + cursor + "\u0000" + pageSize, globalVersion.get(), globalLateVersion.get(),
+            closedBelow(cursor), loader);
+    }
+
+    public DataPage range(LocalDateTime start, LocalDateTime end, String cursor, int pageSize, Supplier<DataPage> loader) {
+        boolean closed = isClosed(end) || closedBelow(cursor);
+        return lookup("range\u0000" + start + "\u0000" + end + "\u0000" + cursor + "\u0000" + pageSize,
+            globalVersion.get(), globalLateVersion.get(), closed, loader);
+    }
+
+    /**
+     * Drop every cached page, e.g. after records were deleted
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("entries", cache.size());
+        status.put("bytes", cache.weight());
+        status.put("hits", hits.sum());
+        status.put("misses", misses.sum());
+        return status;
+    }
+
+    /**
+     * @param current Version of the page's scope, read before loading so that a batch stored while
+     *                the query runs invalidates the result
+     * @param late Late version of the page's scope; a closed page is served while it is unchanged
+     */
+    private DataPage lookup(String key, long current, long late, boolean closed, Supplier<DataPage> loader) {
+        if (!enabled || !authoritative) {
+            return loader.get();
+        }
+        Entry entry = cache.get(key);
+        if (entry != null && ((entry.closed && entry.lateVersion == late) || entry.version == current)) {
+            hits.increment();
+            return entry.page;
+        }
+        misses.increment();
+        DataPage page = loader.get();
+        cache.put(key, new Entry(page, current, late, closed), weigh(page));
+        return page;
+    }
+
+    private boolean closedBelow(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return false;
+        }
+        return isClosed(DataCursor.decode(cursor).getTimestamp());
+    }
+
+    private boolean isClosed(LocalDateTime end) {
+        return end.isBefore(closedBefore());
+    }
+
+    private LocalDateTime closedBefore() {
+        return LocalDateTime.now().minusNanos(closedAfterMillis * 1_000_000);
+    }
+
+    private static AtomicLong version(Map<String, AtomicLong> versions, String key) {
+        return versions.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    /**
+     * Scopes that never had a batch stored are at version 0, without creating a counter per query
+     */
+    private static long versionOf(Map<String, AtomicLong> versions, String key) {
+        AtomicLong version = versions.get(key);
+        return version != null ? version.get() : 0;
+    }
+
+    private static long weigh(DataPage page) {
+        long bytes = RECORD_OVERHEAD_BYTES;
+        for (DataRecordView record : page.getRecords()) {
+            bytes += RECORD_OVERHEAD_BYTES + (record.getContent() != null ? 2L * record.getContent().length() : 0);
+        }
+        return bytes;
+    }
+
+    private static final class Entry {
+        final DataPage page;
+        final long version;
+        final long lateVersion;
+        final boolean closed;
+
+        Entry(DataPage page, long version, long lateVersion, boolean closed) {
+            this.page = page;
+            this.version = version;
+            this.lateVersion = lateVersion;
+            this.closed = closed;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.quill.backend.service.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weight-bounded cache with W-TinyLFU eviction.
+ *
+ * New entries go into a small LRU window (1% of the weight). Entries leaving the window only enter
+ * the main LRU region if they have been requested more often than the entries they would push out,
+ * according to a {@link FrequencySketch}. One-off queries therefore cannot flush the entries that
+ * dashboards keep asking for.
+ */
+public class TinyLfuCache<K, V> {
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long mainWeight;
+
+    /**
+     * @param maxWeight Total weight the cache may hold
+     * @param expectedEntries Rough number of entries at that weight; sizes the frequency sketch
+     */
+    public TinyLfuCache(long maxWeight, int expectedEntries) {
+        this.maxWeight = Math.max(1, maxWeight);
+        this.windowMaxWeight = Math.max(1, this.maxWeight / 100);
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+        Node<V> node = window.get(key);
+        if (node == null) {
+            node = main.get(key);
+        }
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * @return false if the value is too heavy to cache at all
+     */
+    public synchronized boolean put(K key, V value, long weight) {
+        remove(key);
+        if (weight > maxWeight - windowMaxWeight) {
+            return false;
+        }
+        window.put(key, new Node<>(value, weight));
+        windowWeight += weight;
+        while (windowWeight > windowMaxWeight && !window.isEmpty()) {
+            Map.Entry<K, Node<V>> eldest = window.entrySet().iterator().next();
+            window.remove(eldest.getKey());
+            windowWeight -= eldest.getValue().weight;
+            admit(eldest.getKey(), eldest.getValue());
+        }
+        return true;
+    }
+
+    public synchronized void remove(K key) {
+        Node<V> node = window.remove(key);
+        if (node != null) {
+            windowWeight -= node.weight;
+        }
+        node = main.remove(key);
+        if (node != null) {
+            mainWeight -= node.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        window.clear();
+        main.clear();
+        windowWeight = 0;
+        mainWeight = 0;
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    public synchronized long weight() {
+        return windowWeight + mainWeight;
+    }
+
+    private void admit(K key, Node<V> candidate) {
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        int candidateFrequency = sketch.frequency(key.hashCode());
+        // Pick every victim the candidate needs room for before evicting any of them, so a losing
+        // candidate leaves the main region as it was
+        List<K> victims = new ArrayList<>();
+        long freed = 0;
+        Iterator<Map.Entry<K, Node<V>>> eldest = main.entrySet().iterator();
+        while (mainWeight - freed + candidate.weight > mainMaxWeight && eldest.hasNext()) {
+            Map.Entry<K, Node<V>> victim = eldest.next();
+            if (sketch.frequency(victim.getKey().hashCode()) >= candidateFrequency) {
+                // The resident is at least as popular: drop the newcomer instead
+                return;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue().weight;
+        }
+        for (K victim : victims) {
+            mainWeight -= main.remove(victim).weight;
+        }
+        main.put(key, candidate);
+        mainWeight += candidate.weight;
+    }
+
+    private static final class Node<V> {
+        final V value;
+        final long weight;
+
+        Node(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.quill.backend.service.cluster;
+
+import com.quill.backend.model.Connection;
+import com.quill.backend.repository.ConnectionRepository;
+import com.quill.backend.service.ConnectionResumeService;
+import com.quill.backend.service.DataConnectionManager;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps this node's running connections in line with the cluster's lease table.
+ *
+ * Every heartbeat it renews leases, stops connections whose lease was lost or which the hash ring
+ * now assigns to another node, and starts the active connections assigned to this node that no
+ * live peer holds. A dead node's leases expire after the lease timeout and its connections are
+ * picked up by the surviving nodes on their next heartbeat.
+ *
+ * Runs on its own thread rather than the poll scheduler so slow device reads can never delay
+ * lease renewal.
+ */
+@Component
+public class ClusterCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private final ConnectionLeaseManager leaseManager;
+    private final DataConnectionManager dataConnectionManager;
+    private final ConnectionRepository connectionRepository;
+    private final ConnectionResumeService connectionResumeService;
+    private final long heartbeatMillis;
+
+    private ScheduledExecutorService executor;
+    private CompletableFuture<Map<String, Object>> pendingStarts = CompletableFuture.completedFuture(Map.of());
+
+    @Autowired
+    public ClusterCoordinator(
+        ConnectionLeaseManager leaseManager,
+        DataConnectionManager dataConnectionManager,
+        ConnectionRepository connectionRepository,
+        ConnectionResumeService connectionResumeService,
+        @Value("${quill.cluster.heartbeat-ms:5000}") long heartbeatMillis
+    ) {
+        this.leaseManager = leaseManager;
+        this.dataConnectionManager = dataConnectionManager;
+        this.connectionRepository = connectionRepository;
+        this.connectionResumeService = connectionResumeService;
+        // At least three renewals per lease period so one slow heartbeat does not lose leases
+        this.heartbeatMillis = Math.max(100, Math.min(heartbeatMillis, leaseManager.getLeaseTimeoutMillis() / 3));
+    }
+
+    /**
+     * Join the cluster and start the heartbeat loop
+     */
+    public synchronized void start() {
+        if (!leaseManager.isEnabled() || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::reconcile, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+        logger.info("Node {} joined the cluster (heartbeat {} ms, lease timeout {} ms)",
+            leaseManager.getNodeId(), heartbeatMillis, leaseManager.getLeaseTimeoutMillis());
+    }
+
+    void reconcile() {
+        Set<Long> held;
+        try {
+            held = leaseManager.heartbeat();
+        } catch (Exception e) {
+            logger.warn("Cluster heartbeat failed: {}", e.getMessage());
+            if (leaseManager.isFenced()) {
+                // Peers may already own our connections; stop rather than double-poll
+                for (Long id : dataConnectionManager.getRunningConnectionIds()) {
+                    logger.warn("Stopping connection {}: lease could not be renewed", id);
+                    dataConnectionManager.detachConnection(id, false);
+                }
+            }
+            return;
+        }
+
+        try {
+            Map<Long, Connection> active = connectionRepository.findByStatus(Connection.ConnectionStatus.ACTIVE)
+                .stream()
+                .collect(Collectors.toMap(Connection::getId, Function.identity()));
+            Set<Long> running = dataConnectionManager.getRunningConnectionIds();
+
+            for (Long id : running) {
+                if (!held.contains(id)) {
+                    logger.warn("Lost lease for connection {}, stopping local collection", id);
+                    dataConnectionManager.detachConnection(id, false);
+                } else if (!active.containsKey(id)) {
+                    logger.info("Connection {} was stopped elsewhere, stopping local collection", id);
+                    dataConnectionManager.detachConnection(id, true);
+                } else if (!leaseManager.isPreferredOwner(id)) {
+                    logger.info("Handing connection {} over to another node", id);
+                    dataConnectionManager.detachConnection(id, true);
+                }
+            }
+
+            // Starts from the previous heartbeat may still be staggering in
+            if (!pendingStarts.isDone()) {
+                return;
+            }
+
+            running = dataConnectionManager.getRunningConnectionIds();
+            for (Long id : held) {
+                if (!running.contains(id)) {
+                    leaseManager.release(id);
+                }
+            }
+
+            Set<Long> leasedByOthers = leaseManager.getLeasedByOthers();
+            Set<Long> runningNow = new HashSet<>(running);
+            List<Connection> toStart = active.values().stream()
+                .filter(c -> !runningNow.contains(c.getId()))
+                .filter(c -> !leasedByOthers.contains(c.getId()))
+                .filter(c -> leaseManager.isPreferredOwner(c.getId()))
+                .collect(Collectors.toList());
+            if (!toStart.isEmpty()) {
+                logger.info("Taking ownership of {} connections", toStart.size());
+                pendingStarts = connectionResumeService.resume(toStart);
+            }
+        } catch (Exception e) {
+            logger.error("Cluster reconcile failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.quill.backend.service.cluster;
+
+import com.quill.backend.model.ConnectionLease;
+import com.quill.backend.repository.ClusterNodeRepository;
+import com.quill.backend.repository.ConnectionLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease-based ownership of connections across backend nodes.
+ *
+ * Nodes heartbeat into {@code cluster_nodes}; live nodes form a consistent-hash ring that decides
+ * which node should poll each connection. A node only polls a connection while it holds its row
+ * in {@code connection_leases}. Leases are renewed with every heartbeat and expire after
+ * {@code quill.cluster.lease-timeout-ms}, after which another node may take them over.
+ *
+ * With clustering disabled (the default) every call succeeds locally and the database is not used.
+ */
+@Service
+public class ConnectionLeaseManager {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionLeaseManager.class);
+
+    private final ClusterNodeRepository nodeRepository;
+    private final ConnectionLeaseRepository leaseRepository;
+    private final boolean enabled;
+    private final String nodeId;
+    private final String host;
+    private final long leaseTimeoutMillis;
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+    private volatile Set<Long> heldLeases = Set.of();
+    private volatile long lastRenewNanos = System.nanoTime();
+
+    @Autowired
+    public ConnectionLeaseManager(
+        ClusterNodeRepository nodeRepository,
+        ConnectionLeaseRepository leaseRepository,
+        @Value("${quill.cluster.enabled:false}") boolean enabled,
+        @Value("${quill.cluster.node-id:}") String configuredNodeId,
+        @Value("${server.port:8080}") int serverPort,
+        @Value("${quill.cluster.lease-timeout-ms:15000}") long leaseTimeoutMillis,
+        @Value("${quill.cluster.virtual-nodes:64}") int virtualNodes
+    ) {
+        this.nodeRepository = nodeRepository;
+        this.leaseRepository = leaseRepository;
+        this.enabled = enabled;
+        this.host = resolveHost();
+        // A stable default id lets a restarted node reclaim its own leases without waiting for expiry
+        this.nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+            ? host + ":" + serverPort
+            : configuredNodeId;
+        this.leaseTimeoutMillis = Math.max(1000, leaseTimeoutMillis);
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing(List.of(nodeId), virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getLeaseTimeoutMillis() {
+        return leaseTimeoutMillis;
+    }
+
+    /**
+     * Record a heartbeat, refresh the live node set and renew every lease this node holds
+     * @return The connection ids whose leases this node still holds
+     */
+    public synchronized Set<Long> heartbeat() {
+        if (!enabled) {
+            return heldLeases;
+        }
+        nodeRepository.heartbeat(nodeId, host);
+
+        List<String> liveNodes = nodeRepository.findLiveNodeIds(leaseSeconds());
+        Set<String> members = new HashSet<>(liveNodes);
+        members.add(nodeId);
+        if (!ring.hasSameNodes(members)) {
+            logger.info("Cluster membership changed: {}", members);
+            ring = new ConsistentHashRing(members, virtualNodes);
+        }
+
+        leaseRepository.renewAll(nodeId, leaseSeconds());
+        heldLeases = Set.copyOf(leaseRepository.findHeldConnectionIds(nodeId));
+        lastRenewNanos = System.nanoTime();
+
+        // Forget nodes that have been gone for much longer than a lease
+        nodeRepository.deleteStale(leaseSeconds() * 10);
+        return heldLeases;
+    }
+
+    /**
+     * True once this node has gone a full lease period without renewing. Its leases may already
+     * belong to another node, so it must stop polling to avoid double collection.
+     */
+    public boolean isFenced() {
+        return enabled && System.nanoTime() - lastRenewNanos > TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+    }
+
+    /**
+     * @return true if the consistent-hash ring assigns this connection to this node
+     */
+    public boolean isPreferredOwner(Long connectionId) {
+        return !enabled || nodeId.equals(ring.ownerOf(connectionId));
+    }
+
+    /**
+     * Take or renew the lease for a connection
+     * @return true if this node may poll the connection
+     */
+    public synchronized boolean tryAcquire(Long connectionId) {
+        if (!enabled) {
+            return true;
+        }
+        boolean acquired = leaseRepository.tryAcquire(connectionId, nodeId, leaseSeconds()) > 0;
+        if (acquired) {
+            Set<Long> held = new HashSet<>(heldLeases);
+            held.add(connectionId);
+            heldLeases = Set.copyOf(held);
+        }
+        return acquired;
+    }
+
+    public synchronized void release(Long connectionId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            leaseRepository.release(connectionId, nodeId);
+        } catch (Exception e) {
+            // The lease will expire on its own
+            logger.warn("Failed to release lease for connection {}: {}", connectionId, e.getMessage());
+        }
+        Set<Long> held = new HashSet<>(heldLeases);
+        held.remove(connectionId);
+        heldLeases = Set.copyOf(held);
+    }
+
+    /**
+     * @return Connections currently leased by live peers
+     */
+    public Set<Long> getLeasedByOthers() {
+        if (!enabled) {
+            return Set.of();
+        }
+        return new HashSet<>(leaseRepository.findConnectionIdsHeldByOthers(nodeId));
+    }
+
+    public String getOwner(Long connectionId) {
+        if (!enabled) {
+            return nodeId;
+        }
+        return leaseRepository.findById(connectionId)
+            .map(ConnectionLease::getOwnerNode)
+            .orElse(null);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("nodeId", nodeId);
+        status.put("nodes", ring.getNodes());
+        status.put("heldLeases", heldLeases.size());
+        status.put("leaseTimeoutMillis", leaseTimeoutMillis);
+        status.put("fenced", isFenced());
+        return status;
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        // Hand everything back immediately instead of making peers wait for expiry
+        try {
+            leaseRepository.releaseAll(nodeId);
+            nodeRepository.deleteById(nodeId);
+            logger.info("Node {} left the cluster", nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to leave cluster cleanly: {}", e.getMessage());
+        }
+    }
+
+    private double leaseSeconds() {
+        return leaseTimeoutMillis / 1000.0;
+    }
+
+    private static String resolveHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.quill.backend.service.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring of node ids. Each node is placed at several virtual points,
+ * so connections spread evenly and only about 1/N of them move when a node joins or leaves.
+ */
+public final class ConsistentHashRing {
+    private final long[] points;
+    private final String[] owners;
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        this.nodes = List.copyOf(new TreeSet<>(nodeIds));
+        int replicas = Math.max(1, virtualNodes);
+        int size = nodes.size() * replicas;
+
+        long[] keys = new long[size];
+        int[] order = new int[size];
+        int i = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < replicas; v++) {
+                keys[i] = hash(nodes.get(n) + "#" + v);
+                order[i] = n;
+                i++;
+            }
+        }
+
+        // Sort points, keeping owner indexes aligned
+        Integer[] idx = new Integer[size];
+        for (int k = 0; k < size; k++) {
+            idx[k] = k;
+        }
+        Arrays.sort(idx, (a, b) -> Long.compare(keys[a], keys[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int k = 0; k < size; k++) {
+            points[k] = keys[idx[k]];
+            owners[k] = nodes.get(order[idx[k]]);
+        }
+    }
+
+    /**
+     * @return The node that should own the connection, or null if the ring is empty
+     */
+    public String ownerOf(long connectionId) {
+        if (points.length == 0) {
+            return null;
+        }
+        int pos = Arrays.binarySearch(points, mix(connectionId));
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return owners[pos == points.length ? 0 : pos];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean hasSameNodes(Collection<String> nodeIds) {
+        return nodes.equals(List.copyOf(new TreeSet<>(nodeIds)));
+    }
+
+    private static long hash(String value) {
+        // FNV-1a followed by a finalizer so nearby strings land far apart
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -1,52 +1,60 @@
 package com.quill.backend.service.datasource;
 
 import com.quill.backend.model.Connection;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
+/**
+ * Creates data source handlers. Handlers keep per-connection state (client, collecting flag,
+ * decoded values), so every connection gets its own isolated instance and many connections
+ * of the same type can run in parallel.
+ */
 @Service
 public class DataSourceHandlerFactory {
     
-    private final Map<String, DataSourceHandler> handlers = new HashMap<>();
+    private final Map<String, Supplier<? extends DataSourceHandler>> handlerSuppliers = new HashMap<>();
     
     @Autowired
     public DataSourceHandlerFactory(
-        ModbusDataSourceHandler modbusHandler,
-        MqttDataSourceHandler mqttHandler
+        ObjectProvider<ModbusDataSourceHandler> modbusHandlers,
+        ObjectProvider<MqttDataSourceHandler> mqttHandlers
     ) {
-        handlers.put(modbusHandler.getSourceType(), modbusHandler);
-        handlers.put(mqttHandler.getSourceType(), mqttHandler);
+        handlerSuppliers.put(ModbusDataSourceHandler.SOURCE_TYPE, modbusHandlers::getObject);
+        handlerSuppliers.put(MqttDataSourceHandler.SOURCE_TYPE, mqttHandlers::getObject);
     }
     
     /**
-     * Get a handler for the given connection type
+     * Create a new, uninitialized handler for the given connection type
      * @param sourceType The type of data source (e.g., "modbus_tcp", "mqtt")
-     * @return Optional containing the handler if available
+     * @return Optional containing a fresh handler instance if the type is supported
      */
-    public Optional<DataSourceHandler> getHandler(String sourceType) {
-        return Optional.ofNullable(handlers.get(sourceType));
+    public Optional<DataSourceHandler> createHandler(String sourceType) {
+        Supplier<? extends DataSourceHandler> supplier = handlerSuppliers.get(sourceType);
+        return supplier == null ? Optional.empty() : Optional.of(supplier.get());
     }
     
     /**
-     * Get a handler for the given connection
+     * Create a new handler dedicated to the given connection
      * @param connection The connection configuration
-     * @return Optional containing the handler if available
+     * @return Optional containing a fresh handler instance if the type is supported
      */
-    public Optional<DataSourceHandler> getHandlerForConnection(Connection connection) {
-        return getHandler(connection.getSourceType());
+    public Optional<DataSourceHandler> createHandlerForConnection(Connection connection) {
+        return createHandler(connection.getSourceType());
     }
     
     /**
-     * Get all registered handlers
-     * @return List of all available handlers
+     * Get all supported source types
+     * @return Set of source type identifiers
      */
-    public List<DataSourceHandler> getAllHandlers() {
-        return List.copyOf(handlers.values());
+    public Set<String> getSupportedSourceTypes() {
+        return Set.copyOf(handlerSuppliers.keySet());
     }
     
     /**
@@ -55,6 +63,6 @@ public class DataSourceHandlerFactory {
      * @return true if a handler is available
      */
     public boolean hasHandlerForType(String sourceType) {
-        return handlers.containsKey(sourceType);
+        return handlerSuppliers.containsKey(sourceType);
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,8 @@ import com.quill.backend.model.Connection;
 import com.quill.backend.model.DataRecord;
 import com.quill.backend.service.ModbusConnectionManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -12,8 +14,14 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Per-connection adapter over the shared {@link ModbusConnectionManager}.
+ * Prototype-scoped; one instance is created per connection.
+ */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class ModbusDataSourceHandler implements DataSourceHandler {
+    public static final String SOURCE_TYPE = "modbus_tcp";
 
     private final ModbusConnectionManager modbusManager;
     private Connection connection;
@@ -118,7 +126,7 @@ public class ModbusDataSourceHandler implements DataSourceHandler {
 
     @Override
     public String getSourceType() {
-        return "modbus_tcp";
+        return SOURCE_TYPE;
     }
 
     @Override
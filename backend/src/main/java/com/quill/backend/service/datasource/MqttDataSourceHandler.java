@@ -1,37 +1,68 @@
 package com.quill.backend.service.datasource;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.quill.backend.model.Connection;
 import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.datasource.sparkplug.SparkplugCodec;
+import com.quill.backend.service.datasource.sparkplug.SparkplugSession;
+import com.quill.backend.service.datasource.sparkplug.SparkplugTopic;
 import org.eclipse.paho.client.mqttv3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Owns one MQTT client and its subscription state. Prototype-scoped so that
+ * {@link DataSourceHandlerFactory} can give each connection its own instance.
+ */
 @Service
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class MqttDataSourceHandler implements DataSourceHandler {
+    public static final String SOURCE_TYPE = "mqtt";
+    private static final Logger logger = LoggerFactory.getLogger(MqttDataSourceHandler.class);
+    private static final String PAYLOAD_FORMAT_SPARKPLUG = "sparkplug_b";
 
     private Connection connection;
     private MqttClient mqttClient;
     private final AtomicBoolean isCollecting;
     private final Map<String, Object> latestValues;
     private final ObjectMapper objectMapper;
+    private final ObjectReader payloadReader;
+    private final Map<String, SparkplugSession.Update> sparkplugValues;
+    private final AtomicLong sparkplugDecodeErrors;
+    private SparkplugSession sparkplugSession;
 
     public MqttDataSourceHandler() {
         this.isCollecting = new AtomicBoolean(false);
         this.latestValues = new ConcurrentHashMap<>();
         this.objectMapper = new ObjectMapper();
+        // "12 34" or "1,2" is text, not the number 12
+        this.payloadReader = objectMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.sparkplugValues = new ConcurrentHashMap<>();
+        this.sparkplugDecodeErrors = new AtomicLong();
     }
 
     @Override
     public void initialize(Connection connection) throws Exception {
         this.connection = connection;
+        this.sparkplugSession = isSparkplugEnabled() ? new SparkplugSession() : null;
         String brokerUrl = String.format("tcp://%s:%s",
             connection.getConfigurationValue("host"),
             connection.getConfigurationValue("port")
@@ -62,9 +93,13 @@ public class MqttDataSourceHandler implements DataSourceHandler {
 
             @Override
             public void messageArrived(String topic, MqttMessage message) {
+                if (sparkplugSession != null && SparkplugTopic.isSparkplugTopic(topic)) {
+                    handleSparkplugMessage(topic, message.getPayload());
+                    return;
+                }
                 try {
                     String payload = new String(message.getPayload());
-                    latestValues.put(topic, payload);
+                    latestValues.put(topic, parsePayload(payload));
                 } catch (Exception e) {
                     // Log error but don't stop collection
                 }
@@ -82,11 +117,7 @@ public class MqttDataSourceHandler implements DataSourceHandler {
         return CompletableFuture.runAsync(() -> {
             try {
                 if (!isCollecting.get() && mqttClient != null && mqttClient.isConnected()) {
-                    String topic = connection.getConfigurationValue("topic");
-                    if (topic == null) {
-                        topic = "#"; // Subscribe to all topics if none specified
-                    }
-                    mqttClient.subscribe(topic);
+                    mqttClient.subscribe(getSubscriptionTopic());
                     isCollecting.set(true);
                 }
             } catch (Exception e) {
@@ -100,11 +131,7 @@ public class MqttDataSourceHandler implements DataSourceHandler {
         return CompletableFuture.runAsync(() -> {
             try {
                 if (isCollecting.get() && mqttClient != null && mqttClient.isConnected()) {
-                    String topic = connection.getConfigurationValue("topic");
-                    if (topic == null) {
-                        topic = "#";
-                    }
-                    mqttClient.unsubscribe(topic);
+                    mqttClient.unsubscribe(getSubscriptionTopic());
                     isCollecting.set(false);
                 }
             } catch (Exception e) {
@@ -126,19 +153,96 @@ public class MqttDataSourceHandler implements DataSourceHandler {
             record.setSourceId(connection.getId().toString());
             record.setDataType("mqtt");
             record.setTimestamp(LocalDateTime.now());
+            ObjectNode content = objectMapper.createObjectNode();
+            content.put("topic", topic);
+            if (value instanceof JsonNode) {
+                // Copied because later stages may change the record's tree in place
+                content.set("value", ((JsonNode) value).deepCopy());
+            } else {
+                content.put("value", String.valueOf(value));
+            }
+            record.setContentTree(content);
+            records.add(record);
+        });
+        sparkplugValues.forEach((key, update) -> {
+            DataRecord record = new DataRecord();
+            record.setSourceId(connection.getId().toString());
+            record.setDataType(PAYLOAD_FORMAT_SPARKPLUG);
+            record.setTimestamp(update.getTimestamp() > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(update.getTimestamp()), ZoneId.systemDefault())
+                : LocalDateTime.now());
             try {
-                record.setContent(objectMapper.writeValueAsString(Map.of(
-                    "topic", topic,
-                    "value", value
-                )));
+                record.setContent(objectMapper.writeValueAsString(update.getContent()));
             } catch (Exception e) {
                 // Skip this record if serialization fails
+                return;
             }
             records.add(record);
         });
         return records;
     }
 
+    /**
+     * JSON payloads are kept as a tree so transformation rules, staging and rollups can address
+     * their fields (e.g. {@code /value/t}); anything else is kept as the raw text
+     */
+    private Object parsePayload(String payload) {
+        if (payload.isBlank()) {
+            return payload;
+        }
+        try {
+            return payloadReader.readTree(payload);
+        } catch (Exception e) {
+            return payload;
+        }
+    }
+
+    /**
+     * Decode a Sparkplug B message and keep the latest typed value per metric.
+     * Requests a rebirth from the edge node when sequence gaps or unknown aliases are detected.
+     */
+    private void handleSparkplugMessage(String topic, byte[] payload) {
+        try {
+            SparkplugTopic sparkplugTopic = SparkplugTopic.parse(topic);
+            SparkplugSession.Result result = sparkplugSession.process(sparkplugTopic, payload);
+            for (SparkplugSession.Update update : result.getUpdates()) {
+                sparkplugValues.put(update.getKey(), update);
+            }
+            if (result.isRebirthRequired() && isRebirthRequestEnabled()) {
+                MqttMessage rebirth = new MqttMessage(SparkplugCodec.encodeRebirthRequest(System.currentTimeMillis()));
+                // Sparkplug B requires NCMD at QoS 0, not retained
+                rebirth.setQos(0);
+                rebirth.setRetained(false);
+                mqttClient.publish(sparkplugTopic.getNodeCommandTopic(), rebirth);
+                logger.info("Requested Sparkplug rebirth from node {}", sparkplugTopic.getNodeKey());
+            }
+        } catch (Exception e) {
+            sparkplugDecodeErrors.incrementAndGet();
+            logger.warn("Failed to process Sparkplug message on {}: {}", topic, e.getMessage());
+        }
+    }
+
+    private boolean isSparkplugEnabled() {
+        String format = connection.getConfigurationValue("payloadFormat");
+        if (format != null) {
+            return PAYLOAD_FORMAT_SPARKPLUG.equalsIgnoreCase(format);
+        }
+        return SparkplugTopic.isSparkplugTopic(connection.getConfigurationValue("topic"));
+    }
+
+    private boolean isRebirthRequestEnabled() {
+        return !"false".equalsIgnoreCase(connection.getConfigurationValue("sparkplugRequestRebirth"));
+    }
+
+    private String getSubscriptionTopic() {
+        String topic = connection.getConfigurationValue("topic");
+        if (topic == null) {
+            // Subscribe to all topics (or the whole Sparkplug namespace) if none specified
+            topic = sparkplugSession != null ? SparkplugTopic.NAMESPACE + "/#" : "#";
+        }
+        return topic;
+    }
+
     @Override
     public boolean writeData(String topic, Object value) throws Exception {
         if (mqttClient != null && mqttClient.isConnected()) {
@@ -186,6 +290,24 @@ public class MqttDataSourceHandler implements DataSourceHandler {
         ));
         
         diagnostics.add(subscriptionStatus);
+
+        if (sparkplugSession != null) {
+            DataRecord sparkplugStatus = new DataRecord();
+            sparkplugStatus.setSourceId(connection.getId().toString());
+            sparkplugStatus.setDataType("diagnostic");
+            sparkplugStatus.setTimestamp(LocalDateTime.now());
+            sparkplugStatus.setContent(String.format(
+                "{\"type\":\"sparkplug_status\",\"nodes\":%d,\"metrics\":%d,\"messages\":%d," +
+                "\"sequence_gaps\":%d,\"unknown_aliases\":%d,\"decode_errors\":%d}",
+                sparkplugSession.getNodeCount(),
+                sparkplugValues.size(),
+                sparkplugSession.getMessagesProcessed(),
+                sparkplugSession.getSequenceGaps(),
+                sparkplugSession.getUnknownAliases(),
+                sparkplugDecodeErrors.get()
+            ));
+            diagnostics.add(sparkplugStatus);
+        }
         
         return diagnostics;
     }
@@ -208,7 +330,7 @@ public class MqttDataSourceHandler implements DataSourceHandler {
 
     @Override
     public String getSourceType() {
-        return "mqtt";
+        return SOURCE_TYPE;
     }
 
     @Override
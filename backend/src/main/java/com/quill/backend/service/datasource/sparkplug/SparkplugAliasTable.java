@@ -0,0 +1,129 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+import java.util.Arrays;
+
+/**
+ * Alias table for one edge node, mapping integer metric aliases to the metric definitions
+ * announced in NBIRTH/DBIRTH messages. Uses open addressing over a primitive key array so
+ * DATA messages resolve aliases without boxing or string lookups.
+ * Not thread-safe; access is confined to the MQTT callback thread.
+ */
+public class SparkplugAliasTable {
+
+    /**
+     * Metric definition captured from a birth certificate
+     */
+    public static final class Definition {
+        private final String name;
+        private final SparkplugDataType dataType;
+        private final String deviceId;
+
+        public Definition(String name, SparkplugDataType dataType, String deviceId) {
+            this.name = name;
+            this.dataType = dataType;
+            this.deviceId = deviceId;
+        }
+
+        public String getName() { return name; }
+        public SparkplugDataType getDataType() { return dataType; }
+        public String getDeviceId() { return deviceId; }
+    }
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private Definition[] values;
+    private int size;
+
+    public SparkplugAliasTable() {
+        allocate(64);
+    }
+
+    /**
+     * Register or replace the definition for an alias
+     */
+    public void put(long alias, Definition definition) {
+        if (alias < 0) {
+            throw new IllegalArgumentException("Alias must be non-negative");
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        int slot = indexOf(alias);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = alias;
+            size++;
+        }
+        values[slot] = definition;
+    }
+
+    /**
+     * @return The definition for the alias, or null if it was never announced
+     */
+    public Definition get(long alias) {
+        int slot = indexOf(alias);
+        return keys[slot] == EMPTY ? null : values[slot];
+    }
+
+    /**
+     * Drop all aliases announced by a device (on DDEATH or DBIRTH re-announcement)
+     */
+    public void removeDevice(String deviceId) {
+        if (deviceId == null) {
+            return;
+        }
+        long[] oldKeys = keys;
+        Definition[] oldValues = values;
+        allocate(oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && !deviceId.equals(oldValues[i].getDeviceId())) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(long alias) {
+        int mask = keys.length - 1;
+        int slot = mix(alias) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != alias) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Definition[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = indexOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Definition[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+}
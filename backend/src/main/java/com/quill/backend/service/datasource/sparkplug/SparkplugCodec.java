@@ -0,0 +1,229 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal protobuf wire-format codec for the Sparkplug B payload schema.
+ * Decodes the fields Quill needs directly from the byte array without generated classes,
+ * and encodes the single-metric rebirth command sent to edge nodes.
+ */
+public final class SparkplugCodec {
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_FIXED64 = 1;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    private static final int WIRE_FIXED32 = 5;
+
+    public static final String REBIRTH_METRIC = "Node Control/Rebirth";
+
+    private SparkplugCodec() {
+    }
+
+    /**
+     * Decode a Sparkplug B payload
+     * @param data The raw MQTT message payload
+     * @return The decoded payload
+     * @throws IllegalArgumentException if the payload is not valid protobuf
+     */
+    public static SparkplugPayload decode(byte[] data) {
+        Reader reader = new Reader(data, 0, data.length);
+        SparkplugPayload payload = new SparkplugPayload();
+        while (reader.hasRemaining()) {
+            long tag = reader.readVarint();
+            int field = (int) (tag >>> 3);
+            int wireType = (int) (tag & 0x7);
+            switch (field) {
+                case 1 -> payload.setTimestamp(reader.readVarint());
+                case 2 -> {
+                    int length = reader.readLength();
+                    payload.getMetrics().add(decodeMetric(new Reader(data, reader.pos, length)));
+                    reader.pos += length;
+                }
+                case 3 -> payload.setSeq(reader.readVarint());
+                default -> reader.skip(wireType);
+            }
+        }
+        return payload;
+    }
+
+    private static SparkplugPayload.Metric decodeMetric(Reader reader) {
+        SparkplugPayload.Metric metric = new SparkplugPayload.Metric();
+        while (reader.hasRemaining()) {
+            long tag = reader.readVarint();
+            int field = (int) (tag >>> 3);
+            int wireType = (int) (tag & 0x7);
+            switch (field) {
+                case 1 -> metric.setName(reader.readString());
+                case 2 -> metric.setAlias(reader.readVarint());
+                case 3 -> metric.setTimestamp(reader.readVarint());
+                case 4 -> metric.setDataType(SparkplugDataType.fromCode((int) reader.readVarint()));
+                case 7 -> metric.setNull(reader.readVarint() != 0);
+                case 10, 11 -> metric.setValue(reader.readVarint());
+                case 12 -> metric.setValue(Float.intBitsToFloat(reader.readFixed32()));
+                case 13 -> metric.setValue(Double.longBitsToDouble(reader.readFixed64()));
+                case 14 -> metric.setValue(reader.readVarint() != 0);
+                case 15 -> metric.setValue(reader.readString());
+                case 16 -> metric.setValue(reader.readBytes());
+                default -> reader.skip(wireType);
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Convert a metric's raw wire value into a Java value according to its data type.
+     * Signed integer types are carried as two's complement in unsigned protobuf fields.
+     * @param metric The decoded metric
+     * @param dataType The effective data type (from the metric or its birth definition)
+     * @return The typed value, or null for null metrics and unsupported complex types
+     */
+    public static Object typedValue(SparkplugPayload.Metric metric, SparkplugDataType dataType) {
+        Object raw = metric.getValue();
+        if (metric.isNull() || raw == null) {
+            return null;
+        }
+        if (dataType == null || !(raw instanceof Long)) {
+            return raw;
+        }
+        long bits = (Long) raw;
+        return switch (dataType) {
+            case INT8 -> (int) (byte) bits;
+            case INT16 -> (int) (short) bits;
+            case INT32 -> (int) bits;
+            case UINT8 -> (int) (bits & 0xFF);
+            case UINT16 -> (int) (bits & 0xFFFF);
+            case UINT32 -> bits & 0xFFFFFFFFL;
+            case UINT64 -> bits >= 0 ? bits : new BigInteger(Long.toUnsignedString(bits));
+            case INT64, DATETIME -> bits;
+            case BOOLEAN -> bits != 0;
+            case DATASET, TEMPLATE, UNKNOWN -> null;
+            default -> bits;
+        };
+    }
+
+    /**
+     * Encode an NCMD payload asking an edge node to republish its birth certificates
+     * @param timestamp Command timestamp in epoch milliseconds
+     * @return The protobuf-encoded payload
+     */
+    public static byte[] encodeRebirthRequest(long timestamp) {
+        ByteArrayOutputStream metric = new ByteArrayOutputStream();
+        byte[] name = REBIRTH_METRIC.getBytes(StandardCharsets.UTF_8);
+        writeVarint(metric, (1 << 3) | WIRE_LENGTH_DELIMITED);
+        writeVarint(metric, name.length);
+        metric.writeBytes(name);
+        writeVarint(metric, (3 << 3) | WIRE_VARINT);
+        writeVarint(metric, timestamp);
+        writeVarint(metric, (4 << 3) | WIRE_VARINT);
+        writeVarint(metric, SparkplugDataType.BOOLEAN.getCode());
+        writeVarint(metric, (14 << 3) | WIRE_VARINT);
+        writeVarint(metric, 1);
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        writeVarint(payload, (1 << 3) | WIRE_VARINT);
+        writeVarint(payload, timestamp);
+        writeVarint(payload, (2 << 3) | WIRE_LENGTH_DELIMITED);
+        writeVarint(payload, metric.size());
+        payload.writeBytes(metric.toByteArray());
+        return payload.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Cursor over a slice of the payload buffer
+     */
+    private static final class Reader {
+        private final byte[] buffer;
+        private final int limit;
+        private int pos;
+
+        Reader(byte[] buffer, int offset, int length) {
+            if (offset < 0 || length < 0 || offset + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated Sparkplug payload");
+            }
+            this.buffer = buffer;
+            this.pos = offset;
+            this.limit = offset + length;
+        }
+
+        boolean hasRemaining() {
+            return pos < limit;
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                ensure(1);
+                byte b = buffer[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in Sparkplug payload");
+        }
+
+        int readLength() {
+            long length = readVarint();
+            if (length < 0 || length > limit - pos) {
+                throw new IllegalArgumentException("Truncated Sparkplug payload");
+            }
+            return (int) length;
+        }
+
+        int readFixed32() {
+            ensure(4);
+            int value = (buffer[pos] & 0xFF)
+                | (buffer[pos + 1] & 0xFF) << 8
+                | (buffer[pos + 2] & 0xFF) << 16
+                | (buffer[pos + 3] & 0xFF) << 24;
+            pos += 4;
+            return value;
+        }
+
+        long readFixed64() {
+            long low = readFixed32() & 0xFFFFFFFFL;
+            long high = readFixed32() & 0xFFFFFFFFL;
+            return low | high << 32;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        byte[] readBytes() {
+            int length = readLength();
+            byte[] value = new byte[length];
+            System.arraycopy(buffer, pos, value, 0, length);
+            pos += length;
+            return value;
+        }
+
+        void skip(int wireType) {
+            switch (wireType) {
+                case WIRE_VARINT -> readVarint();
+                case WIRE_FIXED64 -> { ensure(8); pos += 8; }
+                case WIRE_LENGTH_DELIMITED -> pos += readLength();
+                case WIRE_FIXED32 -> { ensure(4); pos += 4; }
+                default -> throw new IllegalArgumentException("Unsupported wire type " + wireType + " in Sparkplug payload");
+            }
+        }
+
+        private void ensure(int bytes) {
+            if (limit - pos < bytes) {
+                throw new IllegalArgumentException("Truncated Sparkplug payload");
+            }
+        }
+    }
+}
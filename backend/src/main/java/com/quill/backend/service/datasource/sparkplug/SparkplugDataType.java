@@ -0,0 +1,58 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+/**
+ * Sparkplug B metric data types as defined by the Tahu protobuf schema.
+ * The ordinal codes are the values carried in the {@code datatype} field of a metric.
+ */
+public enum SparkplugDataType {
+    UNKNOWN(0),
+    INT8(1),
+    INT16(2),
+    INT32(3),
+    INT64(4),
+    UINT8(5),
+    UINT16(6),
+    UINT32(7),
+    UINT64(8),
+    FLOAT(9),
+    DOUBLE(10),
+    BOOLEAN(11),
+    STRING(12),
+    DATETIME(13),
+    TEXT(14),
+    UUID(15),
+    DATASET(16),
+    BYTES(17),
+    FILE(18),
+    TEMPLATE(19);
+
+    private static final SparkplugDataType[] BY_CODE = new SparkplugDataType[20];
+
+    static {
+        for (SparkplugDataType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    SparkplugDataType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Resolve a data type from its wire code
+     * @param code The datatype value from the payload
+     * @return The matching type, or UNKNOWN for unsupported codes (e.g. array types)
+     */
+    public static SparkplugDataType fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            return UNKNOWN;
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,64 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoded Sparkplug B payload. Only the fields Quill consumes are kept;
+ * metadata, properties, datasets and templates are skipped by the decoder.
+ */
+public class SparkplugPayload {
+    private long timestamp;
+    private long seq = -1;
+    private final List<Metric> metrics = new ArrayList<>();
+
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+    /**
+     * @return The sequence number (0-255), or -1 if the payload carried none (e.g. NDEATH)
+     */
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public List<Metric> getMetrics() { return metrics; }
+
+    public static class Metric {
+        private String name;
+        private long alias = -1;
+        private long timestamp;
+        private SparkplugDataType dataType;
+        private boolean isNull;
+        private Object value;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        /**
+         * @return The metric alias, or -1 if the metric carried none
+         */
+        public long getAlias() { return alias; }
+        public void setAlias(long alias) { this.alias = alias; }
+
+        public boolean hasAlias() { return alias >= 0; }
+
+        public long getTimestamp() { return timestamp; }
+        public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+        /**
+         * @return The declared data type, or null when omitted (DATA messages may rely on the birth definition)
+         */
+        public SparkplugDataType getDataType() { return dataType; }
+        public void setDataType(SparkplugDataType dataType) { this.dataType = dataType; }
+
+        public boolean isNull() { return isNull; }
+        public void setNull(boolean isNull) { this.isNull = isNull; }
+
+        /**
+         * Raw wire value: Long for varint/int fields, Float, Double, Boolean, String or byte[].
+         * Use {@link SparkplugCodec#typedValue(Metric, SparkplugDataType)} to apply the data type.
+         */
+        public Object getValue() { return value; }
+        public void setValue(Object value) { this.value = value; }
+    }
+}
@@ -0,0 +1,223 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Host-side Sparkplug B state for one MQTT connection. Tracks, per edge node, the alias table
+ * built from NBIRTH/DBIRTH certificates and the expected sequence number, and turns incoming
+ * NBIRTH/DBIRTH/NDATA/DDATA payloads into typed per-metric updates.
+ */
+public class SparkplugSession {
+    private static final Logger logger = LoggerFactory.getLogger(SparkplugSession.class);
+
+    /** Minimum time between two rebirth requests to the same edge node */
+    private static final long REBIRTH_BACKOFF_MS = 5000;
+
+    /**
+     * A typed metric value ready to be emitted into the pipeline
+     */
+    public static final class Update {
+        private final String key;
+        private final Map<String, Object> content;
+        private final long timestamp;
+
+        Update(String key, Map<String, Object> content, long timestamp) {
+            this.key = key;
+            this.content = content;
+            this.timestamp = timestamp;
+        }
+
+        /** Stable identity of the metric: group/node[/device]/name */
+        public String getKey() { return key; }
+        public Map<String, Object> getContent() { return content; }
+        /** Metric timestamp in epoch milliseconds */
+        public long getTimestamp() { return timestamp; }
+    }
+
+    /**
+     * Outcome of processing one message
+     */
+    public static final class Result {
+        private final List<Update> updates;
+        private final boolean rebirthRequired;
+
+        Result(List<Update> updates, boolean rebirthRequired) {
+            this.updates = updates;
+            this.rebirthRequired = rebirthRequired;
+        }
+
+        public List<Update> getUpdates() { return updates; }
+        public boolean isRebirthRequired() { return rebirthRequired; }
+    }
+
+    private static final class NodeState {
+        final SparkplugAliasTable aliases = new SparkplugAliasTable();
+        final Map<String, SparkplugDataType> typesByName = new HashMap<>();
+        long lastSeq = -1;
+        boolean born;
+        long lastRebirthRequest;
+    }
+
+    // Mutated on the MQTT callback thread, read by diagnostics
+    private final Map<String, NodeState> nodes = new ConcurrentHashMap<>();
+    private final AtomicLong sequenceGaps = new AtomicLong();
+    private final AtomicLong unknownAliases = new AtomicLong();
+    private final AtomicLong messagesProcessed = new AtomicLong();
+
+    /**
+     * Process one Sparkplug B message. Must be called from a single thread per session.
+     * @param topic The parsed topic
+     * @param payload The raw protobuf payload
+     * @return The metric updates and whether the edge node should be asked to rebirth
+     */
+    public Result process(SparkplugTopic topic, byte[] payload) {
+        if (topic.getMessageType() == SparkplugTopic.MessageType.STATE
+            || topic.getMessageType() == SparkplugTopic.MessageType.NCMD
+            || topic.getMessageType() == SparkplugTopic.MessageType.DCMD) {
+            return new Result(Collections.emptyList(), false);
+        }
+
+        NodeState node = nodes.computeIfAbsent(topic.getNodeKey(), k -> new NodeState());
+        SparkplugPayload decoded = SparkplugCodec.decode(payload);
+        messagesProcessed.incrementAndGet();
+
+        switch (topic.getMessageType()) {
+            case NBIRTH -> {
+                node.aliases.clear();
+                node.typesByName.clear();
+                node.born = true;
+                node.lastSeq = decoded.getSeq();
+                registerDefinitions(node, decoded, null);
+                return new Result(toUpdates(topic, node, decoded), false);
+            }
+            case NDEATH -> {
+                node.born = false;
+                node.lastSeq = -1;
+                return new Result(Collections.emptyList(), false);
+            }
+            case DBIRTH -> {
+                boolean gap = checkSequence(topic, node, decoded);
+                node.aliases.removeDevice(topic.getDeviceId());
+                registerDefinitions(node, decoded, topic.getDeviceId());
+                return new Result(toUpdates(topic, node, decoded), shouldRequestRebirth(node, gap));
+            }
+            case DDEATH -> {
+                boolean gap = checkSequence(topic, node, decoded);
+                return new Result(Collections.emptyList(), shouldRequestRebirth(node, gap));
+            }
+            default -> {
+                boolean gap = checkSequence(topic, node, decoded);
+                List<Update> updates = toUpdates(topic, node, decoded);
+                boolean unresolved = updates.size() < decoded.getMetrics().size();
+                return new Result(updates, shouldRequestRebirth(node, gap || unresolved || !node.born));
+            }
+        }
+    }
+
+    private void registerDefinitions(NodeState node, SparkplugPayload payload, String deviceId) {
+        for (SparkplugPayload.Metric metric : payload.getMetrics()) {
+            if (metric.getName() == null) {
+                continue;
+            }
+            SparkplugDataType type = metric.getDataType() != null ? metric.getDataType() : SparkplugDataType.UNKNOWN;
+            String qualifiedName = deviceId == null ? metric.getName() : deviceId + "/" + metric.getName();
+            node.typesByName.put(qualifiedName, type);
+            if (metric.hasAlias()) {
+                node.aliases.put(metric.getAlias(), new SparkplugAliasTable.Definition(metric.getName(), type, deviceId));
+            }
+        }
+    }
+
+    private boolean checkSequence(SparkplugTopic topic, NodeState node, SparkplugPayload payload) {
+        long seq = payload.getSeq();
+        if (seq < 0 || node.lastSeq < 0) {
+            node.lastSeq = seq;
+            return false;
+        }
+        long expected = (node.lastSeq + 1) & 0xFF;
+        node.lastSeq = seq;
+        if (seq != expected) {
+            sequenceGaps.incrementAndGet();
+            logger.warn("Sparkplug sequence gap for node {}: expected {}, received {}",
+                topic.getNodeKey(), expected, seq);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean shouldRequestRebirth(NodeState node, boolean needed) {
+        if (!needed) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - node.lastRebirthRequest < REBIRTH_BACKOFF_MS) {
+            return false;
+        }
+        node.lastRebirthRequest = now;
+        return true;
+    }
+
+    private List<Update> toUpdates(SparkplugTopic topic, NodeState node, SparkplugPayload payload) {
+        List<Update> updates = new ArrayList<>(payload.getMetrics().size());
+        String prefix = topic.getDeviceId() == null
+            ? topic.getNodeKey()
+            : topic.getNodeKey() + "/" + topic.getDeviceId();
+
+        for (SparkplugPayload.Metric metric : payload.getMetrics()) {
+            String name = metric.getName();
+            SparkplugDataType type = metric.getDataType();
+
+            if (name == null) {
+                SparkplugAliasTable.Definition definition = metric.hasAlias() ? node.aliases.get(metric.getAlias()) : null;
+                if (definition == null) {
+                    unknownAliases.incrementAndGet();
+                    continue;
+                }
+                name = definition.getName();
+                if (type == null) {
+                    type = definition.getDataType();
+                }
+            } else if (type == null) {
+                String qualifiedName = topic.getDeviceId() == null ? name : topic.getDeviceId() + "/" + name;
+                type = node.typesByName.get(qualifiedName);
+            }
+
+            long timestamp = metric.getTimestamp() > 0 ? metric.getTimestamp() : payload.getTimestamp();
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("groupId", topic.getGroupId());
+            content.put("edgeNodeId", topic.getEdgeNodeId());
+            if (topic.getDeviceId() != null) {
+                content.put("deviceId", topic.getDeviceId());
+            }
+            content.put("messageType", topic.getMessageType().name());
+            content.put("metric", name);
+            if (metric.hasAlias()) {
+                content.put("alias", metric.getAlias());
+            }
+            content.put("datatype", type != null ? type.name() : SparkplugDataType.UNKNOWN.name());
+            content.put("value", SparkplugCodec.typedValue(metric, type));
+            content.put("timestamp", timestamp);
+            content.put("seq", payload.getSeq());
+            updates.add(new Update(prefix + "/" + name, content, timestamp));
+        }
+        return updates;
+    }
+
+    public long getSequenceGaps() { return sequenceGaps.get(); }
+    public long getUnknownAliases() { return unknownAliases.get(); }
+    public long getMessagesProcessed() { return messagesProcessed.get(); }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+}
@@ -0,0 +1,80 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+/**
+ * Parsed Sparkplug B topic of the form
+ * {@code spBv1.0/<group_id>/<message_type>/<edge_node_id>[/<device_id>]}.
+ */
+public class SparkplugTopic {
+    public static final String NAMESPACE = "spBv1.0";
+
+    public enum MessageType {
+        NBIRTH, NDEATH, DBIRTH, DDEATH, NDATA, DDATA, NCMD, DCMD, STATE
+    }
+
+    private final String groupId;
+    private final MessageType messageType;
+    private final String edgeNodeId;
+    private final String deviceId;
+
+    private SparkplugTopic(String groupId, MessageType messageType, String edgeNodeId, String deviceId) {
+        this.groupId = groupId;
+        this.messageType = messageType;
+        this.edgeNodeId = edgeNodeId;
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Check whether a topic belongs to the Sparkplug B namespace
+     * @param topic The MQTT topic
+     * @return true if the topic starts with the spBv1.0 namespace
+     */
+    public static boolean isSparkplugTopic(String topic) {
+        return topic != null && topic.startsWith(NAMESPACE + "/");
+    }
+
+    /**
+     * Parse a Sparkplug B topic
+     * @param topic The MQTT topic
+     * @return The parsed topic
+     * @throws IllegalArgumentException if the topic is not a valid Sparkplug B topic
+     */
+    public static SparkplugTopic parse(String topic) {
+        if (!isSparkplugTopic(topic)) {
+            throw new IllegalArgumentException("Not a Sparkplug B topic: " + topic);
+        }
+        String[] parts = topic.split("/");
+        if (parts.length >= 3 && "STATE".equals(parts[1])) {
+            return new SparkplugTopic(null, MessageType.STATE, parts[2], null);
+        }
+        if (parts.length < 4 || parts.length > 5) {
+            throw new IllegalArgumentException("Malformed Sparkplug B topic: " + topic);
+        }
+
+        MessageType type;
+        try {
+            type = MessageType.valueOf(parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown Sparkplug B message type in topic: " + topic);
+        }
+        return new SparkplugTopic(parts[1], type, parts[3], parts.length == 5 ? parts[4] : null);
+    }
+
+    public String getGroupId() { return groupId; }
+    public MessageType getMessageType() { return messageType; }
+    public String getEdgeNodeId() { return edgeNodeId; }
+    public String getDeviceId() { return deviceId; }
+
+    /**
+     * Key identifying the edge node; aliases and sequence numbers are scoped to it
+     */
+    public String getNodeKey() {
+        return groupId + "/" + edgeNodeId;
+    }
+
+    /**
+     * Topic used to send a node command (e.g. a rebirth request) to this edge node
+     */
+    public String getNodeCommandTopic() {
+        return NAMESPACE + "/" + groupId + "/NCMD/" + edgeNodeId;
+    }
+}
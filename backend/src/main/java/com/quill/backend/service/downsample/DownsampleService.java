@@ -0,0 +1,247 @@
+package com.quill.backend.service.downsample;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quill.backend.service.staging.ColumnType;
+import com.quill.backend.service.staging.StagedColumn;
+import com.quill.backend.service.staging.StagingService;
+import com.quill.backend.service.transform.FieldAccessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reduces a time range of one numeric series to a bounded number of points for charting.
+ *
+ * Two modes: {@code lttb} (Largest-Triangle-Three-Buckets, keeps the visual shape) and
+ * {@code minmax} (minimum and maximum of each bucket, keeps spikes). Min/max is pushed down to
+ * SQL bucketing when the values live in a column; everything else is computed in one pass over a
+ * streaming cursor, so the response size depends only on {@code points}.
+ */
+@Service
+public class DownsampleService {
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StagingService stagingService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int maxPoints;
+
+    @Autowired
+    public DownsampleService(
+        JdbcTemplate jdbcTemplate,
+        StagingService stagingService,
+        @Value("${quill.downsample.max-points:5000}") int maxPoints
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stagingService = stagingService;
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Downsample a payload field of a data source. Reads the typed staging column when the field
+     * is staged, otherwise parses the stored JSON.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> downsampleField(String sourceId, String field, LocalDateTime start,
+                                               LocalDateTime end, int points, String mode) {
+        Series series = new Series(start, end, points, mode);
+        StagedColumn column = stagingService.findColumn(sourceId, field);
+        boolean staged = column != null && column.getType() != ColumnType.TEXT;
+        if (staged) {
+            String table = stagingService.getTableName(sourceId);
+            String value = column.getType() == ColumnType.BOOLEAN
+                ? column.getColumn() + "::int"
+                : column.getColumn();
+            series.scan(table, "ts", value, "", new Object[0]);
+        } else {
+            FieldAccessor accessor = FieldAccessor.compile(field);
+            series.scanJson(sourceId, accessor);
+        }
+        Map<String, Object> result = series.result();
+        result.put("sourceId", sourceId);
+        result.put("field", field);
+        result.put("staged", staged);
+        return result;
+    }
+
+    /**
+     * Downsample the readings of one Modbus register
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> downsampleRegister(Long connectionId, int register, String registerType,
+                                                  LocalDateTime start, LocalDateTime end, int points, String mode) {
+        Series series = new Series(start, end, points, mode);
+        series.scan("modbus_readings", "read_at", "value",
+            " AND connection_id = ? AND register = ? AND register_type = ?",
+            new Object[] {connectionId, register, registerType});
+        Map<String, Object> result = series.result();
+        result.put("connectionId", connectionId);
+        result.put("register", register);
+        result.put("registerType", registerType);
+        return result;
+    }
+
+    /**
+     * One downsampling request: the time range, the sink and the scan that feeds it
+     */
+    private final class Series {
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final long startMillis;
+        final long endMillis;
+        final String mode;
+        final int points;
+        final SeriesSink sink;
+        final AtomicLong rows = new AtomicLong();
+        boolean pushedDown;
+
+        Series(LocalDateTime start, LocalDateTime end, int requestedPoints, String mode) {
+            if (!end.isAfter(start)) {
+                throw new IllegalArgumentException("endTime must be after startTime");
+            }
+            this.start = start;
+            this.end = end;
+            this.startMillis = toMillis(start);
+            this.endMillis = toMillis(end);
+            this.points = Math.max(3, Math.min(requestedPoints, maxPoints));
+            this.mode = mode == null ? "lttb" : mode.toLowerCase(Locale.ROOT);
+            switch (this.mode) {
+                case "lttb":
+                    sink = new LttbSink(startMillis, endMillis, points);
+                    break;
+                case "minmax":
+                    sink = new MinMaxSink(startMillis, endMillis, points);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown mode '" + mode + "' (lttb or minmax)");
+            }
+        }
+
+        /**
+         * Feed a numeric column of a table into the sink
+         * @param filter Extra conditions starting with " AND "; its arguments follow the time range
+         */
+        void scan(String table, String timeColumn, String valueExpr, String filter, Object[] filterArgs) {
+            String sql;
+            Object[] args;
+            if (sink instanceof MinMaxSink) {
+                // Min/max per bucket in SQL: the sink then only sees two rows per bucket
+                pushedDown = true;
+                double bucketMillis = Math.max(1.0, (double) (endMillis - startMillis) / Math.max(1, points / 2));
+                sql = "SELECT (array_agg(t ORDER BY v ASC, t))[1], min(v), (array_agg(t ORDER BY v DESC, t))[1], max(v), count(*) " +
+                      "FROM (SELECT " + timeColumn + " AS t, " + valueExpr + " AS v, " +
+                      "floor(extract(epoch FROM (" + timeColumn + " - ?::timestamp)) * 1000 / ?) AS b FROM " + table +
+                      " WHERE " + timeColumn + " >= ? AND " + timeColumn + " <= ? AND " + valueExpr + " IS NOT NULL" +
+                      filter + ") s GROUP BY b ORDER BY b";
+                args = concat(new Object[] {Timestamp.valueOf(start), bucketMillis, Timestamp.valueOf(start), Timestamp.valueOf(end)}, filterArgs);
+                stream(sql, args, rs -> {
+                    long minTime = toMillis(rs.getTimestamp(1));
+                    long maxTime = toMillis(rs.getTimestamp(3));
+                    if (minTime <= maxTime) {
+                        sink.add(minTime, rs.getDouble(2));
+                        sink.add(maxTime, rs.getDouble(4));
+                    } else {
+                        sink.add(maxTime, rs.getDouble(4));
+                        sink.add(minTime, rs.getDouble(2));
+                    }
+                    rows.addAndGet(rs.getLong(5));
+                });
+                return;
+            }
+            sql = "SELECT " + timeColumn + ", " + valueExpr + " FROM " + table +
+                  " WHERE " + timeColumn + " >= ? AND " + timeColumn + " <= ? AND " + valueExpr + " IS NOT NULL" +
+                  filter + " ORDER BY " + timeColumn;
+            args = concat(new Object[] {Timestamp.valueOf(start), Timestamp.valueOf(end)}, filterArgs);
+            stream(sql, args, rs -> {
+                rows.incrementAndGet();
+                sink.add(toMillis(rs.getTimestamp(1)), rs.getDouble(2));
+            });
+        }
+
+        /**
+         * Feed a field parsed from stored JSON payloads into the sink
+         */
+        void scanJson(String sourceId, FieldAccessor field) {
+            String sql = "SELECT timestamp, content FROM data_records " +
+                         "WHERE source_id = ? AND timestamp >= ? AND timestamp <= ? ORDER BY timestamp";
+            stream(sql, new Object[] {sourceId, Timestamp.valueOf(start), Timestamp.valueOf(end)}, rs -> {
+                String content = rs.getString(2);
+                if (content == null) {
+                    return;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(content);
+                    if (node instanceof ObjectNode) {
+                        double value = field.getDouble((ObjectNode) node);
+                        if (!Double.isNaN(value)) {
+                            rows.incrementAndGet();
+                            sink.add(toMillis(rs.getTimestamp(1)), value);
+                        }
+                    }
+                } catch (Exception e) {
+                    // Skip payloads that are not JSON
+                }
+            });
+        }
+
+        Map<String, Object> result() {
+            List<double[]> reduced = sink.finish();
+            List<Object[]> series = new ArrayList<>(reduced.size());
+            for (double[] point : reduced) {
+                series.add(new Object[] {(long) point[0], point[1]});
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("mode", mode);
+            result.put("startTime", start.toString());
+            result.put("endTime", end.toString());
+            result.put("requestedPoints", points);
+            result.put("sourceRows", rows.get());
+            result.put("pushedDown", pushedDown);
+            result.put("points", series);
+            return result;
+        }
+    }
+
+    private void stream(String sql, Object[] args, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            // Only honoured inside a transaction; keeps the driver from buffering the whole range
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static Object[] concat(Object[] first, Object[] second) {
+        Object[] all = new Object[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return toMillis(timestamp.toLocalDateTime());
+    }
+}
@@ -0,0 +1,97 @@
+package com.quill.backend.service.downsample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Largest-Triangle-Three-Buckets over a stream. The time range is split into equal buckets and
+ * from each bucket the point forming the largest triangle with the previously kept point and the
+ * next bucket's average is kept. Only the current and the next bucket are buffered, so memory
+ * depends on bucket density rather than on the length of the range. The first and last points
+ * are always kept.
+ */
+final class LttbSink implements SeriesSink {
+    private final long startMillis;
+    private final double bucketMillis;
+    private final List<double[]> out = new ArrayList<>();
+
+    private PointBuffer current = new PointBuffer();
+    private PointBuffer next = new PointBuffer();
+    private boolean started;
+    private double keptTime;
+    private double keptValue;
+    private long lastTime;
+    private double lastValue;
+
+    LttbSink(long startMillis, long endMillis, int points) {
+        this.startMillis = startMillis;
+        // Two of the points are the first and last sample
+        this.bucketMillis = Math.max(1.0, (double) (endMillis - startMillis) / Math.max(1, points - 2));
+    }
+
+    @Override
+    public void add(long time, double value) {
+        lastTime = time;
+        lastValue = value;
+        if (!started) {
+            started = true;
+            keep(time, value);
+            return;
+        }
+        long bucket = (long) ((time - startMillis) / bucketMillis);
+        if (current.isEmpty() || bucket == current.bucket) {
+            if (current.isEmpty()) {
+                current.reset(bucket);
+            }
+            current.add(time, value);
+        } else if (next.isEmpty() || bucket == next.bucket) {
+            if (next.isEmpty()) {
+                next.reset(bucket);
+            }
+            next.add(time, value);
+        } else {
+            select(current, next.averageTime(), next.averageValue());
+            PointBuffer recycled = current;
+            current = next;
+            next = recycled;
+            next.reset(bucket);
+            next.add(time, value);
+        }
+    }
+
+    @Override
+    public List<double[]> finish() {
+        if (!current.isEmpty()) {
+            if (!next.isEmpty()) {
+                select(current, next.averageTime(), next.averageValue());
+                select(next, lastTime, lastValue);
+            } else {
+                select(current, lastTime, lastValue);
+            }
+        }
+        if (started && keptTime != lastTime) {
+            keep(lastTime, lastValue);
+        }
+        return out;
+    }
+
+    private void select(PointBuffer bucket, double nextTime, double nextValue) {
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < bucket.size; i++) {
+            double area = Math.abs((keptTime - nextTime) * (bucket.values[i] - keptValue)
+                - (keptTime - bucket.times[i]) * (nextValue - keptValue));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        keep(bucket.times[best], bucket.values[best]);
+    }
+
+    private void keep(long time, double value) {
+        keptTime = time;
+        keptValue = value;
+        out.add(new double[] {time, value});
+    }
+}
@@ -0,0 +1,69 @@
+package com.quill.backend.service.downsample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the minimum and the maximum of each time bucket, in the order they occurred, so spikes
+ * survive downsampling. Emits at most two points per bucket.
+ */
+final class MinMaxSink implements SeriesSink {
+    private final long startMillis;
+    private final double bucketMillis;
+    private final List<double[]> out = new ArrayList<>();
+
+    private boolean open;
+    private long bucket;
+    private long minTime;
+    private double min;
+    private long maxTime;
+    private double max;
+
+    MinMaxSink(long startMillis, long endMillis, int points) {
+        this.startMillis = startMillis;
+        this.bucketMillis = Math.max(1.0, (double) (endMillis - startMillis) / Math.max(1, points / 2));
+    }
+
+    @Override
+    public void add(long time, double value) {
+        long b = (long) ((time - startMillis) / bucketMillis);
+        if (!open || b != bucket) {
+            flush();
+            open = true;
+            bucket = b;
+            minTime = maxTime = time;
+            min = max = value;
+            return;
+        }
+        if (value < min) {
+            min = value;
+            minTime = time;
+        }
+        if (value > max) {
+            max = value;
+            maxTime = time;
+        }
+    }
+
+    @Override
+    public List<double[]> finish() {
+        flush();
+        return out;
+    }
+
+    private void flush() {
+        if (!open) {
+            return;
+        }
+        if (minTime == maxTime) {
+            out.add(new double[] {minTime, min});
+        } else if (minTime < maxTime) {
+            out.add(new double[] {minTime, min});
+            out.add(new double[] {maxTime, max});
+        } else {
+            out.add(new double[] {maxTime, max});
+            out.add(new double[] {minTime, min});
+        }
+        open = false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.quill.backend.service.downsample;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive buffer of (timestamp, value) points
+ */
+final class PointBuffer {
+    long[] times = new long[64];
+    double[] values = new double[64];
+    int size;
+    long bucket = -1;
+    private double sumTime;
+    private double sumValue;
+
+    void add(long time, double value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+        sumTime += time;
+        sumValue += value;
+    }
+
+    double averageTime() {
+        return sumTime / size;
+    }
+
+    double averageValue() {
+        return sumValue / size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void reset(long bucket) {
+        this.bucket = bucket;
+        size = 0;
+        sumTime = 0;
+        sumValue = 0;
+    }
+}
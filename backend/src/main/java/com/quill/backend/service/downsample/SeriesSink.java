@@ -0,0 +1,15 @@
+package com.quill.backend.service.downsample;
+
+import java.util.List;
+
+/**
+ * Consumes a time-ordered series one point at a time and keeps a bounded summary of it
+ */
+interface SeriesSink {
+    void add(long timestampMillis, double value);
+
+    /**
+     * @return Points as {@code [timestampMillis, value]} pairs in time order
+     */
+    List<double[]> finish();
+}
@@ -0,0 +1,167 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.dto.DataRecordView;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An Arrow IPC stream with typed columns, written as record batches of {@code batchRows} rows.
+ * The vectors are reused from batch to batch, so memory is bounded by one batch.
+ */
+class ArrowRecordWriter implements RecordWriter {
+    private final OutputStream out;
+    private final PayloadColumns payload;
+    private final int batchRows;
+
+    private BufferAllocator allocator;
+    private VectorSchemaRoot root;
+    private ArrowStreamWriter writer;
+    private BigIntVector id;
+    private VarCharVector sourceId;
+    private VarCharVector dataType;
+    private TimeStampMicroVector timestamp;
+    private VarCharVector status;
+    private FieldVector[] fields;
+    private int rows;
+
+    ArrowRecordWriter(OutputStream out, PayloadColumns payload, int batchRows) {
+        this.out = out;
+        this.payload = payload;
+        this.batchRows = Math.max(1, batchRows);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        List<Field> schema = new ArrayList<>();
+        schema.add(new Field("id", FieldType.notNullable(new ArrowType.Int(64, true)), null));
+        schema.add(new Field("sourceId", FieldType.nullable(ArrowType.Utf8.INSTANCE), null));
+        schema.add(new Field("dataType", FieldType.nullable(ArrowType.Utf8.INSTANCE), null));
+        schema.add(new Field("timestamp", FieldType.nullable(new ArrowType.Timestamp(TimeUnit.MICROSECOND, null)), null));
+        schema.add(new Field("status", FieldType.nullable(ArrowType.Utf8.INSTANCE), null));
+        for (int i = 0; i < payload.size(); i++) {
+            ArrowType type;
+            switch (payload.type(i)) {
+                case BOOLEAN:
+                    type = ArrowType.Bool.INSTANCE;
+                    break;
+                case DOUBLE:
+                    type = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+                    break;
+                default:
+                    type = ArrowType.Utf8.INSTANCE;
+            }
+            schema.add(new Field(payload.name(i), FieldType.nullable(type), null));
+        }
+
+        allocator = new RootAllocator();
+        root = VectorSchemaRoot.create(new Schema(schema), allocator);
+        id = (BigIntVector) root.getVector(0);
+        sourceId = (VarCharVector) root.getVector(1);
+        dataType = (VarCharVector) root.getVector(2);
+        timestamp = (TimeStampMicroVector) root.getVector(3);
+        status = (VarCharVector) root.getVector(4);
+        fields = new FieldVector[payload.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = root.getVector(5 + i);
+        }
+        root.allocateNew();
+
+        // Not closed: that would close the response stream
+        writer = new ArrowStreamWriter(root, null, Channels.newChannel(out));
+        writer.start();
+    }
+
+    @Override
+    public void write(DataRecordView record) throws IOException {
+        int row = rows;
+        id.setSafe(row, record.getId());
+        text(sourceId, row, record.getSourceId());
+        text(dataType, row, record.getDataType());
+        if (record.getTimestamp() != null) {
+            timestamp.setSafe(row, ExportFormat.epochMicros(record.getTimestamp()));
+        } else {
+            timestamp.setNull(row);
+        }
+        text(status, row, record.getStatus() != null ? record.getStatus().name() : null);
+
+        Object[] values = payload.values(record.getContent());
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            FieldVector vector = fields[i];
+            if (value == null) {
+                vector.setNull(row);
+            } else if (vector instanceof Float8Vector) {
+                ((Float8Vector) vector).setSafe(row, (Double) value);
+            } else if (vector instanceof BitVector) {
+                ((BitVector) vector).setSafe(row, (Boolean) value ? 1 : 0);
+            } else {
+                ((VarCharVector) vector).setSafe(row, ((String) value).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        if (++rows == batchRows) {
+            flushBatch();
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        try {
+            if (rows > 0) {
+                flushBatch();
+            }
+            writer.end();
+            out.flush();
+        } finally {
+            abort();
+        }
+    }
+
+    @Override
+    public void abort() {
+        // Vector buffers are off-heap and are not reclaimed by the garbage collector
+        if (root != null) {
+            root.close();
+            allocator.close();
+            root = null;
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        root.setRowCount(rows);
+        writer.writeBatch();
+        rows = 0;
+        for (FieldVector vector : root.getFieldVectors()) {
+            vector.reset();
+        }
+    }
+
+    private static void text(VarCharVector vector, int row, String value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
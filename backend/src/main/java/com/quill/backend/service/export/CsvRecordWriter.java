@@ -0,0 +1,98 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.dto.DataRecordView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV with the columns of the original export. Content is always quoted; other fields only when
+ * they contain a separator, quote or line break.
+ */
+class CsvRecordWriter implements RecordWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+
+    CsvRecordWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        writer.write("id,sourceId,dataType,timestamp,content\n");
+    }
+
+    @Override
+    public void resume(long written) {
+        // The header is already there
+    }
+
+    @Override
+    public void write(DataRecordView record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        field(record.getSourceId());
+        writer.write(',');
+        field(record.getDataType());
+        writer.write(',');
+        if (record.getTimestamp() != null) {
+            writer.write(record.getTimestamp().toString());
+        }
+        writer.write(',');
+        quoted(record.getContent());
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void end() throws IOException {
+        writer.flush();
+    }
+
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (needsQuotes(value)) {
+            quoted(value);
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private void quoted(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i - start + 1);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package com.quill.backend.service.export;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+public enum ExportFormat {
+    JSON("application/json", "json", false),
+    CSV("text/csv", "csv", false),
+    PARQUET("application/vnd.apache.parquet", "parquet", true),
+    ARROW("application/vnd.apache.arrow.stream", "arrows", true);
+
+    /** Same format as the read APIs */
+    static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String contentType;
+    private final String extension;
+    private final boolean columnar;
+
+    ExportFormat(String contentType, String extension, boolean columnar) {
+        this.contentType = contentType;
+        this.extension = extension;
+        this.columnar = columnar;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Whether records are written as typed columns, with payload fields flattened
+     */
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    public static ExportFormat of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown export format '" + name + "'");
+        }
+    }
+
+    /**
+     * Microseconds since the epoch of a local timestamp, for the columnar formats
+     */
+    static long epochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+}
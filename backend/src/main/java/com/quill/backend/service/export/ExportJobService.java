@@ -0,0 +1,530 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.dto.DataRecordView;
+import com.quill.backend.model.ExportJob;
+import com.quill.backend.model.Storage;
+import com.quill.backend.repository.ExportJobRepository;
+import com.quill.backend.service.DataCursor;
+import com.quill.backend.service.StorageService;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs exports in the background, writing to a FILESYSTEM storage or an S3 multipart upload.
+ *
+ * The {@code export_jobs} table is the queue: each of {@code quill.export.jobs.workers} workers
+ * claims the oldest queued job with a conditional update, so every node of a cluster can take
+ * jobs and each job runs once. Workers checkpoint about every {@code checkpoint-bytes} of
+ * output: the output is made durable, then the cursor of the last record written is saved with
+ * it. A job whose node stops (no heartbeat for {@code stale-ms}) is claimed again and, for CSV
+ * and JSON, resumes from its last checkpoint. Parquet and Arrow files cannot be appended to, so
+ * those jobs start over.
+ */
+@Service
+public class ExportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+    private static final DateTimeFormatter KEY_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ExportJobRepository jobRepository;
+    private final StorageService storageService;
+    private final ExportService exportService;
+    private final S3Client defaultS3Client;
+    private final String nodeId;
+    private final boolean enabled;
+    private final int workerCount;
+    private final long pollMillis;
+    private final long heartbeatMillis;
+    private final double staleSeconds;
+    private final int checkpointBytes;
+    private final Duration urlExpiry;
+
+    private final Map<String, S3Client> s3Clients = new ConcurrentHashMap<>();
+    private final Map<String, S3Presigner> presigners = new ConcurrentHashMap<>();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final Set<Long> cancelled = ConcurrentHashMap.newKeySet();
+    private final Object wakeUp = new Object();
+
+    private ExecutorService workers;
+    private ScheduledExecutorService heartbeat;
+    private volatile boolean stopping;
+
+    @Autowired
+    public ExportJobService(
+        ExportJobRepository jobRepository,
+        StorageService storageService,
+        ExportService exportService,
+        S3Client defaultS3Client,
+        ConnectionLeaseManager leaseManager,
+        @Value("${quill.export.jobs.enabled:true}") boolean enabled,
+        @Value("${quill.export.jobs.workers:2}") int workerCount,
+        @Value("${quill.export.jobs.poll-ms:5000}") long pollMillis,
+        @Value("${quill.export.jobs.heartbeat-ms:10000}") long heartbeatMillis,
+        @Value("${quill.export.jobs.stale-ms:60000}") long staleMillis,
+        @Value("${quill.export.jobs.checkpoint-bytes:16777216}") int checkpointBytes,
+        @Value("${quill.export.jobs.url-expiry-seconds:3600}") long urlExpirySeconds
+    ) {
+        this.jobRepository = jobRepository;
+        this.storageService = storageService;
+        this.exportService = exportService;
+        this.defaultS3Client = defaultS3Client;
+        this.nodeId = leaseManager.getNodeId();
+        this.enabled = enabled;
+        this.workerCount = Math.max(1, workerCount);
+        this.pollMillis = Math.max(100, pollMillis);
+        this.heartbeatMillis = Math.max(100, heartbeatMillis);
+        // A live worker must get at least a few heartbeats in before its job counts as abandoned
+        this.staleSeconds = Math.max(staleMillis, 3 * this.heartbeatMillis) / 1000.0;
+        this.checkpointBytes = Math.max(S3ExportTarget.MIN_PART_SIZE, checkpointBytes);
+        this.urlExpiry = Duration.ofSeconds(urlExpirySeconds);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            // Jobs can still be queued here and are run by nodes that have workers
+            logger.info("Export job workers are disabled on this node");
+            return;
+        }
+        int requeued = jobRepository.requeueOwned(nodeId);
+        if (requeued > 0) {
+            logger.info("Requeued {} export jobs interrupted on this node", requeued);
+        }
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "export-job-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "export-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        if (workers != null) {
+            // Running jobs stay RUNNING and are requeued when this node starts again
+            workers.shutdownNow();
+        }
+        presigners.values().forEach(S3Presigner::close);
+        s3Clients.values().forEach(S3Client::close);
+    }
+
+    /**
+     * Queue an export
+     * @param job Query, format, storage and optionally objectKey of the export
+     */
+    public ExportJob submit(ExportJob job) {
+        ExportFormat format = ExportFormat.of(job.getFormat());
+        if (job.getStorageId() == null) {
+            throw new IllegalArgumentException("storageId is required");
+        }
+        Storage storage = storageService.findById(job.getStorageId())
+            .orElseThrow(() -> new IllegalArgumentException("Storage " + job.getStorageId() + " not found"));
+        ExportTarget target = targetFor(storage);
+        if (job.getRowLimit() != null && job.getRowLimit() < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (job.getObjectKey() == null || job.getObjectKey().isBlank()) {
+            job.setObjectKey("exports/data_export-" + KEY_TIME.format(now) + "-"
+                + UUID.randomUUID().toString().substring(0, 8) + "." + format.getExtension());
+        }
+        if (target instanceof FileExportTarget) {
+            ((FileExportTarget) target).resolve(job);
+        }
+        job.setId(null);
+        job.setFormat(format.name());
+        job.setStatus(ExportJob.JobStatus.QUEUED);
+        job.setCheckpointCursor(job.getStartCursor());
+        job.setRecordsWritten(0);
+        job.setBytesWritten(0);
+        job.setTargetState(null);
+        job.setError(null);
+        job.setOwnerNode(null);
+        job.setCreatedAt(now);
+        ExportJob saved = jobRepository.save(job);
+        synchronized (wakeUp) {
+            wakeUp.notifyAll();
+        }
+        return describe(saved);
+    }
+
+    public Optional<ExportJob> getJob(Long id) {
+        return jobRepository.findById(id).map(this::describe);
+    }
+
+    /**
+     * @return The newest 100 jobs
+     */
+    public List<ExportJob> listJobs() {
+        List<ExportJob> jobs = jobRepository.findTop100ByOrderByIdDesc();
+        jobs.forEach(this::describe);
+        return jobs;
+    }
+
+    /**
+     * Cancel a queued or running job. A running job stops at its next checkpoint and its output
+     * is discarded.
+     * @return false if the job does not exist or has already finished
+     */
+    public boolean cancel(Long id) {
+        if (jobRepository.cancel(id) == 0) {
+            return false;
+        }
+        if (running.contains(id)) {
+            cancelled.add(id);
+        }
+        return true;
+    }
+
+    /**
+     * @return The finished output of a job on a FILESYSTEM storage, or null
+     */
+    public Path getLocalFile(ExportJob job) {
+        if (job.getStatus() != ExportJob.JobStatus.COMPLETED) {
+            return null;
+        }
+        ExportTarget target = storageService.findById(job.getStorageId()).map(this::targetFor).orElse(null);
+        return target instanceof FileExportTarget ? ((FileExportTarget) target).resolve(job) : null;
+    }
+
+    private ExportJob describe(ExportJob job) {
+        job.setProgress(progressOf(job));
+        if (job.getStatus() == ExportJob.JobStatus.COMPLETED) {
+            try {
+                storageService.findById(job.getStorageId())
+                    .ifPresent(storage -> job.setDownloadUrl(targetFor(storage).downloadUrl(job)));
+            } catch (RuntimeException e) {
+                logger.warn("No download URL for export job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Fraction of the export done: of the limit if there is one, otherwise of the time range
+     * covered so far (records are exported newest first)
+     */
+    private static Double progressOf(ExportJob job) {
+        if (job.getStatus() == ExportJob.JobStatus.COMPLETED) {
+            return 1.0;
+        }
+        if (job.getRowLimit() != null) {
+            return job.getRowLimit() == 0 ? 1.0 : Math.min(1.0, (double) job.getRecordsWritten() / job.getRowLimit());
+        }
+        if (job.getStartTime() == null || job.getEndTime() == null || job.getRecordsWritten() == 0
+            || job.getCheckpointCursor() == null) {
+            return null;
+        }
+        long range = Duration.between(job.getStartTime(), job.getEndTime()).toMillis();
+        if (range <= 0) {
+            return null;
+        }
+        LocalDateTime reached = DataCursor.decode(job.getCheckpointCursor()).getTimestamp();
+        long covered = Duration.between(reached, job.getEndTime()).toMillis();
+        return Math.max(0.0, Math.min(1.0, (double) covered / range));
+    }
+
+    private ExportTarget targetFor(Storage storage) {
+        String type = storage.getStorageType() == null ? "" : storage.getStorageType().toUpperCase(Locale.ROOT);
+        switch (type) {
+            case "FILESYSTEM":
+            case "LOCAL_FILE_SYSTEM": {
+                String basePath = storage.getConfigurationValue("basePath");
+                if (basePath == null) {
+                    basePath = storage.getConfigurationValue("path");
+                }
+                if (basePath == null || basePath.isBlank()) {
+                    throw new IllegalArgumentException("Storage " + storage.getName() + " has no basePath");
+                }
+                return new FileExportTarget(Paths.get(basePath));
+            }
+            case "S3":
+            case "AWS_S3": {
+                String bucket = storage.getConfigurationValue("bucket");
+                if (bucket == null) {
+                    bucket = storage.getConfigurationValue("bucketName");
+                }
+                if (bucket == null || bucket.isBlank()) {
+                    throw new IllegalArgumentException("Storage " + storage.getName() + " has no bucket");
+                }
+                String region = storage.getConfigurationValue("region");
+                return new S3ExportTarget(s3Client(region), presigner(region), bucket, checkpointBytes, urlExpiry);
+            }
+            default:
+                throw new IllegalArgumentException("Exports to " + storage.getStorageType() + " storage are not supported");
+        }
+    }
+
+    private S3Client s3Client(String region) {
+        if (region == null || region.isBlank()) {
+            return defaultS3Client;
+        }
+        return s3Clients.computeIfAbsent(region, r -> S3Client.builder().region(Region.of(r)).build());
+    }
+
+    private S3Presigner presigner(String region) {
+        // Same default region as AwsConfig
+        String key = region == null || region.isBlank() ? Region.US_EAST_1.id() : region;
+        return presigners.computeIfAbsent(key, r -> S3Presigner.builder().region(Region.of(r)).build());
+    }
+
+    private void work() {
+        while (!stopping) {
+            try {
+                Long id = claimNext();
+                if (id != null) {
+                    run(id);
+                    continue;
+                }
+                synchronized (wakeUp) {
+                    wakeUp.wait(pollMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (stopping) {
+                    return;
+                }
+                logger.error("Export worker error: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private Long claimNext() {
+        for (Long id : jobRepository.findClaimable(staleSeconds)) {
+            if (jobRepository.claim(id, nodeId, staleSeconds) == 1) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private void run(Long id) {
+        ExportJob job = jobRepository.findById(id).orElse(null);
+        if (job == null) {
+            return;
+        }
+        running.add(id);
+        ExportTarget.Output output = null;
+        try {
+            ExportFormat format = ExportFormat.of(job.getFormat());
+            Storage storage = storageService.findById(job.getStorageId())
+                .orElseThrow(() -> new IllegalArgumentException("Storage " + job.getStorageId() + " no longer exists"));
+            boolean resumable = !format.isColumnar();
+            boolean resume = resumable && job.getBytesWritten() > 0 && job.getCheckpointCursor() != null;
+            output = targetFor(storage).open(job, resume, resumable);
+            if (resume) {
+                logger.info("Resuming export job {} after {} records", id, job.getRecordsWritten());
+            } else {
+                job.setCheckpointCursor(job.getStartCursor());
+                job.setRecordsWritten(0);
+                job.setBytesWritten(0);
+            }
+
+            JobProgress progress = new JobProgress(job, output, resumable);
+            // Saves the target state (e.g. the upload id) before anything is written
+            progress.save(job.getCheckpointCursor());
+
+            ExportQuery query = new ExportQuery();
+            query.setSourceId(job.getSourceId());
+            query.setDataType(job.getDataType());
+            query.setStartTime(job.getStartTime());
+            query.setEndTime(job.getEndTime());
+            query.setAfter(DataCursor.decode(job.getCheckpointCursor()));
+            if (job.getRowLimit() != null) {
+                query.setLimit((int) Math.max(0, job.getRowLimit() - job.getRecordsWritten()));
+            }
+            exportService.export(query, format, progress.out, resume ? job.getRecordsWritten() : -1, progress);
+
+            output.complete();
+            progress.save(progress.cursor);
+            jobRepository.finish(id, nodeId, ExportJob.JobStatus.COMPLETED.name(), null);
+            logger.info("Export job {} completed: {} records, {} bytes to {}",
+                id, progress.records, progress.out.count, job.getObjectKey());
+        } catch (CancellationException e) {
+            logger.info("Export job {} stopped: {}", id, e.getMessage());
+            if (output != null) {
+                output.abort();
+            }
+        } catch (JobTakenOverException e) {
+            // The new owner resumes from this output, so it must not be discarded
+            logger.info("Export job {} was taken over by another node", id);
+            if (output != null) {
+                output.release();
+            }
+        } catch (Exception e) {
+            if (stopping) {
+                // Keep the output for when the job is resumed
+                closeQuietly(output);
+                return;
+            }
+            logger.error("Export job {} failed: {}", id, e.getMessage(), e);
+            if (output != null) {
+                output.abort();
+            }
+            jobRepository.finish(id, nodeId, ExportJob.JobStatus.FAILED.name(), String.valueOf(e.getMessage()));
+        } finally {
+            running.remove(id);
+            cancelled.remove(id);
+        }
+    }
+
+    private void sendHeartbeat() {
+        try {
+            if (!running.isEmpty()) {
+                jobRepository.heartbeat(List.copyOf(running), nodeId);
+            }
+        } catch (Exception e) {
+            logger.warn("Export job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Nothing more to do
+        }
+    }
+
+    /**
+     * Counts output bytes and checkpoints the job as records are written
+     */
+    private final class JobProgress implements ExportService.Progress {
+        private final ExportJob job;
+        private final ExportTarget.Output output;
+        private final boolean resumable;
+        private final CountingOutputStream out;
+        private long records;
+        private String cursor;
+        private long checkpointedBytes;
+
+        JobProgress(ExportJob job, ExportTarget.Output output, boolean resumable) {
+            this.job = job;
+            this.output = output;
+            this.resumable = resumable;
+            this.out = new CountingOutputStream(output, job.getBytesWritten());
+            this.records = job.getRecordsWritten();
+            this.cursor = job.getCheckpointCursor();
+            this.checkpointedBytes = job.getBytesWritten();
+        }
+
+        @Override
+        public void written(DataRecordView record, RecordWriter writer) throws IOException {
+            records++;
+            cursor = DataCursor.after(record).encode();
+            if (cancelled.contains(job.getId())) {
+                throw new CancellationException("cancelled");
+            }
+            if (out.count - checkpointedBytes < checkpointBytes) {
+                return;
+            }
+            if (resumable) {
+                // Everything up to this record must be in the output before it can be committed
+                writer.flush();
+            }
+            // Columnar jobs restart instead of resuming, so their checkpoints only record progress
+            if (output.commit() || !resumable) {
+                save(cursor);
+            }
+        }
+
+        void save(String checkpointCursor) {
+            if (jobRepository.checkpoint(job.getId(), nodeId, checkpointCursor, records, out.count, output.state()) == 0) {
+                boolean stillLive = jobRepository.findById(job.getId())
+                    .map(current -> current.getStatus() != ExportJob.JobStatus.CANCELLED)
+                    .orElse(false);
+                if (!cancelled.contains(job.getId()) && stillLive) {
+                    throw new JobTakenOverException();
+                }
+                throw new CancellationException("cancelled");
+            }
+            checkpointedBytes = out.count;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out, long count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * The job is no longer owned by this node but was not cancelled: another node claimed it
+     * after missed heartbeats
+     */
+    private static final class JobTakenOverException extends RuntimeException {
+        JobTakenOverException() {
+            super("taken over by another node");
+        }
+    }
+}
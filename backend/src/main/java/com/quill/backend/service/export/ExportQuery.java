@@ -0,0 +1,37 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.service.DataCursor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records to export, newest first. Unset filters match everything; without a limit every matching
+ * record is exported.
+ */
+public class ExportQuery {
+    private String sourceId;
+    private String dataType;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private DataCursor after = DataCursor.FIRST;
+    private Integer limit;
+
+    public String getSourceId() { return sourceId; }
+    public void setSourceId(String sourceId) { this.sourceId = sourceId; }
+
+    public String getDataType() { return dataType; }
+    public void setDataType(String dataType) { this.dataType = dataType; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    /** Start below this position, as in the paginated read APIs */
+    public DataCursor getAfter() { return after; }
+    public void setAfter(DataCursor after) { this.after = after; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
@@ -0,0 +1,182 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.dto.DataRecordView;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.DataCursor;
+import com.quill.backend.service.staging.StagingService;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams data records to an output stream.
+ *
+ * Rows are read through a server-side cursor (the PostgreSQL driver only uses one inside a
+ * transaction and with a fetch size) and written as they arrive, so at most one fetch of rows is
+ * held in memory whatever the size of the export. The columnar formats add one Parquet row group
+ * or one Arrow record batch.
+ *
+ * Columnar exports have typed columns for the payload fields staged for the exported source (see
+ * {@link StagingService}); without a source, or before anything is staged, the raw payload is
+ * exported as a {@code content} column.
+ */
+@Service
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final String COLUMNS = "id, source_id, data_type, content, timestamp, status, storage_id, created_at, updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StagingService stagingService;
+    private final CompressionCodecName parquetCodec;
+    private final int parquetRowGroupBytes;
+    private final int arrowBatchRows;
+
+    @Autowired
+    public ExportService(
+        DataSource dataSource,
+        StagingService stagingService,
+        @Value("${quill.export.fetch-size:1000}") int fetchSize,
+        @Value("${quill.export.parquet.codec:snappy}") String parquetCodec,
+        @Value("${quill.export.parquet.row-group-bytes:67108864}") int parquetRowGroupBytes,
+        @Value("${quill.export.arrow.batch-rows:8192}") int arrowBatchRows
+    ) {
+        // A dedicated template so the fetch size only applies to exports
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(Math.max(1, fetchSize));
+        this.stagingService = stagingService;
+        this.parquetCodec = CompressionCodecName.valueOf(parquetCodec.trim().toUpperCase(Locale.ROOT));
+        this.parquetRowGroupBytes = parquetRowGroupBytes;
+        this.arrowBatchRows = arrowBatchRows;
+    }
+
+    /**
+     * Receives each record after it has been written, so a long export can checkpoint
+     */
+    public interface Progress {
+        void written(DataRecordView record, RecordWriter writer) throws IOException;
+    }
+
+    /**
+     * Write every record matching the query, newest first
+     * @return The number of records written
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportQuery query, ExportFormat format, OutputStream out) throws IOException {
+        return export(query, format, out, -1, null);
+    }
+
+    /**
+     * Write every record matching the query, newest first
+     * @param resumeAfter Records an earlier export already wrote to {@code out} (starting below
+     *                    the query's cursor), or -1 to start a new document
+     * @param progress Called after each record, or null
+     * @return The number of records written
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportQuery query, ExportFormat format, OutputStream out, long resumeAfter,
+                       Progress progress) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+            .append(" FROM data_records WHERE (timestamp, id) < (?, ?)");
+        List<Object> args = new ArrayList<>();
+        DataCursor after = query.getAfter() != null ? query.getAfter() : DataCursor.FIRST;
+        args.add(Timestamp.valueOf(after.getTimestamp()));
+        args.add(after.getId());
+        if (query.getSourceId() != null && !query.getSourceId().isEmpty()) {
+            sql.append(" AND source_id = ?");
+            args.add(query.getSourceId());
+        }
+        if (query.getDataType() != null && !query.getDataType().isEmpty()) {
+            sql.append(" AND data_type = ?");
+            args.add(query.getDataType());
+        }
+        if (query.getStartTime() != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(Timestamp.valueOf(query.getStartTime()));
+        }
+        if (query.getEndTime() != null) {
+            sql.append(" AND timestamp <= ?");
+            args.add(Timestamp.valueOf(query.getEndTime()));
+        }
+        sql.append(" ORDER BY timestamp DESC, id DESC");
+        if (query.getLimit() != null) {
+            sql.append(" LIMIT ?");
+            args.add(Math.max(0, query.getLimit()));
+        }
+
+        RecordWriter writer = open(format, query, out);
+        long[] written = new long[1];
+        try {
+            if (resumeAfter >= 0) {
+                writer.resume(resumeAfter);
+            } else {
+                writer.begin();
+            }
+            jdbcTemplate.query(sql.toString(), rs -> {
+                String status = rs.getString("status");
+                DataRecordView record = new DataRecordView(
+                    rs.getLong("id"),
+                    rs.getString("source_id"),
+                    rs.getString("data_type"),
+                    rs.getString("content"),
+                    toLocal(rs.getTimestamp("timestamp")),
+                    status != null ? DataRecord.DataStatus.valueOf(status) : null,
+                    rs.getObject("storage_id", Long.class),
+                    toLocal(rs.getTimestamp("created_at")),
+                    toLocal(rs.getTimestamp("updated_at")));
+                try {
+                    writer.write(record);
+                    written[0]++;
+                    if (progress != null) {
+                        progress.written(record, writer);
+                    }
+                } catch (IOException e) {
+                    // Usually the client went away; stop reading rather than draining the cursor
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+            writer.end();
+        } catch (UncheckedIOException e) {
+            writer.abort();
+            logger.debug("Export stopped after {} records: {}", written[0], e.getCause().getMessage());
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+        return written[0];
+    }
+
+    private RecordWriter open(ExportFormat format, ExportQuery query, OutputStream out) throws IOException {
+        if (!format.isColumnar()) {
+            return format == ExportFormat.CSV ? new CsvRecordWriter(out) : new JsonRecordWriter(out);
+        }
+        String sourceId = query.getSourceId();
+        // Runs in the export's read-only transaction: getColumns only reads the staging schema
+        PayloadColumns payload = new PayloadColumns(sourceId != null && !sourceId.isEmpty()
+            ? stagingService.getColumns(sourceId) : List.of());
+        if (format == ExportFormat.PARQUET) {
+            return new ParquetRecordWriter(out, payload, parquetCodec, parquetRowGroupBytes);
+        }
+        return new ArrowRecordWriter(out, payload, arrowBatchRows);
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
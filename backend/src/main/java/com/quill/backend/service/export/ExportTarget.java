@@ -0,0 +1,57 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.model.ExportJob;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Where an export job writes its output
+ */
+interface ExportTarget {
+
+    /**
+     * @param resume Continue after the job's last checkpoint; otherwise any earlier output of the
+     *               job is discarded
+     * @param recordAligned Only make output durable in {@link Output#commit()}, which is called
+     *                      between records, so a checkpoint never includes part of a record
+     */
+    Output open(ExportJob job, boolean resume, boolean recordAligned) throws IOException;
+
+    /**
+     * @return Where the finished output of a job can be downloaded
+     */
+    String downloadUrl(ExportJob job);
+
+    abstract class Output extends OutputStream {
+
+        /**
+         * Try to make everything written so far durable
+         * @return false if too little has been written since the last commit; the bytes are kept
+         * and included in a later commit
+         */
+        abstract boolean commit() throws IOException;
+
+        /**
+         * @return What has to be saved with a checkpoint to resume, or null
+         */
+        abstract String state();
+
+        /**
+         * Make the output final and visible under the job's key
+         */
+        abstract void complete() throws IOException;
+
+        /**
+         * Discard the output; never throws
+         */
+        abstract void abort();
+
+        /**
+         * Stop using the output without writing anything more or discarding it, because another
+         * worker now owns it; never throws
+         */
+        void release() {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.model.ExportJob;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes to {@code <key>.partial} under the storage's base path and renames it to the key when
+ * the job completes. A resumed job truncates the partial file to its last checkpoint.
+ */
+final class FileExportTarget implements ExportTarget {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path basePath;
+
+    FileExportTarget(Path basePath) {
+        this.basePath = basePath.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return The file a job's finished output is written to
+     */
+    Path resolve(ExportJob job) {
+        Path path = basePath.resolve(job.getObjectKey()).normalize();
+        if (!path.startsWith(basePath)) {
+            throw new IllegalArgumentException("Export key is outside the storage path: " + job.getObjectKey());
+        }
+        return path;
+    }
+
+    @Override
+    public Output open(ExportJob job, boolean resume, boolean recordAligned) throws IOException {
+        Path target = resolve(job);
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        Files.createDirectories(partial.getParent());
+        FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            long keep = resume ? job.getBytesWritten() : 0;
+            if (channel.size() < keep) {
+                throw new IOException("Partial export " + partial + " is shorter than its checkpoint");
+            }
+            channel.truncate(keep);
+            channel.position(keep);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new FileOutput(channel, partial, target);
+    }
+
+    @Override
+    public String downloadUrl(ExportJob job) {
+        return "/api/exports/" + job.getId() + "/download";
+    }
+
+    private static final class FileOutput extends Output {
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final Path partial;
+        private final Path target;
+
+        FileOutput(FileChannel channel, Path partial, Path target) {
+            this.channel = channel;
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            this.partial = partial;
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        boolean commit() throws IOException {
+            out.flush();
+            channel.force(false);
+            return true;
+        }
+
+        @Override
+        String state() {
+            return null;
+        }
+
+        @Override
+        void complete() throws IOException {
+            out.flush();
+            channel.force(true);
+            channel.close();
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        void abort() {
+            try {
+                channel.close();
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                // Left for the next run of the job, which truncates it
+            }
+        }
+
+        @Override
+        void release() {
+            try {
+                // Buffered bytes are dropped: the new owner has already truncated to its checkpoint
+                channel.close();
+            } catch (IOException e) {
+                // Nothing more to do
+            }
+        }
+
+        /**
+         * Keeps the partial file for a later resume
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                out.flush();
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.quill.backend.service.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.quill.backend.dto.DataRecordView;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * A JSON array of records with the same fields as the read APIs, written with Jackson's streaming
+ * generator. The array brackets and separators are written directly, so a resumed writer can
+ * append to an array an earlier one started.
+ */
+class JsonRecordWriter implements RecordWriter {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private boolean first = true;
+
+    JsonRecordWriter(OutputStream out) throws IOException {
+        this.generator = FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        generator.writeRaw('[');
+    }
+
+    @Override
+    public void resume(long written) {
+        first = written == 0;
+    }
+
+    @Override
+    public void write(DataRecordView record) throws IOException {
+        if (!first) {
+            generator.writeRaw(',');
+        }
+        first = false;
+        generator.writeStartObject();
+        generator.writeNumberField("id", record.getId());
+        generator.writeStringField("sourceId", record.getSourceId());
+        generator.writeStringField("dataType", record.getDataType());
+        generator.writeStringField("content", record.getContent());
+        timestamp("timestamp", record.getTimestamp());
+        generator.writeStringField("status", record.getStatus() != null ? record.getStatus().name() : null);
+        if (record.getStorageId() != null) {
+            generator.writeNumberField("storageId", record.getStorageId());
+        } else {
+            generator.writeNullField("storageId");
+        }
+        timestamp("createdAt", record.getCreatedAt());
+        timestamp("updatedAt", record.getUpdatedAt());
+        generator.writeEndObject();
+    }
+
+    private void timestamp(String name, LocalDateTime value) throws IOException {
+        generator.writeStringField(name, value != null ? ExportFormat.TIMESTAMP.format(value) : null);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void end() throws IOException {
+        generator.writeRaw(']');
+        generator.flush();
+    }
+}
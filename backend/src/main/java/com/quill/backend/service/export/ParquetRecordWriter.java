@@ -0,0 +1,179 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.dto.DataRecordView;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * A Parquet file with typed columns.
+ *
+ * Rows are buffered in memory until a row group of about {@code rowGroupBytes} is full, then
+ * encoded and written. Columns are dictionary-encoded (Parquet falls back to plain encoding for a
+ * column whose dictionary grows too large), except ids, timestamps and raw payloads, which never
+ * repeat.
+ */
+class ParquetRecordWriter implements RecordWriter {
+    private static final String[] FIXED = { "id", "sourceId", "dataType", "timestamp", "status" };
+
+    private final OutputStream out;
+    private final PayloadColumns payload;
+    private final CompressionCodecName codec;
+    private final int rowGroupBytes;
+    private ParquetWriter<DataRecordView> writer;
+
+    ParquetRecordWriter(OutputStream out, PayloadColumns payload, CompressionCodecName codec, int rowGroupBytes) {
+        this.out = out;
+        this.payload = payload;
+        this.codec = codec;
+        this.rowGroupBytes = rowGroupBytes;
+    }
+
+    @Override
+    public void begin() throws IOException {
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        builder.required(PrimitiveTypeName.INT64).named("id");
+        builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("sourceId");
+        builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("dataType");
+        builder.optional(PrimitiveTypeName.INT64)
+            .as(LogicalTypeAnnotation.timestampType(false, LogicalTypeAnnotation.TimeUnit.MICROS)).named("timestamp");
+        builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("status");
+        for (int i = 0; i < payload.size(); i++) {
+            switch (payload.type(i)) {
+                case BOOLEAN:
+                    builder.optional(PrimitiveTypeName.BOOLEAN).named(payload.name(i));
+                    break;
+                case DOUBLE:
+                    builder.optional(PrimitiveTypeName.DOUBLE).named(payload.name(i));
+                    break;
+                default:
+                    builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType())
+                        .named(payload.name(i));
+            }
+        }
+        MessageType schema = builder.named("data_record");
+
+        Builder writerBuilder = new Builder(new StreamOutputFile(out), schema, payload)
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .withCompressionCodec(codec)
+            .withRowGroupSize(rowGroupBytes)
+            .withDictionaryEncoding(true)
+            .withDictionaryEncoding("id", false)
+            .withDictionaryEncoding("timestamp", false);
+        if (payload.isRawContent()) {
+            writerBuilder.withDictionaryEncoding(PayloadColumns.CONTENT, false);
+        }
+        writer = writerBuilder.build();
+    }
+
+    @Override
+    public void write(DataRecordView record) throws IOException {
+        writer.write(record);
+    }
+
+    @Override
+    public void end() throws IOException {
+        // Writes the last row group and the footer
+        writer.close();
+    }
+
+    private static final class Builder extends ParquetWriter.Builder<DataRecordView, Builder> {
+        private final MessageType schema;
+        private final PayloadColumns payload;
+
+        Builder(OutputFile file, MessageType schema, PayloadColumns payload) {
+            super(file);
+            this.schema = schema;
+            this.payload = payload;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<DataRecordView> getWriteSupport(Configuration conf) {
+            return new RecordWriteSupport(schema, payload);
+        }
+    }
+
+    private static final class RecordWriteSupport extends WriteSupport<DataRecordView> {
+        private final MessageType schema;
+        private final PayloadColumns payload;
+        private RecordConsumer consumer;
+
+        RecordWriteSupport(MessageType schema, PayloadColumns payload) {
+            this.schema = schema;
+            this.payload = payload;
+        }
+
+        @Override
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(schema, Map.of());
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumer = recordConsumer;
+        }
+
+        @Override
+        public void write(DataRecordView record) {
+            consumer.startMessage();
+            consumer.startField(FIXED[0], 0);
+            consumer.addLong(record.getId());
+            consumer.endField(FIXED[0], 0);
+            text(1, FIXED[1], record.getSourceId());
+            text(2, FIXED[2], record.getDataType());
+            if (record.getTimestamp() != null) {
+                consumer.startField(FIXED[3], 3);
+                consumer.addLong(ExportFormat.epochMicros(record.getTimestamp()));
+                consumer.endField(FIXED[3], 3);
+            }
+            text(4, FIXED[4], record.getStatus() != null ? record.getStatus().name() : null);
+
+            Object[] values = payload.values(record.getContent());
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                int index = FIXED.length + i;
+                String name = payload.name(i);
+                consumer.startField(name, index);
+                if (value instanceof Double) {
+                    consumer.addDouble((Double) value);
+                } else if (value instanceof Boolean) {
+                    consumer.addBoolean((Boolean) value);
+                } else {
+                    consumer.addBinary(Binary.fromString((String) value));
+                }
+                consumer.endField(name, index);
+            }
+            consumer.endMessage();
+        }
+
+        private void text(int index, String name, String value) {
+            if (value == null) {
+                return;
+            }
+            consumer.startField(name, index);
+            consumer.addBinary(Binary.fromString(value));
+            consumer.endField(name, index);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.quill.backend.service.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.service.staging.ColumnType;
+import com.quill.backend.service.staging.PayloadFields;
+import com.quill.backend.service.staging.StagedColumn;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed payload columns of a columnar export, taken from the source's staging schema. Without
+ * staged fields the raw payload is exported as a single {@code content} column instead.
+ *
+ * Staged fields are named {@code payload.<field>}, so a payload field such as {@code sourceId} or
+ * {@code timestamp} (every record stored through {@code /api/data/store} has them) cannot collide
+ * with the record's own columns.
+ */
+final class PayloadColumns {
+    static final String CONTENT = "content";
+    static final String PREFIX = "payload.";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String[] fields;
+    private final String[] names;
+    private final ColumnType[] types;
+    private final boolean rawContent;
+
+    PayloadColumns(List<StagedColumn> staged) {
+        rawContent = staged.isEmpty();
+        if (rawContent) {
+            fields = new String[0];
+            names = new String[] { CONTENT };
+            types = new ColumnType[] { ColumnType.TEXT };
+        } else {
+            fields = new String[staged.size()];
+            names = new String[staged.size()];
+            types = new ColumnType[staged.size()];
+            for (int i = 0; i < staged.size(); i++) {
+                fields[i] = staged.get(i).getField();
+                names[i] = PREFIX + fields[i];
+                types[i] = staged.get(i).getType();
+            }
+        }
+    }
+
+    int size() { return names.length; }
+    boolean isRawContent() { return rawContent; }
+    String name(int i) { return names[i]; }
+    ColumnType type(int i) { return types[i]; }
+
+    /**
+     * Column values of one payload: Boolean, Double or String, or null where the field is
+     * missing or does not fit the column's type
+     */
+    Object[] values(String content) {
+        Object[] values = new Object[names.length];
+        if (rawContent) {
+            values[0] = content;
+            return values;
+        }
+        Map<String, JsonNode> payloadFields;
+        try {
+            payloadFields = PayloadFields.flatten(objectMapper.readTree(content));
+        } catch (Exception e) {
+            return values;
+        }
+        for (int i = 0; i < names.length; i++) {
+            JsonNode value = payloadFields.get(fields[i]);
+            if (value == null || value.isNull()) {
+                continue;
+            }
+            switch (types[i]) {
+                case BOOLEAN:
+                    values[i] = value.isBoolean() ? value.booleanValue() : null;
+                    break;
+                case DOUBLE:
+                    values[i] = value.isNumber() ? value.doubleValue() : null;
+                    break;
+                default:
+                    values[i] = value.asText();
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,42 @@
+package com.quill.backend.service.export;
+
+import com.quill.backend.dto.DataRecordView;
+
+import java.io.IOException;
+
+/**
+ * Writes exported records one at a time to an output stream, so memory use does not depend on
+ * the number of records
+ */
+public interface RecordWriter {
+
+    void begin() throws IOException;
+
+    /**
+     * Continue a document whose beginning, and {@code written} records, an earlier writer wrote.
+     * Only supported by formats that are not {@link ExportFormat#isColumnar() columnar}.
+     */
+    default void resume(long written) throws IOException {
+        throw new UnsupportedOperationException("This format cannot be resumed");
+    }
+
+    void write(DataRecordView record) throws IOException;
+
+    /**
+     * Finish the document and flush; does not close the underlying stream
+     */
+    void end() throws IOException;
+
+    /**
+     * Push everything buffered for the records written so far to the output stream. Columnar
+     * writers hold back the current row group or batch.
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Release resources after a failed export; the output is left incomplete
+     */
+    default void abort() {
+    }
+}
@@ -0,0 +1,210 @@
+package com.quill.backend.service.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quill.backend.model.ExportJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes to an S3 multipart upload. Each commit uploads what was written since the previous one
+ * as the next part; the upload id and part ETags are the checkpoint state, so a resumed job adds
+ * parts to the same upload. Completed exports are downloaded through presigned URLs.
+ */
+final class S3ExportTarget implements ExportTarget {
+    private static final Logger logger = LoggerFactory.getLogger(S3ExportTarget.class);
+
+    /** S3's minimum size for every part but the last */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final S3Client s3Client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final int partSize;
+    private final Duration urlExpiry;
+
+    S3ExportTarget(S3Client s3Client, S3Presigner presigner, String bucket, int partSize, Duration urlExpiry) {
+        this.s3Client = s3Client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.urlExpiry = urlExpiry;
+    }
+
+    @Override
+    public Output open(ExportJob job, boolean resume, boolean recordAligned) throws IOException {
+        String uploadId = null;
+        List<String> etags = new ArrayList<>();
+        if (job.getTargetState() != null) {
+            JsonNode state = objectMapper.readTree(job.getTargetState());
+            if (resume) {
+                uploadId = state.path("uploadId").asText(null);
+                state.path("parts").forEach(etag -> etags.add(etag.asText()));
+            } else {
+                abortUpload(job.getObjectKey(), state.path("uploadId").asText(null));
+            }
+        }
+        if (uploadId == null) {
+            etags.clear();
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(job.getObjectKey())
+                .contentType(ExportFormat.of(job.getFormat()).getContentType())
+                .build()).uploadId();
+        }
+        return new MultipartOutput(job.getObjectKey(), uploadId, etags, !recordAligned);
+    }
+
+    @Override
+    public String downloadUrl(ExportJob job) {
+        return presigner.presignGetObject(GetObjectPresignRequest.builder()
+            .signatureDuration(urlExpiry)
+            .getObjectRequest(GetObjectRequest.builder().bucket(bucket).key(job.getObjectKey()).build())
+            .build()).url().toString();
+    }
+
+    private void abortUpload(String key, String uploadId) {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(bucket).key(key).uploadId(uploadId).build());
+        } catch (Exception e) {
+            logger.warn("Could not abort upload {} of s3://{}/{}: {}", uploadId, bucket, key, e.getMessage());
+        }
+    }
+
+    /**
+     * Exposes its buffer so parts are uploaded without copying
+     */
+    private static final class PartBuffer extends ByteArrayOutputStream {
+        PartBuffer(int size) {
+            super(size);
+        }
+
+        RequestBody body() {
+            return RequestBody.fromInputStream(new ByteArrayInputStream(buf, 0, count), count);
+        }
+    }
+
+    private final class MultipartOutput extends Output {
+        private final String key;
+        private final String uploadId;
+        private final List<String> etags;
+        private final boolean uploadWhenFull;
+        private final PartBuffer buffer;
+
+        MultipartOutput(String key, String uploadId, List<String> etags, boolean uploadWhenFull) {
+            this.key = key;
+            this.uploadId = uploadId;
+            this.etags = etags;
+            this.uploadWhenFull = uploadWhenFull;
+            this.buffer = new PartBuffer(partSize + partSize / 8);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            if (uploadWhenFull && buffer.size() >= partSize) {
+                uploadPart();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!uploadWhenFull) {
+                buffer.write(b, off, len);
+                return;
+            }
+            while (len > 0) {
+                int chunk = Math.min(len, partSize - buffer.size());
+                buffer.write(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+                if (buffer.size() >= partSize) {
+                    uploadPart();
+                }
+            }
+        }
+
+        @Override
+        boolean commit() throws IOException {
+            if (buffer.size() < MIN_PART_SIZE) {
+                return false;
+            }
+            uploadPart();
+            return true;
+        }
+
+        @Override
+        String state() {
+            ObjectNode state = objectMapper.createObjectNode();
+            state.put("uploadId", uploadId);
+            ArrayNode parts = state.putArray("parts");
+            etags.forEach(parts::add);
+            return state.toString();
+        }
+
+        @Override
+        void complete() throws IOException {
+            if (buffer.size() > 0 || etags.isEmpty()) {
+                uploadPart();
+            }
+            List<CompletedPart> parts = new ArrayList<>(etags.size());
+            for (int i = 0; i < etags.size(); i++) {
+                parts.add(CompletedPart.builder().partNumber(i + 1).eTag(etags.get(i)).build());
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build());
+        }
+
+        @Override
+        void abort() {
+            abortUpload(key, uploadId);
+        }
+
+        private void uploadPart() throws IOException {
+            int partNumber = etags.size() + 1;
+            try {
+                String etag = s3Client.uploadPart(UploadPartRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) buffer.size())
+                    .build(), buffer.body()).eTag();
+                etags.add(etag);
+            } catch (RuntimeException e) {
+                throw new IOException("Uploading part " + partNumber + " of s3://" + bucket + "/" + key
+                    + " failed: " + e.getMessage(), e);
+            }
+            buffer.reset();
+        }
+    }
+}
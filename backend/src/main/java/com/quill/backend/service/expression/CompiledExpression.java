@@ -0,0 +1,35 @@
+package com.quill.backend.service.expression;
+
+import java.util.List;
+
+/**
+ * A parsed, constant-folded expression. Variables are numbered in order of first appearance;
+ * {@link #evaluate} takes their values in that order.
+ */
+public final class CompiledExpression {
+    private final String source;
+    private final ExprNode root;
+    private final List<String> variables;
+
+    CompiledExpression(String source, ExprNode root, List<String> variables) {
+        this.source = source;
+        this.root = root;
+        this.variables = List.copyOf(variables);
+    }
+
+    public double evaluate(double[] values) {
+        return root.eval(values);
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public boolean isConstant() {
+        return root.isConstant();
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
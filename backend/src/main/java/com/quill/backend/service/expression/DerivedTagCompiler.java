@@ -0,0 +1,78 @@
+package com.quill.backend.service.expression;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.quill.backend.service.transform.FieldAccessor;
+import com.quill.backend.service.transform.TransformStep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the {@code derivedTags} array of a connection's configuration into
+ * {@link TransformStep}s. Each entry has a {@code name} (field name or JSON pointer) and an
+ * {@code expression}; tags are evaluated in order, so a tag may use the ones defined before it.
+ *
+ * A tag is skipped for a record when one of its inputs is missing or not numeric, or when the
+ * result is not finite.
+ */
+public final class DerivedTagCompiler {
+
+    private DerivedTagCompiler() {
+    }
+
+    public static List<TransformStep> compile(JsonNode tags, ExpressionCompiler compiler) {
+        List<TransformStep> steps = new ArrayList<>();
+        if (tags == null || tags.isNull() || tags.isMissingNode()) {
+            return steps;
+        }
+        if (!tags.isArray()) {
+            throw new IllegalArgumentException("derivedTags must be an array");
+        }
+        for (int i = 0; i < tags.size(); i++) {
+            JsonNode tag = tags.get(i);
+            try {
+                String name = tag.path("name").asText("");
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("'name' is required");
+                }
+                steps.add(step(FieldAccessor.compile(name), compiler.compile(tag.path("expression").asText(""))));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid derived tag " + i + ": " + e.getMessage(), e);
+            }
+        }
+        return steps;
+    }
+
+    private static TransformStep step(FieldAccessor target, CompiledExpression expression) {
+        if (expression.isConstant()) {
+            JsonNode value = toNode(expression.evaluate(null));
+            return node -> target.set(node, value);
+        }
+        FieldAccessor[] inputs = expression.getVariables().stream()
+            .map(FieldAccessor::compile)
+            .toArray(FieldAccessor[]::new);
+        return node -> {
+            double[] values = new double[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                values[i] = inputs[i].getDouble(node);
+                if (Double.isNaN(values[i])) {
+                    return;
+                }
+            }
+            double result = expression.evaluate(values);
+            if (Double.isFinite(result)) {
+                target.set(node, toNode(result));
+            }
+        };
+    }
+
+    private static JsonNode toNode(double value) {
+        // Keep integral results (counts, flags) as integers in the stored JSON
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return LongNode.valueOf((long) value);
+        }
+        return DoubleNode.valueOf(value);
+    }
+}
@@ -0,0 +1,195 @@
+package com.quill.backend.service.expression;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Node of a compiled expression tree. Variables are bound to slot indexes at compile time,
+ * so evaluation reads plain array elements.
+ */
+interface ExprNode {
+    double eval(double[] slots);
+
+    default boolean isConstant() {
+        return false;
+    }
+
+    final class Constant implements ExprNode {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(double[] slots) {
+            return value;
+        }
+
+        @Override
+        public boolean isConstant() {
+            return true;
+        }
+    }
+
+    final class Variable implements ExprNode {
+        final int slot;
+
+        Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public double eval(double[] slots) {
+            return slots[slot];
+        }
+    }
+
+    final class Negate implements ExprNode {
+        final ExprNode operand;
+
+        Negate(ExprNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public double eval(double[] slots) {
+            return -operand.eval(slots);
+        }
+    }
+
+    final class Not implements ExprNode {
+        final ExprNode operand;
+
+        Not(ExprNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public double eval(double[] slots) {
+            return operand.eval(slots) == 0.0 ? 1.0 : 0.0;
+        }
+    }
+
+    final class Add implements ExprNode {
+        final ExprNode left, right;
+        Add(ExprNode left, ExprNode right) { this.left = left; this.right = right; }
+        @Override public double eval(double[] s) { return left.eval(s) + right.eval(s); }
+    }
+
+    final class Subtract implements ExprNode {
+        final ExprNode left, right;
+        Subtract(ExprNode left, ExprNode right) { this.left = left; this.right = right; }
+        @Override public double eval(double[] s) { return left.eval(s) - right.eval(s); }
+    }
+
+    final class Multiply implements ExprNode {
+        final ExprNode left, right;
+        Multiply(ExprNode left, ExprNode right) { this.left = left; this.right = right; }
+        @Override public double eval(double[] s) { return left.eval(s) * right.eval(s); }
+    }
+
+    final class Divide implements ExprNode {
+        final ExprNode left, right;
+        Divide(ExprNode left, ExprNode right) { this.left = left; this.right = right; }
+        @Override public double eval(double[] s) { return left.eval(s) / right.eval(s); }
+    }
+
+    final class Modulo implements ExprNode {
+        final ExprNode left, right;
+        Modulo(ExprNode left, ExprNode right) { this.left = left; this.right = right; }
+        @Override public double eval(double[] s) { return left.eval(s) % right.eval(s); }
+    }
+
+    final class Power implements ExprNode {
+        final ExprNode left, right;
+        Power(ExprNode left, ExprNode right) { this.left = left; this.right = right; }
+        @Override public double eval(double[] s) { return Math.pow(left.eval(s), right.eval(s)); }
+    }
+
+    /**
+     * Comparison and logical operators; yields 1 for true and 0 for false
+     */
+    final class Compare implements ExprNode {
+        enum Op { LT, LE, GT, GE, EQ, NE, AND, OR }
+
+        final Op op;
+        final ExprNode left, right;
+
+        Compare(Op op, ExprNode left, ExprNode right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double eval(double[] s) {
+            switch (op) {
+                case AND:
+                    return left.eval(s) != 0.0 && right.eval(s) != 0.0 ? 1.0 : 0.0;
+                case OR:
+                    return left.eval(s) != 0.0 || right.eval(s) != 0.0 ? 1.0 : 0.0;
+                default:
+                    break;
+            }
+            double a = left.eval(s);
+            double b = right.eval(s);
+            boolean result;
+            switch (op) {
+                case LT: result = a < b; break;
+                case LE: result = a <= b; break;
+                case GT: result = a > b; break;
+                case GE: result = a >= b; break;
+                case EQ: result = a == b; break;
+                default: result = a != b; break;
+            }
+            return result ? 1.0 : 0.0;
+        }
+    }
+
+    final class Conditional implements ExprNode {
+        final ExprNode condition, whenTrue, whenFalse;
+
+        Conditional(ExprNode condition, ExprNode whenTrue, ExprNode whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        public double eval(double[] s) {
+            return condition.eval(s) != 0.0 ? whenTrue.eval(s) : whenFalse.eval(s);
+        }
+    }
+
+    final class Call1 implements ExprNode {
+        final DoubleUnaryOperator function;
+        final ExprNode arg;
+
+        Call1(DoubleUnaryOperator function, ExprNode arg) {
+            this.function = function;
+            this.arg = arg;
+        }
+
+        @Override
+        public double eval(double[] s) {
+            return function.applyAsDouble(arg.eval(s));
+        }
+    }
+
+    final class Call2 implements ExprNode {
+        final DoubleBinaryOperator function;
+        final ExprNode a, b;
+
+        Call2(DoubleBinaryOperator function, ExprNode a, ExprNode b) {
+            this.function = function;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public double eval(double[] s) {
+            return function.applyAsDouble(a.eval(s), b.eval(s));
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.quill.backend.service.expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compiles arithmetic expressions over named values, e.g. {@code voltage * current / 1000}.
+ *
+ * Supports {@code + - * / % ^}, comparisons, {@code && || !}, {@code cond ? a : b}, the
+ * constants {@code pi} and {@code e}, and functions (abs, sqrt, exp, ln, log10, floor, ceil,
+ * round, sin, cos, tan, min, max, pow, atan2, hypot, clamp, if). Names may contain dots;
+ * a JSON pointer can be used in braces, e.g. {@code {/payload/v} * 2}.
+ *
+ * Subtrees without variables are folded into constants. Compiled expressions are immutable and
+ * cached by source text.
+ */
+public class ExpressionCompiler {
+    private static final int MAX_CACHED = 1024;
+
+    private static final Map<String, DoubleUnaryOperator> UNARY = Map.ofEntries(
+        Map.entry("abs", Math::abs),
+        Map.entry("sqrt", Math::sqrt),
+        Map.entry("exp", Math::exp),
+        Map.entry("ln", Math::log),
+        Map.entry("log10", Math::log10),
+        Map.entry("floor", Math::floor),
+        Map.entry("ceil", Math::ceil),
+        Map.entry("round", v -> (double) Math.round(v)),
+        Map.entry("sin", Math::sin),
+        Map.entry("cos", Math::cos),
+        Map.entry("tan", Math::tan)
+    );
+
+    private static final Map<String, DoubleBinaryOperator> BINARY = Map.of(
+        "min", Math::min,
+        "max", Math::max,
+        "pow", Math::pow,
+        "atan2", Math::atan2,
+        "hypot", Math::hypot
+    );
+
+    private final Map<String, CompiledExpression> cache = new ConcurrentHashMap<>();
+
+    public CompiledExpression compile(String source) {
+        CompiledExpression cached = cache.get(source);
+        if (cached != null) {
+            return cached;
+        }
+        CompiledExpression compiled = new Parser(source).parse();
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear();
+        }
+        cache.put(source, compiled);
+        return compiled;
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private static final class Parser {
+        private final String src;
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private int pos;
+
+        Parser(String src) {
+            if (src == null || src.isBlank()) {
+                throw new IllegalArgumentException("Expression is empty");
+            }
+            this.src = src;
+        }
+
+        CompiledExpression parse() {
+            ExprNode root = ternary();
+            skipSpace();
+            if (pos < src.length()) {
+                throw error("Unexpected '" + src.charAt(pos) + "'");
+            }
+            return new CompiledExpression(src, root, new ArrayList<>(slots.keySet()));
+        }
+
+        private ExprNode ternary() {
+            ExprNode condition = or();
+            if (match("?")) {
+                ExprNode whenTrue = ternary();
+                expect(":");
+                ExprNode whenFalse = ternary();
+                if (condition.isConstant()) {
+                    return condition.eval(null) != 0.0 ? whenTrue : whenFalse;
+                }
+                return new ExprNode.Conditional(condition, whenTrue, whenFalse);
+            }
+            return condition;
+        }
+
+        private ExprNode or() {
+            ExprNode left = and();
+            while (match("||")) {
+                left = logical(ExprNode.Compare.Op.OR, left, and());
+            }
+            return left;
+        }
+
+        private ExprNode and() {
+            ExprNode left = comparison();
+            while (match("&&")) {
+                left = logical(ExprNode.Compare.Op.AND, left, comparison());
+            }
+            return left;
+        }
+
+        private ExprNode comparison() {
+            ExprNode left = additive();
+            ExprNode.Compare.Op op;
+            if (match("<=")) {
+                op = ExprNode.Compare.Op.LE;
+            } else if (match(">=")) {
+                op = ExprNode.Compare.Op.GE;
+            } else if (match("==")) {
+                op = ExprNode.Compare.Op.EQ;
+            } else if (match("!=")) {
+                op = ExprNode.Compare.Op.NE;
+            } else if (match("<")) {
+                op = ExprNode.Compare.Op.LT;
+            } else if (match(">")) {
+                op = ExprNode.Compare.Op.GT;
+            } else {
+                return left;
+            }
+            ExprNode right = additive();
+            return fold(new ExprNode.Compare(op, left, right), left, right);
+        }
+
+        private ExprNode additive() {
+            ExprNode left = multiplicative();
+            while (true) {
+                if (match("+")) {
+                    ExprNode right = multiplicative();
+                    left = fold(new ExprNode.Add(left, right), left, right);
+                } else if (match("-")) {
+                    ExprNode right = multiplicative();
+                    left = fold(new ExprNode.Subtract(left, right), left, right);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ExprNode multiplicative() {
+            ExprNode left = unary();
+            while (true) {
+                if (match("*")) {
+                    ExprNode right = unary();
+                    left = fold(new ExprNode.Multiply(left, right), left, right);
+                } else if (match("/")) {
+                    ExprNode right = unary();
+                    left = fold(new ExprNode.Divide(left, right), left, right);
+                } else if (match("%")) {
+                    ExprNode right = unary();
+                    left = fold(new ExprNode.Modulo(left, right), left, right);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ExprNode unary() {
+            if (match("-")) {
+                ExprNode operand = unary();
+                return fold(new ExprNode.Negate(operand), operand);
+            }
+            if (match("+")) {
+                return unary();
+            }
+            if (peek("!") && !peek("!=")) {
+                pos++;
+                ExprNode operand = unary();
+                return fold(new ExprNode.Not(operand), operand);
+            }
+            return power();
+        }
+
+        private ExprNode power() {
+            ExprNode base = primary();
+            if (match("^")) {
+                // Right-associative: a ^ b ^ c == a ^ (b ^ c)
+                ExprNode exponent = unary();
+                return fold(new ExprNode.Power(base, exponent), base, exponent);
+            }
+            return base;
+        }
+
+        private ExprNode primary() {
+            skipSpace();
+            if (pos >= src.length()) {
+                throw error("Unexpected end of expression");
+            }
+            char c = src.charAt(pos);
+            if (c == '(') {
+                pos++;
+                ExprNode inner = ternary();
+                expect(")");
+                return inner;
+            }
+            if (c == '{') {
+                int end = src.indexOf('}', pos);
+                if (end < 0) {
+                    throw error("Unclosed '{'");
+                }
+                String name = src.substring(pos + 1, end).trim();
+                pos = end + 1;
+                return variable(name);
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return number();
+            }
+            if (Character.isLetter(c) || c == '_') {
+                String name = identifier();
+                if (match("(")) {
+                    return call(name);
+                }
+                switch (name) {
+                    case "pi": return new ExprNode.Constant(Math.PI);
+                    case "e": return new ExprNode.Constant(Math.E);
+                    case "true": return new ExprNode.Constant(1.0);
+                    case "false": return new ExprNode.Constant(0.0);
+                    default: return variable(name);
+                }
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private ExprNode call(String name) {
+            List<ExprNode> args = new ArrayList<>();
+            if (!match(")")) {
+                do {
+                    args.add(ternary());
+                } while (match(","));
+                expect(")");
+            }
+            String fn = name.toLowerCase(Locale.ROOT);
+            DoubleUnaryOperator unary = UNARY.get(fn);
+            if (unary != null) {
+                arity(fn, args, 1);
+                return fold(new ExprNode.Call1(unary, args.get(0)), args.get(0));
+            }
+            DoubleBinaryOperator binary = BINARY.get(fn);
+            if (binary != null) {
+                arity(fn, args, 2);
+                return fold(new ExprNode.Call2(binary, args.get(0), args.get(1)), args.get(0), args.get(1));
+            }
+            if (fn.equals("if")) {
+                arity(fn, args, 3);
+                ExprNode condition = args.get(0);
+                if (condition.isConstant()) {
+                    return condition.eval(null) != 0.0 ? args.get(1) : args.get(2);
+                }
+                return new ExprNode.Conditional(condition, args.get(1), args.get(2));
+            }
+            if (fn.equals("clamp")) {
+                arity(fn, args, 3);
+                ExprNode lower = fold(new ExprNode.Call2(Math::max, args.get(0), args.get(1)), args.get(0), args.get(1));
+                return fold(new ExprNode.Call2(Math::min, lower, args.get(2)), lower, args.get(2));
+            }
+            throw error("Unknown function '" + name + "'");
+        }
+
+        private ExprNode number() {
+            int start = pos;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+                int mark = pos;
+                pos++;
+                if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) {
+                    pos++;
+                }
+                if (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                    while (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                        pos++;
+                    }
+                } else {
+                    pos = mark;
+                }
+            }
+            try {
+                return new ExprNode.Constant(Double.parseDouble(src.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number '" + src.substring(start, pos) + "'");
+            }
+        }
+
+        private String identifier() {
+            int start = pos;
+            while (pos < src.length()) {
+                char c = src.charAt(pos);
+                if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            return src.substring(start, pos);
+        }
+
+        private ExprNode variable(String name) {
+            if (name.isEmpty()) {
+                throw error("Empty variable name");
+            }
+            return new ExprNode.Variable(slots.computeIfAbsent(name, k -> slots.size()));
+        }
+
+        /**
+         * Fold {@code &&} and {@code ||} when both sides are constant, or when a constant left
+         * side decides the result on its own ({@code 0 && x}, {@code 1 || x})
+         */
+        private static ExprNode logical(ExprNode.Compare.Op op, ExprNode left, ExprNode right) {
+            if (left.isConstant()) {
+                boolean value = left.eval(null) != 0.0;
+                if (op == ExprNode.Compare.Op.OR && value) {
+                    return new ExprNode.Constant(1.0);
+                }
+                if (op == ExprNode.Compare.Op.AND && !value) {
+                    return new ExprNode.Constant(0.0);
+                }
+            }
+            return fold(new ExprNode.Compare(op, left, right), left, right);
+        }
+
+        /**
+         * Replace a node by its value when every operand is constant
+         */
+        private static ExprNode fold(ExprNode node, ExprNode... operands) {
+            for (ExprNode operand : operands) {
+                if (!operand.isConstant()) {
+                    return node;
+                }
+            }
+            return new ExprNode.Constant(node.eval(null));
+        }
+
+        private void arity(String fn, List<ExprNode> args, int expected) {
+            if (args.size() != expected) {
+                throw error(fn + "() takes " + expected + " argument" + (expected == 1 ? "" : "s"));
+            }
+        }
+
+        private boolean match(String token) {
+            if (peek(token)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean peek(String token) {
+            skipSpace();
+            return src.startsWith(token, pos);
+        }
+
+        private void expect(String token) {
+            if (!match(token)) {
+                throw error("Expected '" + token + "'");
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in '" + src + "'");
+        }
+    }
+}
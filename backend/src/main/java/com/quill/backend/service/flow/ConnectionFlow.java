@@ -0,0 +1,200 @@
+package com.quill.backend.service.flow;
+
+import com.quill.backend.service.scheduling.PollTask;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Flow-control state for one poller. Obtained from {@link IngestFlowController#open}.
+ *
+ * The poll task calls {@link #poll} instead of reading directly: the read only happens once a
+ * credit is granted, and the batch is written on the controller's writer pool, which returns the
+ * credit when storage has caught up. Without a credit the connection's {@link OverloadPolicy}
+ * decides what happens.
+ */
+public class ConnectionFlow<T> {
+    private final IngestFlowController controller;
+    private final String key;
+    private final OverloadPolicy policy;
+    private final Consumer<List<T>> sink;
+    private final long baseIntervalMillis;
+    private final long maxIntervalMillis;
+    private final int maxInFlight;
+    private volatile PollTask task;
+
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicReference<List<T>> pending = new AtomicReference<>();
+    final AtomicBoolean queued = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final AtomicLong grantedPolls = new AtomicLong();
+    private final AtomicLong throttledPolls = new AtomicLong();
+    private final AtomicLong skippedPolls = new AtomicLong();
+    private final AtomicLong conflatedBatches = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private volatile long currentIntervalMillis;
+    private volatile long lastThrottledAt;
+
+    ConnectionFlow(IngestFlowController controller, String key, OverloadPolicy policy, long baseIntervalMillis,
+                   int maxBackoffFactor, int maxInFlight, Consumer<List<T>> sink) {
+        this.controller = controller;
+        this.key = key;
+        this.policy = policy;
+        this.sink = sink;
+        this.baseIntervalMillis = Math.max(1, baseIntervalMillis);
+        this.maxIntervalMillis = this.baseIntervalMillis * Math.max(1, maxBackoffFactor);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.currentIntervalMillis = this.baseIntervalMillis;
+    }
+
+    /**
+     * Attach the poll task so the BACKOFF policy can change its interval
+     */
+    public void attach(PollTask task) {
+        this.task = task;
+    }
+
+    /**
+     * Run one poll under flow control
+     * @param reader Reads a batch from the device; only called when the batch can be accepted
+     */
+    public void poll(Callable<List<T>> reader) throws Exception {
+        if (closed) {
+            return;
+        }
+        if (tryAcquire()) {
+            grantedPolls.incrementAndGet();
+            recover();
+            List<T> batch;
+            try {
+                batch = reader.call();
+            } catch (Exception e) {
+                release();
+                throw e;
+            }
+            if (batch == null || batch.isEmpty()) {
+                release();
+                return;
+            }
+            controller.write(this, batch);
+            return;
+        }
+
+        throttledPolls.incrementAndGet();
+        lastThrottledAt = System.currentTimeMillis();
+        switch (policy) {
+            case SKIP:
+                skippedPolls.incrementAndGet();
+                break;
+            case BACKOFF:
+                skippedPolls.incrementAndGet();
+                lengthenInterval();
+                break;
+            case CONFLATE:
+                List<T> batch = reader.call();
+                if (batch != null && !batch.isEmpty()) {
+                    if (pending.getAndSet(batch) != null) {
+                        conflatedBatches.incrementAndGet();
+                    }
+                    controller.enqueuePending(this);
+                }
+                break;
+        }
+    }
+
+    boolean tryAcquire() {
+        // Per-connection cap first, so one busy connection cannot hold every global credit
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        if (!controller.tryAcquireCredit()) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+        controller.releaseCredit();
+    }
+
+    void deliver(List<T> batch) {
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            writeFailures.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private void lengthenInterval() {
+        PollTask current = task;
+        if (current == null) {
+            return;
+        }
+        long next = Math.min(maxIntervalMillis, currentIntervalMillis * 2);
+        if (next != currentIntervalMillis) {
+            currentIntervalMillis = next;
+            current.setPeriodMillis(next);
+        }
+    }
+
+    private void recover() {
+        PollTask current = task;
+        if (current == null || currentIntervalMillis <= baseIntervalMillis) {
+            return;
+        }
+        long next = Math.max(baseIntervalMillis, currentIntervalMillis / 2);
+        currentIntervalMillis = next;
+        current.setPeriodMillis(next);
+    }
+
+    /**
+     * Stop accepting polls and drop any conflated batch that has not been written
+     */
+    public void close() {
+        closed = true;
+        pending.set(null);
+        controller.unregister(this);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    public String getKey() { return key; }
+    public OverloadPolicy getPolicy() { return policy; }
+    public long getGrantedPolls() { return grantedPolls.get(); }
+    public long getThrottledPolls() { return throttledPolls.get(); }
+    public long getSkippedPolls() { return skippedPolls.get(); }
+    public long getConflatedBatches() { return conflatedBatches.get(); }
+    public long getWriteFailures() { return writeFailures.get(); }
+    public int getInFlight() { return inFlight.get(); }
+    public long getCurrentIntervalMillis() { return currentIntervalMillis; }
+
+    /**
+     * Throttled if a poll was refused a credit within the last two intervals
+     */
+    public boolean isThrottled() {
+        return System.currentTimeMillis() - lastThrottledAt < 2 * currentIntervalMillis;
+    }
+
+    public String toDiagnosticJson() {
+        return String.format(Locale.ROOT,
+            "{\"type\":\"flow_control\",\"key\":\"%s\",\"policy\":\"%s\",\"throttled\":%b," +
+            "\"interval_ms\":%d,\"base_interval_ms\":%d,\"in_flight\":%d,\"granted\":%d,\"throttled_polls\":%d," +
+            "\"skipped\":%d,\"conflated\":%d,\"pending\":%b,\"write_failures\":%d,\"available_credits\":%d}",
+            key, policy.name(), isThrottled(), currentIntervalMillis, baseIntervalMillis, inFlight.get(),
+            grantedPolls.get(), throttledPolls.get(), skippedPolls.get(), conflatedBatches.get(),
+            pending.get() != null, writeFailures.get(), controller.getAvailableCredits());
+    }
+}
@@ -0,0 +1,190 @@
+package com.quill.backend.service.flow;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Credit-based flow control between data-source pollers and storage.
+ *
+ * A fixed number of credits bounds the batches that have been read but not yet stored. A poller
+ * takes a credit before reading; the batch is then written on a dedicated writer pool and the
+ * credit is returned once the write finishes. When storage falls behind, credits run out and
+ * pollers apply their {@link OverloadPolicy} instead of queueing more work.
+ */
+@Service
+public class IngestFlowController {
+    private static final Logger logger = LoggerFactory.getLogger(IngestFlowController.class);
+
+    private final Semaphore credits;
+    private final int totalCredits;
+    private final int maxInFlightPerConnection;
+    private final int maxBackoffFactor;
+    private final OverloadPolicy defaultPolicy;
+    private final ExecutorService writers;
+    private final Map<String, ConnectionFlow<?>> flows = new ConcurrentHashMap<>();
+    private final Queue<ConnectionFlow<?>> waiting = new ConcurrentLinkedQueue<>();
+
+    public IngestFlowController(
+        @Value("${quill.ingest.flow.credits:32}") int totalCredits,
+        @Value("${quill.ingest.flow.per-connection-credits:2}") int maxInFlightPerConnection,
+        @Value("${quill.ingest.flow.writer-threads:4}") int writerThreads,
+        @Value("${quill.ingest.flow.max-backoff-factor:16}") int maxBackoffFactor,
+        @Value("${quill.ingest.flow.default-policy:backoff}") String defaultPolicy
+    ) {
+        this.totalCredits = Math.max(1, totalCredits);
+        this.credits = new Semaphore(this.totalCredits);
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        this.maxBackoffFactor = maxBackoffFactor;
+        this.defaultPolicy = OverloadPolicy.fromConfig(defaultPolicy, OverloadPolicy.BACKOFF);
+
+        AtomicInteger writerCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), r -> {
+            Thread thread = new Thread(r, "ingest-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Register a poller
+     * @param key Flow key, the same as the poll task owner (e.g. "connection-42")
+     * @param policyConfig The connection's {@code overloadPolicy} value, or null for the default
+     * @param baseIntervalMillis The configured polling interval
+     * @param sink Stores a batch; runs on the writer pool
+     */
+    public <T> ConnectionFlow<T> open(String key, String policyConfig, long baseIntervalMillis, Consumer<List<T>> sink) {
+        return open(key, resolvePolicy(policyConfig), baseIntervalMillis, sink);
+    }
+
+    /**
+     * Register a poller with an already resolved policy
+     */
+    public <T> ConnectionFlow<T> open(String key, OverloadPolicy policy, long baseIntervalMillis, Consumer<List<T>> sink) {
+        ConnectionFlow<T> flow = new ConnectionFlow<>(this, key, policy,
+            baseIntervalMillis, maxBackoffFactor, maxInFlightPerConnection, sink);
+        ConnectionFlow<?> previous = flows.put(key, flow);
+        if (previous != null) {
+            previous.close();
+        }
+        return flow;
+    }
+
+    /**
+     * @param policyConfig A connection's {@code overloadPolicy} value, or null for the default
+     * @throws IllegalArgumentException for an unknown policy
+     */
+    public OverloadPolicy resolvePolicy(String policyConfig) {
+        return OverloadPolicy.fromConfig(policyConfig, defaultPolicy);
+    }
+
+    public ConnectionFlow<?> getFlow(String key) {
+        return flows.get(key);
+    }
+
+    public int getAvailableCredits() {
+        return credits.availablePermits();
+    }
+
+    public int getTotalCredits() {
+        return totalCredits;
+    }
+
+    boolean tryAcquireCredit() {
+        return credits.tryAcquire();
+    }
+
+    void releaseCredit() {
+        credits.release();
+        drainPending();
+    }
+
+    void unregister(ConnectionFlow<?> flow) {
+        flows.remove(flow.getKey(), flow);
+    }
+
+    /**
+     * Write a batch whose credit is already held; the credit is returned when the write completes
+     */
+    <T> void write(ConnectionFlow<T> flow, List<T> batch) {
+        try {
+            writers.execute(() -> {
+                try {
+                    flow.deliver(batch);
+                } catch (Exception e) {
+                    logger.error("Storing batch for {} failed: {}", flow.getKey(), e.getMessage(), e);
+                } finally {
+                    flow.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flow.release();
+            logger.warn("Dropped batch for {}: writer pool is shut down", flow.getKey());
+        }
+    }
+
+    void enqueuePending(ConnectionFlow<?> flow) {
+        if (flow.queued.compareAndSet(false, true)) {
+            waiting.add(flow);
+        }
+        // A credit may have been returned between the failed acquire and the enqueue
+        drainPending();
+    }
+
+    /**
+     * Hand freed credits to conflating flows that are holding a batch
+     */
+    private void drainPending() {
+        int attempts = waiting.size();
+        while (attempts-- > 0 && credits.availablePermits() > 0) {
+            ConnectionFlow<?> flow = waiting.poll();
+            if (flow == null) {
+                return;
+            }
+            if (!flow.tryAcquire()) {
+                // At its per-connection cap; retried when one of its own writes completes
+                waiting.add(flow);
+                continue;
+            }
+            flow.queued.set(false);
+            writePending(flow);
+        }
+    }
+
+    private <T> void writePending(ConnectionFlow<T> flow) {
+        List<T> batch = flow.pending.getAndSet(null);
+        if (batch == null || flow.isClosed()) {
+            flow.release();
+            return;
+        }
+        write(flow, batch);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.quill.backend.service.flow;
+
+import java.util.Locale;
+
+/**
+ * What a poller does when the storage pipeline has no credit for another batch.
+ * Set per connection with the {@code overloadPolicy} configuration key.
+ */
+public enum OverloadPolicy {
+    /** Skip the poll; the device is not read */
+    SKIP,
+    /** Skip the poll and double the polling interval, recovering once credits are available again */
+    BACKOFF,
+    /** Keep reading, but hold only the newest batch until a credit frees up */
+    CONFLATE;
+
+    public static OverloadPolicy fromConfig(String value, OverloadPolicy defaultPolicy) {
+        if (value == null || value.isBlank()) {
+            return defaultPolicy;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT).replace('_', '-')) {
+            case "skip":
+            case "skip-poll":
+                return SKIP;
+            case "backoff":
+            case "lengthen-interval":
+                return BACKOFF;
+            case "conflate":
+            case "conflate-to-latest":
+                return CONFLATE;
+            default:
+                throw new IllegalArgumentException("Unknown overload policy: " + value);
+        }
+    }
+}
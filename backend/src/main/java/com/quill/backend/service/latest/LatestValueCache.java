@@ -0,0 +1,288 @@
+package com.quill.backend.service.latest;
+
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.model.ModbusReading;
+import com.quill.backend.service.IngestListener;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latest stored value per source and per Modbus register, kept in memory so dashboards do not
+ * query the database for "current value" widgets.
+ *
+ * Updated on the ingest path after each batch is stored, and warmed at startup from the last
+ * {@code quill.latest.warm-hours} of data. Register values are keyed by connection id and a packed
+ * (register type, register) int; a bounded set of the newest records serves the first page of
+ * {@code /api/data/recent}.
+ *
+ * With clustering enabled other nodes ingest part of the sources, so {@link #isAuthoritative()}
+ * is false and callers read from the database instead.
+ */
+@Service
+public class LatestValueCache implements IngestListener {
+    private static final Logger logger = LoggerFactory.getLogger(LatestValueCache.class);
+
+    private static final String RECORD_COLUMNS = "id, source_id, data_type, content, timestamp";
+    private static final String REGISTER_COLUMNS = "connection_id, register, register_type, value, quality, read_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int warmHours;
+    private final Map<String, DataRecord> bySource = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Integer, RegisterValue>> byConnection = new ConcurrentHashMap<>();
+    private final Map<String, Integer> registerTypeCodes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTypeCode = new AtomicInteger();
+    private final RecentRecords recent;
+    private volatile boolean warmed;
+
+    @Autowired
+    public LatestValueCache(
+        JdbcTemplate jdbcTemplate,
+        ConnectionLeaseManager leaseManager,
+        @Value("${quill.latest.enabled:true}") boolean enabled,
+        @Value("${quill.latest.warm-hours:24}") int warmHours,
+        @Value("${quill.latest.recent-capacity:1024}") int recentCapacity
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled && !leaseManager.isEnabled();
+        this.warmHours = warmHours;
+        this.recent = new RecentRecords(recentCapacity);
+    }
+
+    /**
+     * True when every write goes through this node, so cached values are the latest stored ones
+     */
+    public boolean isAuthoritative() {
+        return enabled && warmed;
+    }
+
+    @Override
+    public void onStored(List<DataRecord> records) {
+        if (!enabled) {
+            return;
+        }
+        for (DataRecord record : records) {
+            if (record.getId() == null || record.getTimestamp() == null || record.getSourceId() == null) {
+                continue;
+            }
+            DataRecord copy = detach(record);
+            recent.add(copy);
+            if (!"diagnostic".equals(copy.getDataType())) {
+                putSource(copy);
+            }
+        }
+    }
+
+    /**
+     * Record Modbus readings after they were saved
+     */
+    public void onReadings(List<ModbusReading> readings) {
+        if (!enabled) {
+            return;
+        }
+        for (ModbusReading reading : readings) {
+            if (reading.getConnection() == null || reading.getReadAt() == null) {
+                continue;
+            }
+            Long connectionId = reading.getConnection().getId();
+            put(RegisterValue.of(connectionId, reading));
+        }
+    }
+
+    public DataRecord getLatest(String sourceId) {
+        return bySource.get(sourceId);
+    }
+
+    public Map<String, DataRecord> getSourceSnapshot() {
+        return new TreeMap<>(bySource);
+    }
+
+    public RegisterValue getLatest(long connectionId, int register, String registerType) {
+        Map<Integer, RegisterValue> registers = byConnection.get(connectionId);
+        return registers == null ? null : registers.get(registerKey(register, registerType));
+    }
+
+    /**
+     * @return Latest value of every register of a connection, ordered by type and address
+     */
+    public List<RegisterValue> getRegisters(long connectionId) {
+        Map<Integer, RegisterValue> registers = byConnection.get(connectionId);
+        if (registers == null) {
+            return List.of();
+        }
+        List<RegisterValue> values = new ArrayList<>(registers.values());
+        values.sort(Comparator.comparing(RegisterValue::getRegisterType).thenComparingInt(RegisterValue::getRegister));
+        return values;
+    }
+
+    public void evictConnection(long connectionId) {
+        byConnection.remove(connectionId);
+    }
+
+    /**
+     * @return The newest records, or null if the ring cannot answer a request of this size
+     */
+    public List<DataRecord> getRecent(int limit) {
+        if (!isAuthoritative() || limit > recent.capacity()) {
+            return null;
+        }
+        return recent.newest(limit);
+    }
+
+    /**
+     * Load the newest values from the database. Called at startup and after bulk deletes.
+     */
+    @PostConstruct
+    public synchronized void warm() {
+        if (!enabled) {
+            return;
+        }
+        warmed = false;
+        try {
+            Map<String, DataRecord> sources = loadSourceSnapshot();
+            // Merge rather than replace, so values ingested while warming are kept
+            bySource.keySet().retainAll(sources.keySet());
+            sources.values().forEach(this::putSource);
+
+            List<DataRecord> newest = jdbcTemplate.query(
+                "SELECT " + RECORD_COLUMNS + " FROM data_records " +
+                "ORDER BY timestamp DESC, id DESC LIMIT ?",
+                (rs, rowNum) -> mapRecord(rs),
+                recent.capacity());
+            recent.clear();
+            newest.forEach(recent::add);
+
+            byConnection.clear();
+            jdbcTemplate.query(
+                "SELECT DISTINCT ON (connection_id, register, register_type) " + REGISTER_COLUMNS +
+                " FROM modbus_readings WHERE read_at >= ? " +
+                "ORDER BY connection_id, register, register_type, read_at DESC",
+                rs -> {
+                    put(mapRegister(rs));
+                },
+                warmSince());
+            warmed = true;
+            logger.info("Latest-value cache warmed: {} sources, {} Modbus connections", bySource.size(), byConnection.size());
+        } catch (Exception e) {
+            logger.warn("Warming latest-value cache failed, reads fall back to the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Newest record of every source that stored data within the warm-up window, read from the
+     * database
+     */
+    public Map<String, DataRecord> loadSourceSnapshot() {
+        Map<String, DataRecord> sources = new TreeMap<>();
+        jdbcTemplate.query(
+            "SELECT DISTINCT ON (source_id) " + RECORD_COLUMNS + " FROM data_records " +
+            "WHERE timestamp >= ? AND data_type <> 'diagnostic' ORDER BY source_id, timestamp DESC, id DESC",
+            rs -> {
+                DataRecord record = mapRecord(rs);
+                sources.put(record.getSourceId(), record);
+            },
+            warmSince());
+        return sources;
+    }
+
+    public DataRecord loadLatest(String sourceId) {
+        List<DataRecord> rows = jdbcTemplate.query(
+            "SELECT " + RECORD_COLUMNS + " FROM data_records WHERE source_id = ? AND data_type <> 'diagnostic' " +
+            "ORDER BY timestamp DESC, id DESC LIMIT 1",
+            (rs, rowNum) -> mapRecord(rs),
+            sourceId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public List<RegisterValue> loadRegisters(long connectionId) {
+        return jdbcTemplate.query(
+            "SELECT DISTINCT ON (register_type, register) " + REGISTER_COLUMNS + " FROM modbus_readings " +
+            "WHERE connection_id = ? AND read_at >= ? ORDER BY register_type, register, read_at DESC",
+            (rs, rowNum) -> mapRegister(rs),
+            connectionId, warmSince());
+    }
+
+    public RegisterValue loadLatest(long connectionId, int register, String registerType) {
+        List<RegisterValue> rows = jdbcTemplate.query(
+            "SELECT " + REGISTER_COLUMNS + " FROM modbus_readings " +
+            "WHERE connection_id = ? AND register = ? AND register_type = ? ORDER BY read_at DESC LIMIT 1",
+            (rs, rowNum) -> mapRegister(rs),
+            connectionId, register, registerType);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Timestamp warmSince() {
+        return Timestamp.valueOf(LocalDateTime.now().minusHours(warmHours));
+    }
+
+    private void putSource(DataRecord record) {
+        bySource.merge(record.getSourceId(), record,
+            (current, next) -> next.getTimestamp().isBefore(current.getTimestamp()) ? current : next);
+    }
+
+    private void put(RegisterValue value) {
+        byConnection.computeIfAbsent(value.getConnectionId(), id -> new ConcurrentHashMap<>())
+            .merge(registerKey(value.getRegister(), value.getRegisterType()), value,
+                (current, next) -> next.getReadAt().isBefore(current.getReadAt()) ? current : next);
+    }
+
+    /**
+     * Register address in the low 16 bits, an interned register type code above it
+     */
+    private int registerKey(int register, String registerType) {
+        int type = registerTypeCodes.computeIfAbsent(registerType == null ? "" : registerType,
+            t -> nextTypeCode.getAndIncrement());
+        return type << 16 | (register & 0xFFFF);
+    }
+
+    private static RegisterValue mapRegister(ResultSet rs) throws SQLException {
+        return new RegisterValue(rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getInt(4),
+            rs.getString(5), rs.getTimestamp(6).toLocalDateTime());
+    }
+
+    private static DataRecord mapRecord(ResultSet rs) throws SQLException {
+        DataRecord record = new DataRecord();
+        record.setId(rs.getLong(1));
+        record.setSourceId(rs.getString(2));
+        record.setDataType(rs.getString(3));
+        record.setContent(rs.getString(4));
+        record.setTimestamp(rs.getTimestamp(5).toLocalDateTime());
+        record.setCreatedAt(null);
+        record.setUpdatedAt(null);
+        return record;
+    }
+
+    /**
+     * Copy without the storage association, so cached records hold no JPA state
+     */
+    private static DataRecord detach(DataRecord record) {
+        DataRecord copy = new DataRecord();
+        copy.setId(record.getId());
+        copy.setSourceId(record.getSourceId());
+        copy.setDataType(record.getDataType());
+        copy.setContent(record.getContent());
+        copy.setTimestamp(record.getTimestamp());
+        copy.setStatus(record.getStatus());
+        copy.setCreatedAt(record.getCreatedAt());
+        copy.setUpdatedAt(record.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,53 @@
+package com.quill.backend.service.latest;
+
+import com.quill.backend.model.DataRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The newest records by (timestamp, id), bounded to a fixed capacity. Records are not always
+ * stored in timestamp order (window aggregates and Sparkplug metrics keep their own time), so a
+ * record older than everything held is dropped rather than displacing a newer one.
+ */
+final class RecentRecords {
+    private static final Comparator<DataRecord> NEWEST_FIRST = Comparator
+        .comparing(DataRecord::getTimestamp).thenComparing(DataRecord::getId).reversed();
+
+    private final int capacity;
+    private final TreeSet<DataRecord> records = new TreeSet<>(NEWEST_FIRST);
+
+    RecentRecords(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    synchronized void add(DataRecord record) {
+        records.add(record);
+        if (records.size() > capacity) {
+            records.pollLast();
+        }
+    }
+
+    synchronized void clear() {
+        records.clear();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Up to limit records, newest first
+     */
+    synchronized List<DataRecord> newest(int limit) {
+        List<DataRecord> result = new ArrayList<>(Math.min(limit, records.size()));
+        Iterator<DataRecord> iterator = records.iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+}
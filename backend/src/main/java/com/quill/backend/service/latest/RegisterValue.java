@@ -0,0 +1,40 @@
+package com.quill.backend.service.latest;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.quill.backend.model.ModbusReading;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest reading of one Modbus register, detached from the JPA entity
+ */
+public final class RegisterValue {
+    private final long connectionId;
+    private final int register;
+    private final String registerType;
+    private final int value;
+    private final String quality;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime readAt;
+
+    RegisterValue(long connectionId, int register, String registerType, int value, String quality, LocalDateTime readAt) {
+        this.connectionId = connectionId;
+        this.register = register;
+        this.registerType = registerType;
+        this.value = value;
+        this.quality = quality;
+        this.readAt = readAt;
+    }
+
+    static RegisterValue of(long connectionId, ModbusReading reading) {
+        return new RegisterValue(connectionId, reading.getRegister(), reading.getRegisterType(),
+            reading.getValue(), reading.getQuality(), reading.getReadAt());
+    }
+
+    public long getConnectionId() { return connectionId; }
+    public int getRegister() { return register; }
+    public String getRegisterType() { return registerType; }
+    public int getValue() { return value; }
+    public String getQuality() { return quality; }
+    public LocalDateTime getReadAt() { return readAt; }
+}
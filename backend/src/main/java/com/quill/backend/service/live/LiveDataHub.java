@@ -0,0 +1,229 @@
+package com.quill.backend.service.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.IngestListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes newly stored records to WebSocket subscribers ({@code /ws/data}).
+ *
+ * Fed by the ingest path after each batch is stored, so live dashboards need no database reads.
+ * Matching records are conflated per subscription (newest record per source) and flushed by a
+ * single sender thread no faster than the subscription's rate. Sessions are wrapped in a
+ * {@link ConcurrentWebSocketSessionDecorator}; a client that stops reading is disconnected once
+ * its send buffer or send time limit is exceeded, instead of holding up the others.
+ *
+ * With clustering enabled only records stored by this node are pushed.
+ */
+@Service
+public class LiveDataHub implements IngestListener {
+    private static final Logger logger = LoggerFactory.getLogger(LiveDataHub.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final double maxRate;
+    private final int maxSubscriptions;
+    private final long tickMillis;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+    private ScheduledExecutorService sender;
+
+    public LiveDataHub(
+        @Value("${quill.live.max-rate:10}") double maxRate,
+        @Value("${quill.live.max-subscriptions-per-session:32}") int maxSubscriptions,
+        @Value("${quill.live.tick-ms:50}") long tickMillis,
+        @Value("${quill.live.send-time-limit-ms:5000}") int sendTimeLimitMillis,
+        @Value("${quill.live.buffer-size-limit:1048576}") int bufferSizeLimit
+    ) {
+        this.maxRate = maxRate > 0 ? maxRate : 10;
+        this.maxSubscriptions = maxSubscriptions;
+        this.tickMillis = Math.max(10, tickMillis);
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "live-data-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleWithFixedDelay(this::flush, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+    }
+
+    public void open(WebSocketSession session) {
+        clients.put(session.getId(), new Client(
+            new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, bufferSizeLimit)));
+    }
+
+    public void close(WebSocketSession session) {
+        clients.remove(session.getId());
+    }
+
+    /**
+     * Handle a client message: {@code {"action":"subscribe","id":...,"sourceId"|"dataType"|"pattern":...,"maxRate":...}}
+     * or {@code {"action":"unsubscribe","id":...}}
+     */
+    public void handle(WebSocketSession session, String payload) {
+        Client client = clients.get(session.getId());
+        if (client == null) {
+            return;
+        }
+        String subscriptionId = null;
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            String action = message.path("action").asText();
+            subscriptionId = message.path("id").asText(null);
+            if (subscriptionId == null || subscriptionId.isBlank()) {
+                throw new IllegalArgumentException("id is required");
+            }
+            switch (action) {
+                case "subscribe":
+                    subscribe(client, subscriptionId, message);
+                    send(client, status("subscribed", subscriptionId, null));
+                    break;
+                case "unsubscribe":
+                    client.subscriptions.remove(subscriptionId);
+                    send(client, status("unsubscribed", subscriptionId, null));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown action '" + action + "'");
+            }
+        } catch (Exception e) {
+            send(client, status("error", subscriptionId, e.getMessage()));
+        }
+    }
+
+    private void subscribe(Client client, String id, JsonNode message) {
+        String sourceId = text(message, "sourceId");
+        String dataType = text(message, "dataType");
+        String pattern = text(message, "pattern");
+        if (sourceId == null && dataType == null && pattern == null) {
+            throw new IllegalArgumentException("One of sourceId, dataType or pattern is required");
+        }
+        if (!client.subscriptions.containsKey(id) && client.subscriptions.size() >= maxSubscriptions) {
+            throw new IllegalArgumentException("At most " + maxSubscriptions + " subscriptions per session");
+        }
+        double rate = message.path("maxRate").asDouble(maxRate);
+        rate = rate > 0 ? Math.min(rate, maxRate) : maxRate;
+        client.subscriptions.put(id, new LiveSubscription(id, sourceId, dataType, pattern, rate));
+    }
+
+    @Override
+    public void onStored(List<DataRecord> records) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        for (Client client : clients.values()) {
+            for (LiveSubscription subscription : client.subscriptions.values()) {
+                for (DataRecord record : records) {
+                    if (subscription.matches(record)) {
+                        subscription.offer(record);
+                    }
+                }
+            }
+        }
+    }
+
+    void flush() {
+        long now = System.currentTimeMillis();
+        for (Client client : clients.values()) {
+            if (!client.session.isOpen()) {
+                clients.remove(client.session.getId());
+                continue;
+            }
+            for (LiveSubscription subscription : client.subscriptions.values()) {
+                LiveSubscription.Batch batch = subscription.drain(now);
+                if (batch != null) {
+                    send(client, data(subscription.id, batch));
+                }
+            }
+        }
+    }
+
+    private void send(Client client, ObjectNode message) {
+        try {
+            client.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (Exception e) {
+            // The decorator has given up on a slow or dead client
+            logger.warn("Dropping live data session {}: {}", client.session.getId(), e.getMessage());
+            clients.remove(client.session.getId());
+            try {
+                client.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (Exception ignored) {
+                // Already closed
+            }
+        }
+    }
+
+    private ObjectNode data(String subscriptionId, LiveSubscription.Batch batch) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", "data");
+        message.put("subscription", subscriptionId);
+        message.put("conflated", batch.conflated);
+        ArrayNode records = message.putArray("records");
+        for (DataRecord record : batch.records) {
+            ObjectNode node = records.addObject();
+            node.put("id", record.getId());
+            node.put("sourceId", record.getSourceId());
+            node.put("dataType", record.getDataType());
+            node.put("timestamp", record.getTimestamp() != null ? record.getTimestamp().toString() : null);
+            node.put("content", record.getContent());
+        }
+        return message;
+    }
+
+    private ObjectNode status(String type, String subscriptionId, String error) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", type);
+        if (subscriptionId != null) {
+            message.put("subscription", subscriptionId);
+        }
+        if (error != null) {
+            message.put("message", error);
+        }
+        return message;
+    }
+
+    private static String text(JsonNode message, String field) {
+        JsonNode value = message.get(field);
+        return value == null || value.isNull() || value.asText().isBlank() ? null : value.asText();
+    }
+
+    private static final class Client {
+        final WebSocketSession session;
+        final Map<String, LiveSubscription> subscriptions = new ConcurrentHashMap<>();
+
+        Client(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.quill.backend.service.live;
+
+import com.quill.backend.model.DataRecord;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One client subscription: which records it wants and the conflated records waiting to be sent.
+ * Pending records are keyed by source, so a source that updates faster than the subscription's
+ * rate only delivers its newest record.
+ */
+final class LiveSubscription {
+    final String id;
+    private final String sourceId;
+    private final String dataType;
+    private final Pattern sourcePattern;
+    private final long intervalMillis;
+
+    private final Map<String, DataRecord> pending = new LinkedHashMap<>();
+    private long conflated;
+    private long nextSendAt;
+
+    LiveSubscription(String id, String sourceId, String dataType, String pattern, double maxRate) {
+        this.id = id;
+        this.sourceId = sourceId;
+        this.dataType = dataType;
+        this.sourcePattern = pattern != null ? glob(pattern) : null;
+        this.intervalMillis = (long) Math.ceil(1000.0 / maxRate);
+    }
+
+    boolean matches(DataRecord record) {
+        return (sourceId == null || sourceId.equals(record.getSourceId()))
+            && (dataType == null || dataType.equals(record.getDataType()))
+            && (sourcePattern == null || (record.getSourceId() != null && sourcePattern.matcher(record.getSourceId()).matches()));
+    }
+
+    synchronized void offer(DataRecord record) {
+        if (pending.put(String.valueOf(record.getSourceId()), record) != null) {
+            conflated++;
+        }
+    }
+
+    /**
+     * @return The records to send now, or null if nothing is due
+     */
+    synchronized Batch drain(long now) {
+        if (pending.isEmpty() || now < nextSendAt) {
+            return null;
+        }
+        Batch batch = new Batch(new ArrayList<>(pending.values()), conflated);
+        pending.clear();
+        conflated = 0;
+        nextSendAt = now + intervalMillis;
+        return batch;
+    }
+
+    /**
+     * Glob over source ids: {@code *} matches any run of characters, {@code ?} one character
+     */
+    static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    static final class Batch {
+        final List<DataRecord> records;
+        final long conflated;
+
+        Batch(List<DataRecord> records, long conflated) {
+            this.records = records;
+            this.conflated = conflated;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.quill.backend.service.partition;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the time-partitioned tables ({@code data_records} by {@code timestamp},
+ * {@code modbus_readings} by {@code read_at}) supplied with partitions.
+ *
+ * Partitions cover one day or one ISO week ({@code quill.partitions.interval}) and are created
+ * {@code quill.partitions.premake} periods ahead, at startup and then periodically. Indexes are
+ * defined on the parent tables, so each new partition gets them automatically. Retention drops
+ * whole partitions instead of deleting rows.
+ *
+ * Rows that landed in the default partition for a range about to get its own partition are
+ * moved into the new partition as it is created.
+ *
+ * Tables that are not partitioned (e.g. on databases other than PostgreSQL) are left alone.
+ */
+@Service
+public class PartitionManager {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionManager.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /** Partitioned table name to partition key column */
+    private static final Map<String, String> TABLES = Map.of(
+        "data_records", "timestamp",
+        "modbus_readings", "read_at"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean weekly;
+    private final int premake;
+    private final long checkIntervalMillis;
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public PartitionManager(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        @Value("${quill.partitions.enabled:true}") boolean enabled,
+        @Value("${quill.partitions.interval:day}") String interval,
+        @Value("${quill.partitions.premake:7}") int premake,
+        @Value("${quill.partitions.check-interval-ms:3600000}") long checkIntervalMillis
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.weekly = "week".equalsIgnoreCase(interval.trim());
+        this.premake = Math.max(1, premake);
+        this.checkIntervalMillis = Math.max(60_000, checkIntervalMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // First pass before any connection starts, so new rows never land in the default partition
+        maintain();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "partition-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::maintain, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void maintain() {
+        for (String table : TABLES.keySet()) {
+            try {
+                if (isPartitioned(table)) {
+                    createAhead(table);
+                }
+            } catch (Exception e) {
+                logger.warn("Partition maintenance for {} failed: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    public boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+            "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace",
+            Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private synchronized void createAhead(String table) {
+        LocalDateTime cursor = null;
+        String defaultPartition = null;
+        for (TimePartition partition : listPartitions(table)) {
+            if (partition.isDefault) {
+                defaultPartition = partition.name;
+            }
+            if (partition.to != null && (cursor == null || partition.to.isAfter(cursor))) {
+                cursor = partition.to;
+            }
+        }
+        LocalDateTime today = periodStart(LocalDateTime.now());
+        if (cursor == null || cursor.isBefore(today)) {
+            cursor = today;
+        }
+        LocalDateTime horizon = today;
+        for (int i = 0; i < premake; i++) {
+            horizon = nextPeriod(horizon);
+        }
+        while (cursor.isBefore(horizon)) {
+            LocalDateTime next = nextPeriod(periodStart(cursor));
+            String name = table + "_p" + cursor.format(SUFFIX);
+            try {
+                createPartition(table, defaultPartition, name, cursor, next);
+            } catch (Exception e) {
+                // Later periods can still be created; rows of this one stay in the default partition
+                logger.warn("Creating partition {} [{}, {}) failed, skipping it: {}", name, cursor, next, e.getMessage());
+            }
+            cursor = next;
+        }
+    }
+
+    private void createPartition(String table, String defaultPartition, String name, LocalDateTime from, LocalDateTime to) {
+        String column = TABLES.get(table);
+        String range = String.format("FOR VALUES FROM ('%s') TO ('%s')", from, to);
+        boolean stray = defaultPartition != null && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + defaultPartition + " WHERE " + column + " >= ? AND " + column + " < ?)",
+            Boolean.class, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        if (!stray) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + table + " " + range);
+            logger.info("Created partition {} [{}, {})", name, from, to);
+            return;
+        }
+
+        // Creating a partition for a range the default partition holds rows for fails, so the rows
+        // move into a standalone table that is then attached. Inserts that would land in the default
+        // partition wait until the attach has committed, so no new row can slip into the range.
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + defaultPartition + " IN EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + table + " INCLUDING DEFAULTS)");
+            int count = jdbcTemplate.update(
+                "WITH moved AS (DELETE FROM " + defaultPartition + " WHERE " + column + " >= ? AND " + column + " < ? RETURNING *) "
+                    + "INSERT INTO " + name + " SELECT * FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + name + " " + range);
+            return count;
+        });
+        logger.info("Created partition {} [{}, {}) with {} rows moved from {}", name, from, to, moved, defaultPartition);
+    }
+
+    /**
+     * Drop every partition that lies entirely before the cutoff
+     * @return The number of partitions dropped
+     */
+    public synchronized int dropPartitionsBefore(String table, LocalDateTime cutoff) {
+        if (!TABLES.containsKey(table) || !isPartitioned(table)) {
+            return 0;
+        }
+        int dropped = 0;
+        for (TimePartition partition : listPartitions(table)) {
+            if (!partition.isDefault && partition.to != null && !partition.to.isAfter(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.name);
+                logger.info("Dropped partition {} (before {})", partition.name, partition.to);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public List<Map<String, Object>> getPartitions(String table) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (!TABLES.containsKey(table) || !isPartitioned(table)) {
+            return result;
+        }
+        for (TimePartition partition : listPartitions(table)) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("name", partition.name);
+            info.put("from", partition.from != null ? partition.from.toString() : null);
+            info.put("to", partition.to != null ? partition.to.toString() : null);
+            info.put("default", partition.isDefault);
+            result.add(info);
+        }
+        return result;
+    }
+
+    private List<TimePartition> listPartitions(String table) {
+        return jdbcTemplate.query(
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace",
+            (rs, rowNum) -> TimePartition.parse(rs.getString(1), rs.getString(2)),
+            table);
+    }
+
+    private LocalDateTime periodStart(LocalDateTime time) {
+        LocalDateTime day = time.toLocalDate().atStartOfDay();
+        return weekly ? day.with(DayOfWeek.MONDAY) : day;
+    }
+
+    private LocalDateTime nextPeriod(LocalDateTime periodStart) {
+        return weekly ? periodStart.plusWeeks(1) : periodStart.plusDays(1);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
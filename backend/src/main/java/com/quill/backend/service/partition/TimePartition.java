@@ -0,0 +1,57 @@
+package com.quill.backend.service.partition;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One partition of a range-partitioned table, parsed from {@code pg_get_expr(relpartbound)}
+ */
+final class TimePartition {
+    private static final Pattern RANGE = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+    private static final DateTimeFormatter BOUND = new DateTimeFormatterBuilder()
+        .appendPattern("yyyy-MM-dd HH:mm:ss")
+        .optionalStart()
+        .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+        .optionalEnd()
+        .toFormatter();
+
+    final String name;
+    /** Inclusive lower bound; null for MINVALUE or the default partition */
+    final LocalDateTime from;
+    /** Exclusive upper bound; null for MAXVALUE or the default partition */
+    final LocalDateTime to;
+    final boolean isDefault;
+
+    private TimePartition(String name, LocalDateTime from, LocalDateTime to, boolean isDefault) {
+        this.name = name;
+        this.from = from;
+        this.to = to;
+        this.isDefault = isDefault;
+    }
+
+    static TimePartition parse(String name, String bound) {
+        if (bound == null || bound.trim().equals("DEFAULT")) {
+            return new TimePartition(name, null, null, true);
+        }
+        Matcher matcher = RANGE.matcher(bound);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Unsupported partition bound: " + bound);
+        }
+        return new TimePartition(name, parseValue(matcher.group(1)), parseValue(matcher.group(2)), false);
+    }
+
+    private static LocalDateTime parseValue(String value) {
+        String trimmed = value.trim();
+        if (trimmed.equals("MINVALUE") || trimmed.equals("MAXVALUE")) {
+            return null;
+        }
+        if (trimmed.startsWith("'") && trimmed.endsWith("'")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+        return LocalDateTime.parse(trimmed, BOUND);
+    }
+}
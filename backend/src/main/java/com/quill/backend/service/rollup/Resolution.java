@@ -0,0 +1,35 @@
+package com.quill.backend.service.rollup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Rollup bucket sizes, finest first
+ */
+public enum Resolution {
+    MINUTE("1m", 60, ChronoUnit.MINUTES),
+    HOUR("1h", 3600, ChronoUnit.HOURS),
+    DAY("1d", 86400, ChronoUnit.DAYS);
+
+    private final String code;
+    private final long seconds;
+    private final ChronoUnit unit;
+
+    Resolution(String code, long seconds, ChronoUnit unit) {
+        this.code = code;
+        this.seconds = seconds;
+        this.unit = unit;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+}
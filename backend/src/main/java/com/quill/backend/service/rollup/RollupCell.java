@@ -0,0 +1,27 @@
+package com.quill.backend.service.rollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running count/min/max/sum/last of one series in one bucket, merged in memory before the batch
+ * is written
+ */
+final class RollupCell {
+    long count;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double sum;
+    double last;
+    LocalDateTime lastAt;
+
+    void add(double value, LocalDateTime at) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        if (lastAt == null || !at.isBefore(lastAt)) {
+            last = value;
+            lastAt = at;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.quill.backend.service.rollup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.model.ModbusReading;
+import com.quill.backend.service.IngestListener;
+import com.quill.backend.service.staging.PayloadFields;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Count/min/max/sum/last rollups of numeric payload fields (per source) and Modbus registers at
+ * 1 minute, 1 hour and 1 day resolution.
+ *
+ * Each stored batch is folded into per-bucket cells in memory and then upserted, so rollups are
+ * maintained incrementally and never recomputed from raw rows. Queries name a step; the planner
+ * reads the coarsest resolution that tiles that step, so a year at one-day steps reads 365 rows.
+ *
+ * Minute and hour rollups are purged after {@code quill.rollups.retention.*-days}; daily rollups
+ * are kept.
+ */
+@Service
+public class RollupService implements IngestListener {
+    private static final Logger logger = LoggerFactory.getLogger(RollupService.class);
+
+    private static final String FIELD_UPSERT =
+        "INSERT INTO field_rollups (source_id, field, resolution, bucket, count, min_value, max_value, sum_value, last_value, last_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (source_id, field, resolution, bucket) DO UPDATE SET " + mergeClause("field_rollups");
+
+    private static final String REGISTER_UPSERT =
+        "INSERT INTO register_rollups (connection_id, register, register_type, resolution, bucket, count, min_value, max_value, sum_value, last_value, last_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (connection_id, register, register_type, resolution, bucket) DO UPDATE SET " + mergeClause("register_rollups");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean enabled;
+    private final int maxFieldsPerSource;
+    private final int maxPoints;
+    private final Map<Resolution, Integer> retentionDays = new HashMap<>();
+    private final Map<String, Set<String>> fieldsBySource = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public RollupService(
+        JdbcTemplate jdbcTemplate,
+        @Value("${quill.rollups.enabled:true}") boolean enabled,
+        @Value("${quill.rollups.max-fields-per-source:64}") int maxFieldsPerSource,
+        @Value("${quill.rollups.max-points:2000}") int maxPoints,
+        @Value("${quill.rollups.retention.minute-days:30}") int minuteRetentionDays,
+        @Value("${quill.rollups.retention.hour-days:400}") int hourRetentionDays
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxFieldsPerSource = maxFieldsPerSource;
+        this.maxPoints = Math.max(1, maxPoints);
+        retentionDays.put(Resolution.MINUTE, minuteRetentionDays);
+        retentionDays.put(Resolution.HOUR, hourRetentionDays);
+    }
+
+    private static String mergeClause(String table) {
+        return "count = " + table + ".count + EXCLUDED.count, " +
+               "min_value = LEAST(" + table + ".min_value, EXCLUDED.min_value), " +
+               "max_value = GREATEST(" + table + ".max_value, EXCLUDED.max_value), " +
+               "sum_value = " + table + ".sum_value + EXCLUDED.sum_value, " +
+               "last_value = CASE WHEN EXCLUDED.last_at >= " + table + ".last_at THEN EXCLUDED.last_value ELSE " + table + ".last_value END, " +
+               "last_at = GREATEST(" + table + ".last_at, EXCLUDED.last_at)";
+    }
+
+    @Override
+    public void onStored(List<DataRecord> records) {
+        if (!enabled || records.isEmpty()) {
+            return;
+        }
+        Map<FieldKey, RollupCell> cells = new HashMap<>();
+        for (DataRecord record : records) {
+            if (record.getSourceId() == null || record.getContent() == null || record.getTimestamp() == null
+                || "diagnostic".equals(record.getDataType())) {
+                continue;
+            }
+            Map<String, JsonNode> fields;
+            try {
+                fields = PayloadFields.flatten(objectMapper.readTree(record.getContent()));
+            } catch (Exception e) {
+                continue;
+            }
+            Set<String> known = fieldsBySource.computeIfAbsent(record.getSourceId(), k -> ConcurrentHashMap.newKeySet());
+            for (Map.Entry<String, JsonNode> field : fields.entrySet()) {
+                JsonNode value = field.getValue();
+                if (!value.isNumber()) {
+                    continue;
+                }
+                // Bound the number of series a source with ever-changing keys can create
+                if (!known.contains(field.getKey())) {
+                    if (known.size() >= maxFieldsPerSource) {
+                        continue;
+                    }
+                    known.add(field.getKey());
+                }
+                for (Resolution resolution : Resolution.values()) {
+                    cells.computeIfAbsent(new FieldKey(record.getSourceId(), field.getKey(), resolution,
+                            resolution.bucketStart(record.getTimestamp())), k -> new RollupCell())
+                        .add(value.doubleValue(), record.getTimestamp());
+                }
+            }
+        }
+        if (cells.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(cells.size());
+        for (Map.Entry<FieldKey, RollupCell> entry : cells.entrySet()) {
+            FieldKey key = entry.getKey();
+            rows.add(row(new Object[] {key.sourceId, key.field, key.resolution.getCode(), Timestamp.valueOf(key.bucket)},
+                entry.getValue()));
+        }
+        try {
+            jdbcTemplate.batchUpdate(FIELD_UPSERT, sorted(rows, 4));
+        } catch (Exception e) {
+            logger.warn("Updating field rollups failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fold saved Modbus readings into the register rollups; readings with BAD quality are skipped
+     */
+    public void onReadings(List<ModbusReading> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        Map<RegisterKey, RollupCell> cells = new HashMap<>();
+        for (ModbusReading reading : readings) {
+            if (reading.getConnection() == null || reading.getReadAt() == null || reading.getValue() == null
+                || reading.getRegister() == null || reading.getRegisterType() == null || "BAD".equals(reading.getQuality())) {
+                continue;
+            }
+            for (Resolution resolution : Resolution.values()) {
+                cells.computeIfAbsent(new RegisterKey(reading.getConnection().getId(), reading.getRegister(),
+                        reading.getRegisterType(), resolution, resolution.bucketStart(reading.getReadAt())),
+                        k -> new RollupCell())
+                    .add(reading.getValue(), reading.getReadAt());
+            }
+        }
+        if (cells.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(cells.size());
+        for (Map.Entry<RegisterKey, RollupCell> entry : cells.entrySet()) {
+            RegisterKey key = entry.getKey();
+            rows.add(row(new Object[] {key.connectionId, key.register, key.registerType, key.resolution.getCode(),
+                Timestamp.valueOf(key.bucket)}, entry.getValue()));
+        }
+        try {
+            jdbcTemplate.batchUpdate(REGISTER_UPSERT, sorted(rows, 5));
+        } catch (Exception e) {
+            logger.warn("Updating register rollups failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Aggregates of one payload field over a time range
+     * @param stepSeconds Output bucket size; derived from the range if null
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> queryField(String sourceId, String field, LocalDateTime start, LocalDateTime end,
+                                          Long stepSeconds) {
+        return query("field_rollups", "source_id = ? AND field = ?", new Object[] {sourceId, field},
+            start, end, stepSeconds);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> queryRegister(Long connectionId, int register, String registerType,
+                                             LocalDateTime start, LocalDateTime end, Long stepSeconds) {
+        return query("register_rollups", "connection_id = ? AND register = ? AND register_type = ?",
+            new Object[] {connectionId, register, registerType}, start, end, stepSeconds);
+    }
+
+    private Map<String, Object> query(String table, String seriesFilter, Object[] seriesArgs,
+                                      LocalDateTime start, LocalDateTime end, Long requestedStep) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("endTime must be after startTime");
+        }
+        long rangeSeconds = Duration.between(start, end).getSeconds();
+        // Never more than maxPoints buckets, in whole buckets of the resolution that is read
+        long step = Math.max(requestedStep != null ? requestedStep : 60, (rangeSeconds + maxPoints - 1) / maxPoints);
+        Resolution resolution = resolutionFor(step, start);
+        long bucketSeconds = resolution.getSeconds();
+        step = (Math.max(step, bucketSeconds) + bucketSeconds - 1) / bucketSeconds * bucketSeconds;
+        LocalDateTime alignedStart = resolution.bucketStart(start);
+
+        String sql = "SELECT floor(extract(epoch FROM (bucket - ?::timestamp)) / ?) AS b, sum(count), min(min_value), " +
+                     "max(max_value), sum(sum_value), (array_agg(last_value ORDER BY last_at DESC))[1] " +
+                     "FROM " + table + " WHERE " + seriesFilter + " AND resolution = ? AND bucket >= ? AND bucket < ? " +
+                     "GROUP BY b ORDER BY b";
+        Object[] args = new Object[seriesArgs.length + 5];
+        args[0] = Timestamp.valueOf(alignedStart);
+        args[1] = step;
+        System.arraycopy(seriesArgs, 0, args, 2, seriesArgs.length);
+        args[seriesArgs.length + 2] = resolution.getCode();
+        args[seriesArgs.length + 3] = Timestamp.valueOf(alignedStart);
+        args[seriesArgs.length + 4] = Timestamp.valueOf(end);
+
+        final long stepSeconds = step;
+        List<Map<String, Object>> points = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> point = new LinkedHashMap<>();
+            long count = rs.getLong(2);
+            point.put("bucket", alignedStart.plusSeconds(rs.getLong(1) * stepSeconds).toString());
+            point.put("count", count);
+            point.put("min", rs.getDouble(3));
+            point.put("max", rs.getDouble(4));
+            point.put("avg", count > 0 ? rs.getDouble(5) / count : null);
+            point.put("last", rs.getDouble(6));
+            return point;
+        }, args);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resolution", resolution.getCode());
+        result.put("stepSeconds", step);
+        result.put("startTime", alignedStart.toString());
+        result.put("endTime", end.toString());
+        result.put("points", points);
+        return result;
+    }
+
+    /**
+     * The coarsest resolution no larger than the step whose rollups still cover the start of the
+     * range. When every such resolution has been purged there, the finest one that has not.
+     */
+    private Resolution resolutionFor(long step, LocalDateTime start) {
+        LocalDateTime now = LocalDateTime.now();
+        Resolution chosen = null;
+        for (Resolution resolution : Resolution.values()) {
+            Integer days = retentionDays.get(resolution);
+            if (days != null && start.isBefore(now.minusDays(days))) {
+                continue;
+            }
+            if (chosen == null || resolution.getSeconds() <= step) {
+                chosen = resolution;
+            }
+        }
+        // Daily rollups are never purged, so this only guards a retention set for every resolution
+        return chosen != null ? chosen : Resolution.DAY;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rollup-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::purge, 10, 60, TimeUnit.MINUTES);
+    }
+
+    void purge() {
+        for (Map.Entry<Resolution, Integer> entry : retentionDays.entrySet()) {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(entry.getValue()));
+            try {
+                int fields = jdbcTemplate.update(
+                    "DELETE FROM field_rollups WHERE resolution = ? AND bucket < ?", entry.getKey().getCode(), cutoff);
+                int registers = jdbcTemplate.update(
+                    "DELETE FROM register_rollups WHERE resolution = ? AND bucket < ?", entry.getKey().getCode(), cutoff);
+                if (fields + registers > 0) {
+                    logger.info("Purged {} {} rollups", fields + registers, entry.getKey().getCode());
+                }
+            } catch (Exception e) {
+                logger.warn("Purging {} rollups failed: {}", entry.getKey().getCode(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Object[] row(Object[] key, RollupCell cell) {
+        Object[] row = new Object[key.length + 6];
+        System.arraycopy(key, 0, row, 0, key.length);
+        row[key.length] = cell.count;
+        row[key.length + 1] = cell.min;
+        row[key.length + 2] = cell.max;
+        row[key.length + 3] = cell.sum;
+        row[key.length + 4] = cell.last;
+        row[key.length + 5] = Timestamp.valueOf(cell.lastAt);
+        return row;
+    }
+
+    /**
+     * Upsert rows in key order so concurrent batches lock rollup rows in the same order
+     */
+    private static List<Object[]> sorted(List<Object[]> rows, int keyColumns) {
+        rows.sort((a, b) -> {
+            for (int i = 0; i < keyColumns; i++) {
+                @SuppressWarnings("unchecked")
+                int c = ((Comparable<Object>) a[i]).compareTo(b[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        });
+        return rows;
+    }
+
+    private static final class FieldKey {
+        final String sourceId;
+        final String field;
+        final Resolution resolution;
+        final LocalDateTime bucket;
+
+        FieldKey(String sourceId, String field, Resolution resolution, LocalDateTime bucket) {
+            this.sourceId = sourceId;
+            this.field = field;
+            this.resolution = resolution;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FieldKey)) {
+                return false;
+            }
+            FieldKey other = (FieldKey) o;
+            return resolution == other.resolution && bucket.equals(other.bucket)
+                && field.equals(other.field) && sourceId.equals(other.sourceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceId, field, resolution, bucket);
+        }
+    }
+
+    private static final class RegisterKey {
+        final long connectionId;
+        final int register;
+        final String registerType;
+        final Resolution resolution;
+        final LocalDateTime bucket;
+
+        RegisterKey(long connectionId, int register, String registerType, Resolution resolution, LocalDateTime bucket) {
+            this.connectionId = connectionId;
+            this.register = register;
+            this.registerType = registerType;
+            this.resolution = resolution;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RegisterKey)) {
+                return false;
+            }
+            RegisterKey other = (RegisterKey) o;
+            return connectionId == other.connectionId && register == other.register && resolution == other.resolution
+                && bucket.equals(other.bucket) && Objects.equals(registerType, other.registerType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(connectionId, register, registerType, resolution, bucket);
+        }
+    }
+}
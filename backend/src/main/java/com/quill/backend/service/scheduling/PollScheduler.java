@@ -0,0 +1,293 @@
+package com.quill.backend.service.scheduling;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timer wheel for periodic data-source polling.
+ *
+ * A single timer thread advances the wheel every tick and hands due tasks to a worker pool,
+ * so blocking reads never delay other tasks. Scheduling and cancellation are O(1) regardless
+ * of how many tasks are registered; both are queued and applied by the timer thread.
+ * Each task has an owner so all of a connection's tasks can be cancelled together.
+ */
+@Component
+public class PollScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(PollScheduler.class);
+
+    static final class Bucket {
+        PollTask head;
+        PollTask tail;
+
+        void add(PollTask task) {
+            task.bucket = this;
+            task.prev = tail;
+            task.next = null;
+            if (tail == null) {
+                head = task;
+            } else {
+                tail.next = task;
+            }
+            tail = task;
+        }
+
+        void remove(PollTask task) {
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                head = task.next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            } else {
+                tail = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ExecutorService workers;
+    private final Thread timerThread;
+    private final Queue<PollTask> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<PollTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+    private final Map<String, Set<PollTask>> tasksByOwner = new ConcurrentHashMap<>();
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    public PollScheduler(
+        @Value("${quill.polling.tick-ms:10}") long tickMillis,
+        @Value("${quill.polling.wheel-size:512}") int wheelSize,
+        @Value("${quill.polling.worker-threads:16}") int workerThreads
+    ) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        int size = Integer.highestOneBit(Math.max(16, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+            Thread thread = new Thread(r, "poll-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.startNanos = System.nanoTime();
+        this.timerThread = new Thread(this::runTimer, "poll-timer");
+        this.timerThread.setDaemon(true);
+        this.timerThread.start();
+    }
+
+    /**
+     * Schedule a fixed-rate periodic task
+     * @param owner Owner key, e.g. "connection-42"
+     * @param initialDelayMillis Delay before the first run
+     * @param periodMillis Interval between runs
+     * @param action The work to run on a worker thread
+     * @return Handle used to cancel the task or read its statistics
+     */
+    public PollTask schedule(String owner, long initialDelayMillis, long periodMillis, Runnable action) {
+        if (!running) {
+            throw new IllegalStateException("Poll scheduler has been shut down");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialDelayMillis));
+        PollTask task = new PollTask(this, owner, action, deadline,
+            TimeUnit.MILLISECONDS.toNanos(Math.max(1, periodMillis)));
+        tasksByOwner.computeIfAbsent(owner, k -> ConcurrentHashMap.newKeySet()).add(task);
+        pendingTasks.add(task);
+        return task;
+    }
+
+    /**
+     * Cancel every task registered for an owner
+     * @return Number of tasks cancelled
+     */
+    public int cancelOwner(String owner) {
+        Set<PollTask> tasks = tasksByOwner.remove(owner);
+        if (tasks == null) {
+            return 0;
+        }
+        int cancelled = 0;
+        for (PollTask task : tasks) {
+            if (task.cancel()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * @return All live tasks for an owner
+     */
+    public List<PollTask> getTasks(String owner) {
+        Set<PollTask> tasks = tasksByOwner.get(owner);
+        return tasks == null ? List.of() : List.copyOf(tasks);
+    }
+
+    public int getTaskCount() {
+        return tasksByOwner.values().stream().mapToInt(Set::size).sum();
+    }
+
+    void onCancelled(PollTask task) {
+        Set<PollTask> tasks = tasksByOwner.get(task.getOwner());
+        if (tasks != null) {
+            tasks.remove(task);
+            if (tasks.isEmpty()) {
+                tasksByOwner.remove(task.getOwner(), tasks);
+            }
+        }
+        cancelledTasks.add(task);
+    }
+
+    private void runTimer() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            try {
+                processCancelled();
+                transferPending();
+                expire(wheel[(int) (tick & mask)], deadline);
+            } catch (Throwable t) {
+                logger.error("Poll timer tick failed: {}", t.getMessage(), t);
+            }
+            tick++;
+        }
+    }
+
+    private void processCancelled() {
+        PollTask task;
+        while ((task = cancelledTasks.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+            }
+        }
+    }
+
+    private void transferPending() {
+        // Bound the work per tick so a burst of registrations cannot stall the wheel
+        for (int i = 0; i < 100_000; i++) {
+            PollTask task = pendingTasks.poll();
+            if (task == null) {
+                return;
+            }
+            if (!task.isCancelled()) {
+                place(task, tick);
+            }
+        }
+    }
+
+    /**
+     * Link the task into the bucket for its deadline. {@code minTick} is the first tick whose
+     * bucket has not been processed yet; rounds are counted from there.
+     */
+    private void place(PollTask task, long minTick) {
+        long calculated = task.deadlineNanos / tickNanos;
+        task.remainingRounds = Math.max(0, (calculated - minTick) / wheel.length);
+        long target = Math.max(calculated, minTick);
+        wheel[(int) (target & mask)].add(task);
+    }
+
+    private void expire(Bucket bucket, long tickDeadline) {
+        List<PollTask> reschedule = null;
+        PollTask task = bucket.head;
+        while (task != null) {
+            PollTask next = task.next;
+            if (task.isCancelled()) {
+                bucket.remove(task);
+            } else if (task.remainingRounds <= 0) {
+                bucket.remove(task);
+                dispatch(task);
+                advance(task, tickDeadline);
+                if (reschedule == null) {
+                    reschedule = new ArrayList<>();
+                }
+                reschedule.add(task);
+            } else {
+                task.remainingRounds--;
+            }
+            task = next;
+        }
+        if (reschedule != null) {
+            for (PollTask due : reschedule) {
+                if (!due.isCancelled()) {
+                    place(due, tick + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the task to its next fixed-rate deadline, counting any periods missed while the timer lagged
+     */
+    private void advance(PollTask task, long tickDeadline) {
+        long period = task.getPeriodNanos();
+        long next = task.deadlineNanos + period;
+        if (next <= tickDeadline) {
+            long missed = (tickDeadline - next) / period + 1;
+            task.recordMissedTicks(missed);
+            next += missed * period;
+        }
+        task.deadlineNanos = next;
+    }
+
+    private void dispatch(PollTask task) {
+        if (!task.tryBegin()) {
+            return;
+        }
+        try {
+            workers.execute(task::execute);
+        } catch (RejectedExecutionException e) {
+            task.abort();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        timerThread.interrupt();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        tasksByOwner.clear();
+    }
+}
@@ -0,0 +1,127 @@
+package com.quill.backend.service.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handle for a periodic task registered with {@link PollScheduler}.
+ * Cancellation is O(1): the task is flagged and unlinked from its wheel bucket on the next tick.
+ */
+public class PollTask {
+    private static final Logger logger = LoggerFactory.getLogger(PollTask.class);
+
+    static final int STATE_ACTIVE = 0;
+    static final int STATE_CANCELLED = 1;
+
+    private final PollScheduler scheduler;
+    private final String owner;
+    private final Runnable action;
+    private final AtomicInteger state = new AtomicInteger(STATE_ACTIVE);
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile long periodNanos;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastDurationNanos;
+    private volatile long maxDurationNanos;
+
+    // Wheel bookkeeping, only touched by the timer thread
+    long deadlineNanos;
+    long remainingRounds;
+    PollTask prev;
+    PollTask next;
+    PollScheduler.Bucket bucket;
+
+    PollTask(PollScheduler scheduler, String owner, Runnable action, long deadlineNanos, long periodNanos) {
+        this.scheduler = scheduler;
+        this.owner = owner;
+        this.action = action;
+        this.deadlineNanos = deadlineNanos;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Cancel the task. A run already in progress is allowed to finish.
+     * @return true if this call cancelled the task, false if it was already cancelled
+     */
+    public boolean cancel() {
+        if (!state.compareAndSet(STATE_ACTIVE, STATE_CANCELLED)) {
+            return false;
+        }
+        scheduler.onCancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state.get() == STATE_CANCELLED;
+    }
+
+    /**
+     * Change the period; takes effect from the next scheduled run
+     */
+    public void setPeriodMillis(long periodMillis) {
+        this.periodNanos = Math.max(1, periodMillis) * 1_000_000L;
+    }
+
+    public long getPeriodMillis() {
+        return periodNanos / 1_000_000L;
+    }
+
+    long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Called by the timer thread when the task is due. Skips the run and records an overrun
+     * if the previous run has not finished yet, so a slow source never piles up work.
+     * @return false if the run was skipped
+     */
+    boolean tryBegin() {
+        if (!running.compareAndSet(false, true)) {
+            overruns.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void recordMissedTicks(long missed) {
+        overruns.addAndGet(missed);
+    }
+
+    void execute() {
+        long start = System.nanoTime();
+        try {
+            if (!isCancelled()) {
+                action.run();
+            }
+        } catch (Throwable t) {
+            failures.incrementAndGet();
+            logger.error("Poll task for {} failed: {}", owner, t.getMessage(), t);
+        } finally {
+            long duration = System.nanoTime() - start;
+            lastDurationNanos = duration;
+            if (duration > maxDurationNanos) {
+                maxDurationNanos = duration;
+            }
+            executions.incrementAndGet();
+            running.set(false);
+        }
+    }
+
+    void abort() {
+        running.set(false);
+    }
+
+    public String getOwner() { return owner; }
+    public long getExecutions() { return executions.get(); }
+    public long getOverruns() { return overruns.get(); }
+    public long getFailures() { return failures.get(); }
+    public boolean isRunning() { return running.get(); }
+    public double getLastDurationMillis() { return lastDurationNanos / 1_000_000.0; }
+    public double getMaxDurationMillis() { return maxDurationNanos / 1_000_000.0; }
+}
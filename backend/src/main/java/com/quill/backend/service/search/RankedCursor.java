@@ -0,0 +1,40 @@
+package com.quill.backend.service.search;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a ranked search: the (rank, timestamp, id) of the last record returned, encoded the
+ * same way as {@link com.quill.backend.service.DataCursor}
+ */
+final class RankedCursor {
+    static final RankedCursor FIRST = new RankedCursor(Float.MAX_VALUE, LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    final float rank;
+    final LocalDateTime timestamp;
+    final long id;
+
+    RankedCursor(float rank, LocalDateTime timestamp, long id) {
+        this.rank = rank;
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    static RankedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+            return new RankedCursor(Float.parseFloat(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String value = rank + "|" + timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package com.quill.backend.service.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for a content search. Every filter that is set must match; at least one of
+ * {@code text}, {@code match}, {@code path} or {@code substring} is required.
+ */
+public class SearchCriteria {
+    private String text;
+    private String match;
+    private String path;
+    private String substring;
+    private String sourceId;
+    private String dataType;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+
+    /** Full-text query (websearch syntax); results are ranked when set */
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    /** JSON document the payload must contain, e.g. {"status":"alarm"} */
+    public String getMatch() { return match; }
+    public void setMatch(String match) { this.match = match; }
+
+    /** SQL/JSON path predicate on the payload, e.g. $.temperature > 30 */
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    /** Case-insensitive substring of the raw payload */
+    public String getSubstring() { return substring; }
+    public void setSubstring(String substring) { this.substring = substring; }
+
+    public String getSourceId() { return sourceId; }
+    public void setSourceId(String sourceId) { this.sourceId = sourceId; }
+
+    public String getDataType() { return dataType; }
+    public void setDataType(String dataType) { this.dataType = dataType; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public boolean hasContentFilter() {
+        return isSet(text) || isSet(match) || isSet(path) || isSet(substring);
+    }
+
+    static boolean isSet(String value) {
+        return value != null && !value.isBlank();
+    }
+}
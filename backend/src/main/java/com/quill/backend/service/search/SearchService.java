@@ -0,0 +1,194 @@
+package com.quill.backend.service.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.dto.DataPage;
+import com.quill.backend.dto.DataRecordView;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.DataCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Indexed search over record payloads.
+ *
+ * Every filter is written to match an index from the search migration: {@code match} and
+ * {@code path} use the GIN index over {@code quill_try_jsonb(content)}, {@code text} the
+ * full-text index and {@code substring} the trigram index (when pg_trgm is installed).
+ *
+ * Full-text results are ranked with ts_rank_cd. Only the newest {@code quill.search.max-candidates}
+ * matches are ranked, so a common term costs the same as a rare one. Other searches are returned
+ * newest first. Both kinds are keyset-paginated.
+ */
+@Service
+public class SearchService {
+    private static final String COLUMNS = "id, source_id, data_type, content, timestamp, status, storage_id, created_at, updated_at";
+    private static final String TS_VECTOR = "to_tsvector('simple', coalesce(content, ''))";
+    private static final int MIN_SUBSTRING_LENGTH = 3;
+
+    private static final RowMapper<DataRecordView> RECORD_MAPPER = (rs, rowNum) -> {
+        String status = rs.getString("status");
+        Long storageId = rs.getObject("storage_id", Long.class);
+        return new DataRecordView(
+            rs.getLong("id"),
+            rs.getString("source_id"),
+            rs.getString("data_type"),
+            rs.getString("content"),
+            toLocal(rs.getTimestamp("timestamp")),
+            status != null ? DataRecord.DataStatus.valueOf(status) : null,
+            storageId,
+            toLocal(rs.getTimestamp("created_at")),
+            toLocal(rs.getTimestamp("updated_at")));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxCandidates;
+
+    @Autowired
+    public SearchService(
+        DataSource dataSource,
+        @Value("${quill.data.default-page-size:100}") int defaultPageSize,
+        @Value("${quill.data.max-page-size:1000}") int maxPageSize,
+        @Value("${quill.search.max-candidates:10000}") int maxCandidates,
+        @Value("${quill.search.timeout-seconds:5}") int timeoutSeconds
+    ) {
+        // A dedicated template so the timeout only applies to searches
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout(timeoutSeconds);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxCandidates = Math.max(1, maxCandidates);
+    }
+
+    @Transactional(readOnly = true)
+    public DataPage search(SearchCriteria criteria, String cursor, Integer limit) {
+        if (!criteria.hasContentFilter()) {
+            throw new IllegalArgumentException("One of query, match, path or contains is required");
+        }
+        int pageSize = limit == null || limit <= 0 ? Math.min(defaultPageSize, maxPageSize) : Math.min(limit, maxPageSize);
+
+        List<Object> args = new ArrayList<>();
+        String where = whereClause(criteria, args);
+        if (SearchCriteria.isSet(criteria.getText())) {
+            return ranked(criteria.getText(), where, args, RankedCursor.decode(cursor), pageSize);
+        }
+
+        DataCursor position = DataCursor.decode(cursor);
+        args.add(Timestamp.valueOf(position.getTimestamp()));
+        args.add(Timestamp.valueOf(position.getTimestamp()));
+        args.add(position.getId());
+        args.add(pageSize + 1);
+        List<DataRecordView> rows = jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM data_records WHERE " + where +
+            " AND (timestamp < ? OR (timestamp = ? AND id < ?)) ORDER BY timestamp DESC, id DESC LIMIT ?",
+            RECORD_MAPPER, args.toArray());
+        if (rows.size() <= pageSize) {
+            return new DataPage(rows, null);
+        }
+        List<DataRecordView> records = new ArrayList<>(rows.subList(0, pageSize));
+        return new DataPage(records, DataCursor.after(records.get(pageSize - 1)).encode());
+    }
+
+    private DataPage ranked(String text, String where, List<Object> args, RankedCursor position, int pageSize) {
+        List<Object> rankedArgs = new ArrayList<>();
+        rankedArgs.add(text);
+        rankedArgs.addAll(args);
+        rankedArgs.add(maxCandidates);
+        rankedArgs.add(position.rank);
+        rankedArgs.add(Timestamp.valueOf(position.timestamp));
+        rankedArgs.add(position.id);
+        rankedArgs.add(pageSize + 1);
+
+        String sql =
+            "SELECT * FROM (" +
+            "  SELECT " + COLUMNS + ", ts_rank_cd(" + TS_VECTOR + ", websearch_to_tsquery('simple', ?))::real AS rank" +
+            "  FROM (SELECT " + COLUMNS + " FROM data_records WHERE " + where +
+            "        ORDER BY timestamp DESC, id DESC LIMIT ?) candidates" +
+            ") ranked WHERE (rank, timestamp, id) < (?::real, ?, ?) " +
+            "ORDER BY rank DESC, timestamp DESC, id DESC LIMIT ?";
+
+        List<Float> ranks = new ArrayList<>();
+        List<DataRecordView> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            ranks.add(rs.getFloat("rank"));
+            return RECORD_MAPPER.mapRow(rs, rowNum);
+        }, rankedArgs.toArray());
+        if (rows.size() <= pageSize) {
+            return new DataPage(rows, null);
+        }
+        List<DataRecordView> records = new ArrayList<>(rows.subList(0, pageSize));
+        DataRecordView last = records.get(pageSize - 1);
+        return new DataPage(records,
+            new RankedCursor(ranks.get(pageSize - 1), last.getTimestamp(), last.getId()).encode());
+    }
+
+    private String whereClause(SearchCriteria criteria, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (SearchCriteria.isSet(criteria.getText())) {
+            conditions.add(TS_VECTOR + " @@ websearch_to_tsquery('simple', ?)");
+            args.add(criteria.getText());
+        }
+        if (SearchCriteria.isSet(criteria.getMatch())) {
+            JsonNode match;
+            try {
+                match = objectMapper.readTree(criteria.getMatch());
+            } catch (Exception e) {
+                throw new IllegalArgumentException("match must be a JSON document");
+            }
+            if (!match.isContainerNode()) {
+                throw new IllegalArgumentException("match must be a JSON object or array");
+            }
+            conditions.add("quill_try_jsonb(content) @> ?::jsonb");
+            args.add(match.toString());
+        }
+        if (SearchCriteria.isSet(criteria.getPath())) {
+            conditions.add("quill_try_jsonb(content) @@ ?::jsonpath");
+            args.add(criteria.getPath());
+        }
+        if (SearchCriteria.isSet(criteria.getSubstring())) {
+            if (criteria.getSubstring().length() < MIN_SUBSTRING_LENGTH) {
+                throw new IllegalArgumentException("contains needs at least " + MIN_SUBSTRING_LENGTH + " characters");
+            }
+            conditions.add("content ILIKE ?");
+            args.add("%" + escapeLike(criteria.getSubstring()) + "%");
+        }
+        if (SearchCriteria.isSet(criteria.getSourceId())) {
+            conditions.add("source_id = ?");
+            args.add(criteria.getSourceId());
+        }
+        if (SearchCriteria.isSet(criteria.getDataType())) {
+            conditions.add("data_type = ?");
+            args.add(criteria.getDataType());
+        }
+        // Time bounds also let the planner skip partitions
+        if (criteria.getStartTime() != null) {
+            conditions.add("timestamp >= ?");
+            args.add(Timestamp.valueOf(criteria.getStartTime()));
+        }
+        if (criteria.getEndTime() != null) {
+            conditions.add("timestamp < ?");
+            args.add(Timestamp.valueOf(criteria.getEndTime()));
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.quill.backend.service.staging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * SQL type of a staged column. Fields seen with more than one type are staged as TEXT.
+ */
+public enum ColumnType {
+    BOOLEAN("boolean"),
+    DOUBLE("double precision"),
+    TEXT("text");
+
+    private final String sqlType;
+
+    ColumnType(String sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    public String getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * @return The type a value would be staged as, or null for nulls and containers
+     */
+    static ColumnType of(JsonNode value) {
+        if (value == null || value.isNull() || value.isContainerNode()) {
+            return null;
+        }
+        if (value.isBoolean()) {
+            return BOOLEAN;
+        }
+        if (value.isNumber()) {
+            return DOUBLE;
+        }
+        return TEXT;
+    }
+
+    /**
+     * Convert a value for insertion into a column of this type
+     * @return The JDBC value, or null if the value does not fit the column
+     */
+    Object toSql(JsonNode value) {
+        switch (this) {
+            case BOOLEAN:
+                return value.isBoolean() ? value.booleanValue() : null;
+            case DOUBLE:
+                return value.isNumber() ? value.doubleValue() : null;
+            default:
+                return value.isValueNode() ? value.asText() : value.toString();
+        }
+    }
+}
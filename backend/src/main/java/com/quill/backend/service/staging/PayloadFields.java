@@ -0,0 +1,43 @@
+package com.quill.backend.service.staging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Flattens a JSON payload into dotted field paths ({@code payload.temp}). Arrays are skipped and
+ * objects nested deeper than {@link #MAX_DEPTH} levels are ignored.
+ */
+public final class PayloadFields {
+    public static final int MAX_DEPTH = 4;
+
+    private PayloadFields() {
+    }
+
+    public static Map<String, JsonNode> flatten(JsonNode payload) {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        flatten(payload, "", 0, fields);
+        return fields;
+    }
+
+    private static void flatten(JsonNode node, String prefix, int depth, Map<String, JsonNode> out) {
+        if (node == null || !node.isObject()) {
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            String name = prefix.isEmpty() ? entry.getKey() : prefix + "." + entry.getKey();
+            JsonNode value = entry.getValue();
+            if (value.isObject()) {
+                if (depth + 1 < MAX_DEPTH) {
+                    flatten(value, name, depth + 1, out);
+                }
+            } else if (!value.isArray()) {
+                out.put(name, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.quill.backend.service.staging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inferred schema of one source's payloads.
+ *
+ * A field becomes a column once it has appeared in {@code minSamples} payloads; its type is the
+ * one it was seen with, or TEXT if it was seen with several. Columns are only ever added, so the
+ * list returned by {@link #getColumns} can be used without locking.
+ */
+final class SourceSchema {
+    private final String sourceId;
+    private final String tableName;
+    private final int minSamples;
+    private final int maxColumns;
+
+    private volatile List<StagedColumn> columns = List.of();
+    private final Map<String, StagedColumn> byField = new HashMap<>();
+    private final Set<String> columnNames = new HashSet<>();
+    private final Map<String, Candidate> candidates = new LinkedHashMap<>();
+    // Columns handed out by observe whose DDL has not run yet, by field
+    private final Map<String, StagedColumn> pending = new HashMap<>();
+
+    private long conflicts;
+    private long droppedFields;
+
+    private static final class Candidate {
+        ColumnType type;
+        int samples;
+    }
+
+    SourceSchema(String sourceId, String tableName, int minSamples, int maxColumns) {
+        this.sourceId = sourceId;
+        this.tableName = tableName;
+        this.minSamples = Math.max(1, minSamples);
+        this.maxColumns = maxColumns;
+    }
+
+    String getSourceId() { return sourceId; }
+    String getTableName() { return tableName; }
+    List<StagedColumn> getColumns() { return columns; }
+
+    synchronized StagedColumn getColumn(String field) {
+        return byField.get(field);
+    }
+
+    synchronized void addColumn(StagedColumn column) {
+        pending.remove(column.getField());
+        if (byField.containsKey(column.getField())) {
+            return;
+        }
+        byField.put(column.getField(), column);
+        columnNames.add(column.getColumn());
+        candidates.remove(column.getField());
+        List<StagedColumn> next = new ArrayList<>(columns);
+        next.add(column);
+        columns = List.copyOf(next);
+    }
+
+    /**
+     * Forget a column whose DDL failed, so the field can become a candidate again
+     */
+    synchronized void abandon(StagedColumn column) {
+        pending.remove(column.getField(), column);
+    }
+
+    /**
+     * Record the fields of one payload
+     * @return Fields that just became stable and need a column; each is returned once until it is
+     * added or abandoned
+     */
+    synchronized List<StagedColumn> observe(Map<String, JsonNode> fields) {
+        List<StagedColumn> ready = null;
+        for (Map.Entry<String, JsonNode> entry : fields.entrySet()) {
+            ColumnType type = ColumnType.of(entry.getValue());
+            if (type == null) {
+                continue;
+            }
+            StagedColumn existing = byField.get(entry.getKey());
+            if (existing != null) {
+                if (existing.getType() != type && existing.getType() != ColumnType.TEXT) {
+                    conflicts++;
+                }
+                continue;
+            }
+            if (pending.containsKey(entry.getKey())) {
+                continue;
+            }
+            if (byField.size() + pending.size() >= maxColumns) {
+                droppedFields++;
+                continue;
+            }
+            Candidate candidate = candidates.get(entry.getKey());
+            if (candidate == null) {
+                // Bound the memory spent on keys that change with every payload
+                if (candidates.size() >= maxColumns * 4) {
+                    droppedFields++;
+                    continue;
+                }
+                candidate = new Candidate();
+                candidate.type = type;
+                candidates.put(entry.getKey(), candidate);
+            } else if (candidate.type != type) {
+                candidate.type = ColumnType.TEXT;
+            }
+            if (++candidate.samples >= minSamples) {
+                candidates.remove(entry.getKey());
+                if (ready == null) {
+                    ready = new ArrayList<>();
+                }
+                StagedColumn column = new StagedColumn(entry.getKey(), uniqueColumnName(entry.getKey()), candidate.type);
+                pending.put(column.getField(), column);
+                ready.add(column);
+            }
+        }
+        return ready == null ? List.of() : ready;
+    }
+
+    private String uniqueColumnName(String field) {
+        String base = "f_" + StagingService.sanitize(field, 50);
+        String name = base;
+        for (int i = 2; isTaken(name); i++) {
+            name = base + "_" + i;
+        }
+        return name;
+    }
+
+    private boolean isTaken(String name) {
+        if (columnNames.contains(name)) {
+            return true;
+        }
+        for (StagedColumn column : pending.values()) {
+            if (column.getColumn().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("sourceId", sourceId);
+        description.put("table", tableName);
+        List<Map<String, Object>> cols = new ArrayList<>();
+        for (StagedColumn column : columns) {
+            Map<String, Object> col = new LinkedHashMap<>();
+            col.put("field", column.getField());
+            col.put("column", column.getColumn());
+            col.put("type", column.getType().name());
+            cols.add(col);
+        }
+        description.put("columns", cols);
+        description.put("pendingFields", candidates.size());
+        description.put("pendingColumns", pending.size());
+        description.put("typeConflicts", conflicts);
+        description.put("droppedFields", droppedFields);
+        return description;
+    }
+}
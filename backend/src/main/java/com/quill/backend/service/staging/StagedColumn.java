@@ -0,0 +1,20 @@
+package com.quill.backend.service.staging;
+
+/**
+ * A payload field and the side-table column it is stored in
+ */
+public final class StagedColumn {
+    private final String field;
+    private final String column;
+    private final ColumnType type;
+
+    StagedColumn(String field, String column, ColumnType type) {
+        this.field = field;
+        this.column = column;
+        this.type = type;
+    }
+
+    public String getField() { return field; }
+    public String getColumn() { return column; }
+    public ColumnType getType() { return type; }
+}
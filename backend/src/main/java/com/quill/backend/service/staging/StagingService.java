@@ -0,0 +1,324 @@
+package com.quill.backend.service.staging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.IngestListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Typed, columnar copies of stored payloads.
+ *
+ * Each source gets a side table ({@code stg_<source>_<hash>}) with one column per stable payload
+ * field. Nested objects are flattened with dots ({@code payload.temp}). New fields are added as
+ * columns once they have been seen often enough; columns are never dropped or retyped, and values
+ * that do not fit a column's type are stored as NULL. Columns are added on a background thread, so
+ * the table lock {@code ALTER TABLE} takes is never held by an ingest batch; rows staged before the
+ * column exists have no value for it. The field-to-column mapping is kept in
+ * {@code staging_tables} and {@code staging_columns} so every node uses the same layout.
+ *
+ * Numeric queries can read these tables directly instead of parsing {@code data_records.content}.
+ */
+@Service
+public class StagingService implements IngestListener {
+    private static final Logger logger = LoggerFactory.getLogger(StagingService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean enabled;
+    private final int minSamples;
+    private final int maxColumns;
+    private final Map<String, SourceSchema> schemas = new ConcurrentHashMap<>();
+    private ExecutorService ddlExecutor;
+
+    @Autowired
+    public StagingService(
+        JdbcTemplate jdbcTemplate,
+        @Value("${quill.staging.enabled:true}") boolean enabled,
+        @Value("${quill.staging.min-samples:10}") int minSamples,
+        @Value("${quill.staging.max-columns:256}") int maxColumns
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.minSamples = minSamples;
+        this.maxColumns = maxColumns;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ddlExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "staging-ddl");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ddlExecutor != null) {
+            ddlExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onStored(List<DataRecord> records) {
+        if (!enabled || records.isEmpty()) {
+            return;
+        }
+        Map<String, List<DataRecord>> bySource = new LinkedHashMap<>();
+        for (DataRecord record : records) {
+            if (record.getSourceId() == null || record.getContent() == null
+                || "diagnostic".equals(record.getDataType())) {
+                continue;
+            }
+            bySource.computeIfAbsent(record.getSourceId(), k -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<String, List<DataRecord>> entry : bySource.entrySet()) {
+            try {
+                stage(schemaFor(entry.getKey()), entry.getValue());
+            } catch (Exception e) {
+                logger.warn("Staging {} records for {} failed: {}",
+                    entry.getValue().size(), entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void stage(SourceSchema schema, List<DataRecord> records) {
+        List<Map<String, JsonNode>> payloads = new ArrayList<>(records.size());
+        for (DataRecord record : records) {
+            Map<String, JsonNode> fields;
+            try {
+                fields = PayloadFields.flatten(objectMapper.readTree(record.getContent()));
+            } catch (Exception e) {
+                // Not JSON; the row is still staged with its key columns
+                fields = Map.of();
+            }
+            payloads.add(fields);
+            for (StagedColumn column : schema.observe(fields)) {
+                ddlExecutor.execute(() -> addColumn(schema, column));
+            }
+        }
+
+        List<StagedColumn> columns = schema.getColumns();
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(schema.getTableName())
+            .append(" (record_id, ts, data_type");
+        for (StagedColumn column : columns) {
+            sql.append(", ").append(column.getColumn());
+        }
+        sql.append(") VALUES (?, ?, ?").append(", ?".repeat(columns.size())).append(")");
+
+        List<Object[]> rows = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            DataRecord record = records.get(i);
+            Map<String, JsonNode> fields = payloads.get(i);
+            Object[] row = new Object[3 + columns.size()];
+            row[0] = record.getId();
+            row[1] = Timestamp.valueOf(record.getTimestamp() != null ? record.getTimestamp() : LocalDateTime.now());
+            row[2] = record.getDataType();
+            for (int c = 0; c < columns.size(); c++) {
+                StagedColumn column = columns.get(c);
+                JsonNode value = fields.get(column.getField());
+                row[3 + c] = value == null || value.isNull() ? null : column.getType().toSql(value);
+            }
+            rows.add(row);
+        }
+        jdbcTemplate.batchUpdate(sql.toString(), rows);
+    }
+
+    private SourceSchema schemaFor(String sourceId) {
+        SourceSchema schema = schemas.get(sourceId);
+        if (schema != null) {
+            return schema;
+        }
+        return schemas.computeIfAbsent(sourceId, this::loadOrCreate);
+    }
+
+    private SourceSchema loadOrCreate(String sourceId) {
+        // Read paths go through lookup(); the DDL below fails in a read-only transaction
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("Staging table for " + sourceId + " cannot be created in a read-only transaction");
+        }
+        String tableName = "stg_" + sanitize(sourceId, 40) + "_"
+            + String.format("%08x", sourceId.hashCode());
+        jdbcTemplate.update(
+            "INSERT INTO staging_tables (source_id, table_name) VALUES (?, ?) ON CONFLICT (source_id) DO NOTHING",
+            sourceId, tableName);
+        tableName = jdbcTemplate.queryForObject(
+            "SELECT table_name FROM staging_tables WHERE source_id = ?", String.class, sourceId);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName
+            + " (record_id BIGINT, ts TIMESTAMP NOT NULL, data_type VARCHAR(255))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + tableName + "_ts ON " + tableName + " (ts)");
+
+        SourceSchema schema = new SourceSchema(sourceId, tableName, minSamples, maxColumns);
+        loadColumns(schema);
+        logger.info("Staging source {} into {} ({} columns)", sourceId, tableName, schema.getColumns().size());
+        return schema;
+    }
+
+    private void loadColumns(SourceSchema schema) {
+        jdbcTemplate.query(
+            "SELECT field_path, column_name, column_type FROM staging_columns WHERE source_id = ? ORDER BY added_at, column_name",
+            rs -> {
+                schema.addColumn(new StagedColumn(rs.getString(1), rs.getString(2),
+                    ColumnType.valueOf(rs.getString(3))));
+            },
+            schema.getSourceId());
+    }
+
+    private void addColumn(SourceSchema schema, StagedColumn column) {
+        try {
+            // Add the column before registering it, so a registered column always exists
+            jdbcTemplate.execute("ALTER TABLE " + schema.getTableName() + " ADD COLUMN IF NOT EXISTS "
+                + column.getColumn() + " " + column.getType().getSqlType());
+            int inserted = jdbcTemplate.update(
+                "INSERT INTO staging_columns (source_id, field_path, column_name, column_type) VALUES (?, ?, ?, ?) "
+                    + "ON CONFLICT DO NOTHING",
+                schema.getSourceId(), column.getField(), column.getColumn(), column.getType().name());
+            if (inserted == 0) {
+                // Another node registered the field first; its column name and type win
+                loadColumns(schema);
+                return;
+            }
+            schema.addColumn(column);
+            logger.info("Added column {} ({}) to {} for field {}",
+                column.getColumn(), column.getType(), schema.getTableName(), column.getField());
+        } catch (Exception e) {
+            schema.abandon(column);
+            logger.warn("Adding column {} to {} failed: {}", column.getColumn(), schema.getTableName(), e.getMessage());
+        }
+    }
+
+    /**
+     * The schema of a source as far as it has been staged, for read paths: only SELECTs, so it
+     * also works in read-only transactions on a replica. The staging table is created on ingest.
+     * @return null if nothing has been staged for the source
+     */
+    private SourceSchema lookup(String sourceId) {
+        SourceSchema schema = schemas.get(sourceId);
+        if (schema != null) {
+            return schema;
+        }
+        List<String> tables = jdbcTemplate.queryForList(
+            "SELECT table_name FROM staging_tables WHERE source_id = ? AND to_regclass(table_name) IS NOT NULL",
+            String.class, sourceId);
+        if (tables.isEmpty()) {
+            return null;
+        }
+        SourceSchema loaded = new SourceSchema(sourceId, tables.get(0), minSamples, maxColumns);
+        loadColumns(loaded);
+        // The table exists, so ingest can use this schema as it is
+        schema = schemas.putIfAbsent(sourceId, loaded);
+        return schema != null ? schema : loaded;
+    }
+
+    /**
+     * @return The inferred schema of a source, or null if nothing has been staged for it
+     */
+    public Map<String, Object> getSchema(String sourceId) {
+        SourceSchema schema = lookup(sourceId);
+        return schema != null ? schema.describe() : null;
+    }
+
+    /**
+     * @return The staged columns of a source, in the order they were added; empty if nothing has
+     * been staged for it
+     */
+    public List<StagedColumn> getColumns(String sourceId) {
+        SourceSchema schema = lookup(sourceId);
+        return schema != null ? schema.getColumns() : List.of();
+    }
+
+    /**
+     * @return The column a field is staged in, or null if the source or field is not staged
+     */
+    public StagedColumn findColumn(String sourceId, String field) {
+        SourceSchema schema = lookup(sourceId);
+        return schema != null ? schema.getColumn(field) : null;
+    }
+
+    /**
+     * @return The staging table of a source, or null if nothing has been staged for it
+     */
+    public String getTableName(String sourceId) {
+        SourceSchema schema = lookup(sourceId);
+        return schema != null ? schema.getTableName() : null;
+    }
+
+    /**
+     * Read staged values without touching the JSON payloads
+     * @param fields Payload fields to return; all staged fields if empty
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> query(String sourceId, List<String> fields,
+                                           LocalDateTime start, LocalDateTime end, int limit) {
+        SourceSchema schema = lookup(sourceId);
+        if (schema == null) {
+            return List.of();
+        }
+        List<StagedColumn> selected = new ArrayList<>();
+        if (fields == null || fields.isEmpty()) {
+            selected.addAll(schema.getColumns());
+        } else {
+            for (String field : fields) {
+                StagedColumn column = schema.getColumn(field);
+                if (column == null) {
+                    throw new IllegalArgumentException("Field '" + field + "' is not staged for source " + sourceId);
+                }
+                selected.add(column);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT record_id, ts");
+        for (StagedColumn column : selected) {
+            sql.append(", ").append(column.getColumn());
+        }
+        sql.append(" FROM ").append(schema.getTableName()).append(" WHERE ts >= ? AND ts <= ? ORDER BY ts DESC LIMIT ?");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("recordId", rs.getObject(1));
+            row.put("timestamp", rs.getTimestamp(2).toLocalDateTime().toString());
+            for (int i = 0; i < selected.size(); i++) {
+                row.put(selected.get(i).getField(), rs.getObject(3 + i));
+            }
+            return row;
+        },
+            Timestamp.valueOf(start != null ? start : LocalDateTime.of(1970, 1, 1, 0, 0)),
+            Timestamp.valueOf(end != null ? end : LocalDateTime.now().plusYears(100)),
+            limit);
+    }
+
+    /**
+     * Lower-case identifier made of letters, digits and underscores
+     */
+    static String sanitize(String name, int maxLength) {
+        String cleaned = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_+|_+$", "");
+        if (cleaned.isEmpty()) {
+            cleaned = "x";
+        }
+        return cleaned.length() > maxLength ? cleaned.substring(0, maxLength) : cleaned;
+    }
+}
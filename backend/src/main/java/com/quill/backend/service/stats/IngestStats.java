@@ -0,0 +1,289 @@
+package com.quill.backend.service.stats;
+
+import com.quill.backend.model.DataRecord;
+import com.quill.backend.service.cluster.ConnectionLeaseManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Record counts for {@code /api/data/stats}, maintained on the ingest path instead of counted.
+ *
+ * Totals are a database baseline plus {@link LongAdder}s for records stored since; the rolling
+ * 24 hours come from a ring of per-minute counters. Everything is checkpointed to
+ * {@code ingest_stats} every {@code quill.stats.checkpoint-ms}. At startup the checkpoint is
+ * loaded and only records with a higher id than it are counted, so restarts stay cheap and correct.
+ *
+ * The database and the counters are split at a cut, not by record timestamp: each save to
+ * {@code data_records} holds {@link #storeLock()} until the record is counted, and a baseline or
+ * checkpoint briefly takes the other side. So every record is either committed before the cut
+ * and counted in the database, or counted here after it, never both or neither. Only that one
+ * insert waits for a cut; other storages and ingest listeners never hold the lock.
+ * Deletes are not tracked; {@link #rebaseline()} recounts after a cleanup.
+ *
+ * With clustering enabled other nodes store part of the data, so the counters are not used.
+ */
+@Service
+public class IngestStats {
+    private static final Logger logger = LoggerFactory.getLogger(IngestStats.class);
+    private static final int WINDOW_MINUTES = 24 * 60;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final boolean enabled;
+    private final long checkpointMillis;
+
+    private final LongAdder totalRecords = new LongAdder();
+    private final LongAdder errorRecords = new LongAdder();
+    private final LongAccumulator maxRecordId = new LongAccumulator(Math::max, 0);
+    private final ReentrantReadWriteLock cut = new ReentrantReadWriteLock();
+    private final MinuteCounts minutes = new MinuteCounts(WINDOW_MINUTES);
+    private volatile long baseTotal;
+    private volatile long baseErrors;
+    private volatile boolean ready;
+    private long lastCheckpointMinute = Long.MIN_VALUE;
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public IngestStats(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ConnectionLeaseManager leaseManager,
+        @Value("${quill.stats.enabled:true}") boolean enabled,
+        @Value("${quill.stats.checkpoint-ms:60000}") long checkpointMillis
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Counts run in one snapshot, taken while no store is in flight
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled && !leaseManager.isEnabled();
+        this.checkpointMillis = Math.max(1000, checkpointMillis);
+    }
+
+    /**
+     * Held (shared) around each save to {@code data_records} and its {@link #onSaved} call
+     */
+    public Lock storeLock() {
+        return cut.readLock();
+    }
+
+    /**
+     * Count a record just saved to {@code data_records}, under {@link #storeLock()}
+     */
+    public void onSaved(DataRecord record) {
+        if (!enabled || record.getId() == null || record.getTimestamp() == null) {
+            return;
+        }
+        totalRecords.increment();
+        maxRecordId.accumulate(record.getId());
+        if (record.getStatus() == DataRecord.DataStatus.ERROR) {
+            errorRecords.increment();
+        }
+        minutes.add(epochMinute(record.getTimestamp()), 1);
+    }
+
+    /**
+     * @return The counts, or null until they have been loaded (callers then count in the database)
+     */
+    public Map<String, Object> getStats() {
+        if (!enabled || !ready) {
+            return null;
+        }
+        long now = epochMinute(LocalDateTime.now());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalRecords", baseTotal + totalRecords.sum());
+        stats.put("recordsToday", minutes.sum(now - WINDOW_MINUTES, now));
+        stats.put("recordsWithErrors", baseErrors + errorRecords.sum());
+        return stats;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ingest-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::load);
+        executor.scheduleWithFixedDelay(this::checkpoint, checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Recount from the database in the background, e.g. after old records were deleted
+     */
+    public void rebaseline() {
+        if (executor != null) {
+            executor.execute(() -> baseline(null));
+        }
+    }
+
+    void load() {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT total_records, error_records, checkpoint_id FROM ingest_stats WHERE id = 1");
+            if (rows.isEmpty() || rows.get(0).get("checkpoint_id") == null) {
+                baseline(null);
+                return;
+            }
+            Map<String, Object> row = rows.get(0);
+            baseline(new long[] {((Number) row.get("total_records")).longValue(),
+                ((Number) row.get("error_records")).longValue(),
+                ((Number) row.get("checkpoint_id")).longValue()});
+        } catch (Exception e) {
+            logger.warn("Loading ingest stats failed, counting from scratch: {}", e.getMessage());
+            baseline(null);
+        }
+    }
+
+    /**
+     * Reset the counters to the database state as of now
+     * @param checkpoint Checkpointed totals, errors and highest record id, or null to count every record
+     */
+    private synchronized void baseline(long[] checkpoint) {
+        ready = false;
+        // The next checkpoint rewrites every minute of the window
+        lastCheckpointMinute = Long.MIN_VALUE;
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                LocalDateTime now = cutAndReset();
+                long afterId = checkpoint != null ? checkpoint[2] : Long.MIN_VALUE;
+                Map<String, Object> counts = jdbcTemplate.queryForMap(
+                    "SELECT count(*) AS total, count(*) FILTER (WHERE status = 'ERROR') AS errors, max(id) AS max_id " +
+                    "FROM data_records WHERE id > ?", afterId);
+                long total = ((Number) counts.get("total")).longValue();
+                long errors = ((Number) counts.get("errors")).longValue();
+                Object maxId = counts.get("max_id");
+                maxRecordId.accumulate(maxId != null ? ((Number) maxId).longValue() : Math.max(afterId, 0));
+
+                LocalDateTime windowStart = now.minusMinutes(WINDOW_MINUTES);
+                if (checkpoint != null) {
+                    total += checkpoint[0];
+                    errors += checkpoint[1];
+                    jdbcTemplate.query("SELECT minute, records FROM ingest_stats_minutes WHERE minute > ?",
+                        rs -> minutes.add(epochMinute(rs.getTimestamp(1).toLocalDateTime()), rs.getLong(2)),
+                        Timestamp.valueOf(windowStart));
+                }
+                jdbcTemplate.query(
+                    "SELECT date_trunc('minute', timestamp) AS minute, count(*) FROM data_records " +
+                    "WHERE id > ? AND timestamp > ? GROUP BY 1",
+                    rs -> minutes.add(epochMinute(rs.getTimestamp(1).toLocalDateTime()), rs.getLong(2)),
+                    afterId, Timestamp.valueOf(windowStart));
+                baseTotal = total;
+                baseErrors = errors;
+            });
+            ready = true;
+            logger.info("Ingest stats ready: {} records ({})", baseTotal,
+                checkpoint != null ? "from checkpoint" : "counted");
+        } catch (Exception e) {
+            logger.warn("Counting records for ingest stats failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start the transaction's snapshot and clear the counters at one cut, while no store is in flight
+     * @return The time of the cut
+     */
+    private LocalDateTime cutAndReset() {
+        cut.writeLock().lock();
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            totalRecords.reset();
+            errorRecords.reset();
+            maxRecordId.reset();
+            minutes.clear();
+            return LocalDateTime.now();
+        } finally {
+            cut.writeLock().unlock();
+        }
+    }
+
+    synchronized void checkpoint() {
+        if (!ready) {
+            return;
+        }
+        try {
+            long total;
+            long errors;
+            long checkpointId;
+            LocalDateTime checkpointAt;
+            List<Object[]> rows = new ArrayList<>();
+            // Totals, id and minutes from one cut: every record up to checkpointId is in them
+            cut.writeLock().lock();
+            try {
+                total = baseTotal + totalRecords.sum();
+                errors = baseErrors + errorRecords.sum();
+                checkpointId = maxRecordId.get();
+                checkpointAt = LocalDateTime.now();
+                long now = epochMinute(checkpointAt);
+                long from = Math.max(lastCheckpointMinute - 1, now - WINDOW_MINUTES + 1);
+                for (long minute = from; minute <= now; minute++) {
+                    long count = minutes.get(minute);
+                    if (count > 0) {
+                        rows.add(new Object[] {Timestamp.valueOf(fromEpochMinute(minute)), count});
+                    }
+                }
+            } finally {
+                cut.writeLock().unlock();
+            }
+            long now = epochMinute(checkpointAt);
+
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO ingest_stats_minutes (minute, records) VALUES (?, ?) " +
+                "ON CONFLICT (minute) DO UPDATE SET records = EXCLUDED.records", rows);
+            jdbcTemplate.update("DELETE FROM ingest_stats_minutes WHERE minute <= ?",
+                Timestamp.valueOf(fromEpochMinute(now - WINDOW_MINUTES)));
+            jdbcTemplate.update(
+                "INSERT INTO ingest_stats (id, total_records, error_records, checkpoint_at, checkpoint_id) " +
+                "VALUES (1, ?, ?, ?, ?) " +
+                "ON CONFLICT (id) DO UPDATE SET total_records = EXCLUDED.total_records, " +
+                "error_records = EXCLUDED.error_records, checkpoint_at = EXCLUDED.checkpoint_at, " +
+                "checkpoint_id = EXCLUDED.checkpoint_id",
+                total, errors, Timestamp.valueOf(checkpointAt), checkpointId);
+            lastCheckpointMinute = now;
+        } catch (Exception e) {
+            logger.warn("Checkpointing ingest stats failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            checkpoint();
+        }
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,74 @@
+package com.quill.backend.service.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ring of per-minute counters covering a fixed window. A slot is reused once the minute it held
+ * falls out of the window; counts for minutes already outside the window are dropped.
+ */
+final class MinuteCounts {
+    private final int slots;
+    private final LongAdder[] counts;
+    private final AtomicLongArray slotMinutes;
+
+    MinuteCounts(int slots) {
+        this.slots = slots;
+        this.counts = new LongAdder[slots];
+        this.slotMinutes = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            counts[i] = new LongAdder();
+            slotMinutes.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * @param minute Minutes since the epoch
+     */
+    void add(long minute, long n) {
+        int slot = (int) Math.floorMod(minute, (long) slots);
+        long held = slotMinutes.get(slot);
+        if (held != minute) {
+            if (held > minute) {
+                return;
+            }
+            synchronized (counts[slot]) {
+                if (slotMinutes.get(slot) < minute) {
+                    counts[slot].reset();
+                    slotMinutes.set(slot, minute);
+                } else if (slotMinutes.get(slot) > minute) {
+                    return;
+                }
+            }
+        }
+        counts[slot].add(n);
+    }
+
+    /**
+     * Sum of the minutes after {@code fromMinute} (exclusive) up to and including {@code toMinute}
+     */
+    long sum(long fromMinute, long toMinute) {
+        long total = 0;
+        for (int i = 0; i < slots; i++) {
+            long minute = slotMinutes.get(i);
+            if (minute > fromMinute && minute <= toMinute) {
+                total += counts[i].sum();
+            }
+        }
+        return total;
+    }
+
+    long get(long minute) {
+        int slot = (int) Math.floorMod(minute, (long) slots);
+        return slotMinutes.get(slot) == minute ? counts[slot].sum() : 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < slots; i++) {
+            synchronized (counts[i]) {
+                counts[i].reset();
+                slotMinutes.set(i, Long.MIN_VALUE);
+            }
+        }
+    }
+}
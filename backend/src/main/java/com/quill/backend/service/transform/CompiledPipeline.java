@@ -0,0 +1,36 @@
+package com.quill.backend.service.transform;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+
+/**
+ * A connection's transformation rules compiled into a fixed array of steps
+ */
+public final class CompiledPipeline {
+    private static final CompiledPipeline EMPTY = new CompiledPipeline(List.of());
+
+    private final TransformStep[] steps;
+
+    public CompiledPipeline(List<TransformStep> steps) {
+        this.steps = steps.toArray(new TransformStep[0]);
+    }
+
+    public static CompiledPipeline empty() {
+        return EMPTY;
+    }
+
+    public void apply(ObjectNode node) {
+        for (TransformStep step : steps) {
+            step.apply(node);
+        }
+    }
+
+    public boolean isEmpty() {
+        return steps.length == 0;
+    }
+
+    public int size() {
+        return steps.length;
+    }
+}
@@ -0,0 +1,95 @@
+package com.quill.backend.service.transform;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Pre-parsed reference to a field: either a top-level name or a JSON pointer such as
+ * {@code /payload/temperature}. Writes through a pointer require the parent object to exist.
+ */
+public final class FieldAccessor {
+    private final String name;
+    private final JsonPointer pointer;
+    private final JsonPointer parent;
+    private final String leaf;
+
+    private FieldAccessor(String name, JsonPointer pointer) {
+        this.name = name;
+        this.pointer = pointer;
+        if (pointer != null) {
+            this.parent = pointer.head();
+            this.leaf = pointer.last().getMatchingProperty();
+        } else {
+            this.parent = null;
+            this.leaf = name;
+        }
+    }
+
+    public static FieldAccessor compile(String ref) {
+        if (ref == null || ref.isEmpty()) {
+            throw new IllegalArgumentException("Field reference is required");
+        }
+        if (ref.startsWith("/")) {
+            JsonPointer pointer = JsonPointer.compile(ref);
+            // A single-segment pointer is just a top-level field
+            return pointer.tail() != null && pointer.tail().matches()
+                ? new FieldAccessor(pointer.getMatchingProperty(), null)
+                : new FieldAccessor(null, pointer);
+        }
+        return new FieldAccessor(ref, null);
+    }
+
+    public JsonNode get(ObjectNode node) {
+        if (pointer == null) {
+            return node.get(name);
+        }
+        JsonNode value = node.at(pointer);
+        return value.isMissingNode() ? null : value;
+    }
+
+    public void set(ObjectNode node, JsonNode value) {
+        ObjectNode target = container(node);
+        if (target != null) {
+            target.set(leaf, value);
+        }
+    }
+
+    public JsonNode remove(ObjectNode node) {
+        ObjectNode target = container(node);
+        return target != null ? target.remove(leaf) : null;
+    }
+
+    /**
+     * Read the field as a number, accepting numeric text and booleans
+     * @return The value, or NaN if the field is missing or not numeric
+     */
+    public double getDouble(ObjectNode node) {
+        JsonNode value = get(node);
+        if (value == null) {
+            return Double.NaN;
+        }
+        if (value.isNumber()) {
+            return value.doubleValue();
+        }
+        if (value.isBoolean()) {
+            return value.booleanValue() ? 1.0 : 0.0;
+        }
+        if (value.isTextual()) {
+            try {
+                return Double.parseDouble(value.textValue().trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private ObjectNode container(ObjectNode node) {
+        if (pointer == null) {
+            return node;
+        }
+        JsonNode target = parent == null || parent.matches() ? node : node.at(parent);
+        return target instanceof ObjectNode ? (ObjectNode) target : null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.quill.backend.service.transform;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * One compiled transformation rule. All configuration is bound when the step is built,
+ * so applying it only touches the record.
+ */
+@FunctionalInterface
+public interface TransformStep {
+    void apply(ObjectNode node);
+}
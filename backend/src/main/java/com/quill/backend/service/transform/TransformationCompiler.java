@@ -0,0 +1,216 @@
+package com.quill.backend.service.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiles the {@code transformations} array of a connection's configuration into a chain of
+ * {@link TransformStep}s. Supported operations:
+ * <ul>
+ *   <li>{@code extract} - copy {@code from} (name or JSON pointer) to {@code to}</li>
+ *   <li>{@code map} - build fields from a {@code fields} object of target to source pointer;
+ *       other fields are dropped unless {@code keepOthers} is true</li>
+ *   <li>{@code rename} - move {@code from} to {@code to}</li>
+ *   <li>{@code scale} - {@code field = field * factor + offset}</li>
+ *   <li>{@code convert} - unit conversion of {@code field} from {@code from} to {@code to}</li>
+ *   <li>{@code coerce} - convert {@code field} to {@code type}: string, long, double or boolean</li>
+ *   <li>{@code set} - set {@code field} to a constant {@code value}</li>
+ *   <li>{@code remove} - delete {@code field}</li>
+ * </ul>
+ */
+public final class TransformationCompiler {
+
+    private TransformationCompiler() {
+    }
+
+    public static List<TransformStep> compile(JsonNode rules) {
+        List<TransformStep> steps = new ArrayList<>();
+        if (rules == null || rules.isNull() || rules.isMissingNode()) {
+            return steps;
+        }
+        if (!rules.isArray()) {
+            throw new IllegalArgumentException("transformations must be an array");
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            try {
+                steps.add(compileRule(rules.get(i)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid transformation rule " + i + ": " + e.getMessage(), e);
+            }
+        }
+        return steps;
+    }
+
+    private static TransformStep compileRule(JsonNode rule) {
+        String op = required(rule, "op").toLowerCase(Locale.ROOT);
+        switch (op) {
+            case "extract":
+                return copy(FieldAccessor.compile(required(rule, "from")), FieldAccessor.compile(required(rule, "to")));
+            case "map":
+                return map(rule);
+            case "rename":
+                return rename(FieldAccessor.compile(required(rule, "from")), FieldAccessor.compile(required(rule, "to")));
+            case "scale":
+                return linear(FieldAccessor.compile(required(rule, "field")),
+                    rule.path("factor").asDouble(1.0), rule.path("offset").asDouble(0.0));
+            case "convert": {
+                UnitConversion conversion = UnitConversion.between(required(rule, "from"), required(rule, "to"));
+                return linear(FieldAccessor.compile(required(rule, "field")), conversion.factor, conversion.offset);
+            }
+            case "coerce":
+                return coerce(FieldAccessor.compile(required(rule, "field")), required(rule, "type"));
+            case "set": {
+                FieldAccessor field = FieldAccessor.compile(required(rule, "field"));
+                JsonNode value = rule.get("value");
+                if (value == null) {
+                    throw new IllegalArgumentException("'value' is required");
+                }
+                return node -> field.set(node, value.deepCopy());
+            }
+            case "remove": {
+                FieldAccessor field = FieldAccessor.compile(required(rule, "field"));
+                return field::remove;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation '" + op + "'");
+        }
+    }
+
+    private static TransformStep copy(FieldAccessor from, FieldAccessor to) {
+        return node -> {
+            JsonNode value = from.get(node);
+            if (value != null) {
+                to.set(node, value);
+            }
+        };
+    }
+
+    private static TransformStep map(JsonNode rule) {
+        JsonNode fields = rule.get("fields");
+        if (fields == null || !fields.isObject()) {
+            throw new IllegalArgumentException("'fields' must be an object");
+        }
+        List<String> targets = new ArrayList<>();
+        List<FieldAccessor> sources = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> it = fields.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            targets.add(entry.getKey());
+            sources.add(FieldAccessor.compile(entry.getValue().asText()));
+        }
+        String[] targetNames = targets.toArray(new String[0]);
+        FieldAccessor[] sourceFields = sources.toArray(new FieldAccessor[0]);
+        boolean keepOthers = rule.path("keepOthers").asBoolean(false);
+
+        return node -> {
+            JsonNode[] values = new JsonNode[sourceFields.length];
+            for (int i = 0; i < sourceFields.length; i++) {
+                values[i] = sourceFields[i].get(node);
+            }
+            if (!keepOthers) {
+                node.removeAll();
+            }
+            for (int i = 0; i < targetNames.length; i++) {
+                if (values[i] != null) {
+                    node.set(targetNames[i], values[i]);
+                }
+            }
+        };
+    }
+
+    private static TransformStep rename(FieldAccessor from, FieldAccessor to) {
+        return node -> {
+            JsonNode value = from.remove(node);
+            if (value != null) {
+                to.set(node, value);
+            }
+        };
+    }
+
+    private static TransformStep linear(FieldAccessor field, double factor, double offset) {
+        return node -> {
+            JsonNode value = field.get(node);
+            if (value == null) {
+                return;
+            }
+            double number;
+            if (value.isNumber()) {
+                number = value.doubleValue();
+            } else if (value.isTextual()) {
+                try {
+                    number = Double.parseDouble(value.textValue());
+                } catch (NumberFormatException e) {
+                    return;
+                }
+            } else {
+                return;
+            }
+            field.set(node, DoubleNode.valueOf(number * factor + offset));
+        };
+    }
+
+    private static TransformStep coerce(FieldAccessor field, String type) {
+        Function<JsonNode, JsonNode> converter;
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "string":
+                converter = v -> v.isTextual() ? v : TextNode.valueOf(v.asText());
+                break;
+            case "long":
+            case "int":
+            case "integer":
+                converter = v -> v.isIntegralNumber() ? v : LongNode.valueOf(
+                    v.isNumber() ? v.longValue() : (long) Double.parseDouble(v.asText().trim()));
+                break;
+            case "double":
+            case "float":
+            case "number":
+                converter = v -> v.isDouble() ? v : DoubleNode.valueOf(
+                    v.isNumber() ? v.doubleValue() : Double.parseDouble(v.asText().trim()));
+                break;
+            case "boolean":
+                converter = v -> {
+                    if (v.isBoolean()) {
+                        return v;
+                    }
+                    if (v.isNumber()) {
+                        return BooleanNode.valueOf(v.doubleValue() != 0);
+                    }
+                    String text = v.asText().trim();
+                    return BooleanNode.valueOf(text.equalsIgnoreCase("true") || text.equals("1")
+                        || text.equalsIgnoreCase("on"));
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown coercion type '" + type + "'");
+        }
+        return node -> {
+            JsonNode value = field.get(node);
+            if (value == null || value.isNull()) {
+                return;
+            }
+            try {
+                field.set(node, converter.apply(value));
+            } catch (NumberFormatException e) {
+                // Leave values that cannot be converted untouched
+            }
+        };
+    }
+
+    private static String required(JsonNode rule, String key) {
+        JsonNode value = rule.get(key);
+        if (value == null || value.isNull() || value.asText().isEmpty()) {
+            throw new IllegalArgumentException("'" + key + "' is required");
+        }
+        return value.asText();
+    }
+}
@@ -0,0 +1,101 @@
+package com.quill.backend.service.transform;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Linear unit conversions ({@code out = in * factor + offset}). Each unit is defined relative to
+ * the SI unit of its dimension; a conversion between two units is folded into a single factor and
+ * offset when the rule is compiled.
+ */
+final class UnitConversion {
+    private static final class Unit {
+        final String dimension;
+        final double factor;
+        final double offset;
+
+        Unit(String dimension, double factor, double offset) {
+            this.dimension = dimension;
+            this.factor = factor;
+            this.offset = offset;
+        }
+    }
+
+    private static final Map<String, Unit> UNITS = new HashMap<>();
+
+    static {
+        // Temperature, relative to kelvin
+        define("temperature", 1.0, 0.0, "k", "kelvin");
+        define("temperature", 1.0, 273.15, "c", "degc", "celsius");
+        define("temperature", 5.0 / 9.0, 459.67 * 5.0 / 9.0, "f", "degf", "fahrenheit");
+        // Pressure, relative to pascal
+        define("pressure", 1.0, 0.0, "pa");
+        define("pressure", 1e3, 0.0, "kpa");
+        define("pressure", 1e6, 0.0, "mpa");
+        define("pressure", 1e5, 0.0, "bar");
+        define("pressure", 1e2, 0.0, "mbar", "hpa");
+        define("pressure", 6894.757293168, 0.0, "psi");
+        // Length, relative to metre
+        define("length", 1.0, 0.0, "m");
+        define("length", 1e-3, 0.0, "mm");
+        define("length", 1e-2, 0.0, "cm");
+        define("length", 1e3, 0.0, "km");
+        define("length", 0.0254, 0.0, "in");
+        define("length", 0.3048, 0.0, "ft");
+        // Volume flow, relative to cubic metres per second
+        define("flow", 1.0, 0.0, "m3/s");
+        define("flow", 1.0 / 3600.0, 0.0, "m3/h");
+        define("flow", 1e-3 / 60.0, 0.0, "l/min");
+        define("flow", 3.785411784e-3 / 60.0, 0.0, "gpm");
+        // Power, relative to watt
+        define("power", 1.0, 0.0, "w");
+        define("power", 1e3, 0.0, "kw");
+        define("power", 1e6, 0.0, "mw");
+        define("power", 745.69987158, 0.0, "hp");
+        // Energy, relative to joule
+        define("energy", 1.0, 0.0, "j");
+        define("energy", 1e3, 0.0, "kj");
+        define("energy", 3600.0, 0.0, "wh");
+        define("energy", 3.6e6, 0.0, "kwh");
+        define("energy", 3.6e9, 0.0, "mwh");
+        // Speed, relative to metres per second
+        define("speed", 1.0, 0.0, "m/s");
+        define("speed", 1.0 / 3.6, 0.0, "km/h");
+        define("speed", 0.44704, 0.0, "mph");
+    }
+
+    final double factor;
+    final double offset;
+
+    private UnitConversion(double factor, double offset) {
+        this.factor = factor;
+        this.offset = offset;
+    }
+
+    static UnitConversion between(String from, String to) {
+        Unit source = lookup(from);
+        Unit target = lookup(to);
+        if (!source.dimension.equals(target.dimension)) {
+            throw new IllegalArgumentException("Cannot convert " + from + " (" + source.dimension + ") to "
+                + to + " (" + target.dimension + ")");
+        }
+        // si = in * sf + so; out = (si - to) / tf
+        return new UnitConversion(source.factor / target.factor, (source.offset - target.offset) / target.factor);
+    }
+
+    private static Unit lookup(String unit) {
+        Unit found = unit == null ? null : UNITS.get(unit.trim().toLowerCase(Locale.ROOT));
+        if (found == null) {
+            throw new IllegalArgumentException("Unknown unit: " + unit);
+        }
+        return found;
+    }
+
+    private static void define(String dimension, double factor, double offset, String... names) {
+        Unit unit = new Unit(dimension, factor, offset);
+        for (String name : names) {
+            UNITS.put(name, unit);
+        }
+    }
+}
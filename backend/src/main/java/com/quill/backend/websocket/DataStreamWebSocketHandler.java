@@ -0,0 +1,34 @@
+package com.quill.backend.websocket;
+
+import com.quill.backend.service.live.LiveDataHub;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Live data subscriptions on {@code /ws/data}; the protocol is handled by {@link LiveDataHub}
+ */
+public class DataStreamWebSocketHandler extends TextWebSocketHandler {
+    private final LiveDataHub liveDataHub;
+
+    public DataStreamWebSocketHandler(LiveDataHub liveDataHub) {
+        this.liveDataHub = liveDataHub;
+    }
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+        liveDataHub.open(session);
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+        liveDataHub.handle(session, message.getPayload());
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        liveDataHub.close(session);
+    }
+}
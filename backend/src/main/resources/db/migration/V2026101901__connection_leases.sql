@@ -0,0 +1,17 @@
+-- Backend nodes taking part in connection sharding; rows expire when heartbeats stop
+CREATE TABLE IF NOT EXISTS cluster_nodes (
+    node_id VARCHAR(128) PRIMARY KEY,
+    host VARCHAR(255),
+    started_at TIMESTAMP NOT NULL DEFAULT now(),
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- One lease per connection; only the owning node polls it until the lease expires
+CREATE TABLE IF NOT EXISTS connection_leases (
+    connection_id BIGINT PRIMARY KEY REFERENCES connections(id) ON DELETE CASCADE,
+    owner_node VARCHAR(128) NOT NULL,
+    acquired_at TIMESTAMP NOT NULL DEFAULT now(),
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_connection_leases_owner ON connection_leases(owner_node);
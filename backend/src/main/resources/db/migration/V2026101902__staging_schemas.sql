@@ -0,0 +1,17 @@
+-- Side table holding the typed, columnar copy of each source's payloads
+CREATE TABLE IF NOT EXISTS staging_tables (
+    source_id VARCHAR(255) PRIMARY KEY,
+    table_name VARCHAR(63) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Payload fields that have been given a column; columns are only ever added
+CREATE TABLE IF NOT EXISTS staging_columns (
+    source_id VARCHAR(255) NOT NULL REFERENCES staging_tables(source_id) ON DELETE CASCADE,
+    field_path VARCHAR(512) NOT NULL,
+    column_name VARCHAR(63) NOT NULL,
+    column_type VARCHAR(16) NOT NULL,
+    added_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (source_id, field_path),
+    UNIQUE (source_id, column_name)
+);
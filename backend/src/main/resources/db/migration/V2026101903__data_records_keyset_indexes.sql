@@ -0,0 +1,13 @@
+-- Keyset pagination walks (timestamp, id) newest first, optionally within one source or type
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM information_schema.tables
+        WHERE table_name = 'data_records'
+        AND table_schema = current_schema()
+    ) THEN
+        CREATE INDEX IF NOT EXISTS idx_data_records_ts_id ON data_records (timestamp DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_data_records_source_ts_id ON data_records (source_id, timestamp DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_data_records_type_ts_id ON data_records (data_type, timestamp DESC, id DESC);
+    END IF;
+END $$;
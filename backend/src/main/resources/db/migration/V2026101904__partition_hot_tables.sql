@@ -0,0 +1,111 @@
+-- Range-partition the append-only tables by time. Partitions for upcoming days or weeks are
+-- created by PartitionManager; this migration only converts the tables.
+
+-- Fresh databases: create the tables partitioned from the start
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.tables
+        WHERE table_name = 'data_records'
+        AND table_schema = current_schema()
+    ) THEN
+        CREATE SEQUENCE IF NOT EXISTS data_records_id_seq;
+        CREATE TABLE data_records (
+            id BIGINT NOT NULL DEFAULT nextval('data_records_id_seq'),
+            source_id VARCHAR(255) NOT NULL,
+            data_type VARCHAR(255) NOT NULL,
+            content VARCHAR(10000),
+            timestamp TIMESTAMP(6) NOT NULL,
+            status VARCHAR(255),
+            storage_id BIGINT,
+            created_at TIMESTAMP(6),
+            updated_at TIMESTAMP(6)
+        ) PARTITION BY RANGE (timestamp);
+        ALTER SEQUENCE data_records_id_seq OWNED BY data_records.id;
+    END IF;
+
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.tables
+        WHERE table_name = 'modbus_readings'
+        AND table_schema = current_schema()
+    ) THEN
+        CREATE SEQUENCE IF NOT EXISTS modbus_readings_id_seq;
+        CREATE TABLE modbus_readings (
+            id BIGINT NOT NULL DEFAULT nextval('modbus_readings_id_seq'),
+            connection_id BIGINT NOT NULL,
+            register INT NOT NULL,
+            value INT NOT NULL,
+            read_at TIMESTAMP NOT NULL,
+            register_type VARCHAR(50) NOT NULL,
+            quality VARCHAR(20),
+            error_message VARCHAR(255)
+        ) PARTITION BY RANGE (read_at);
+        ALTER SEQUENCE modbus_readings_id_seq OWNED BY modbus_readings.id;
+    END IF;
+END $$;
+
+-- Existing databases: the current table becomes the partition holding everything up to the end
+-- of today, so no rows are copied
+CREATE OR REPLACE FUNCTION quill_partition_existing(tbl text, col text) RETURNS void AS $$
+DECLARE
+    legacy text := tbl || '_legacy';
+    seq text := tbl || '_id_seq';
+    next_id bigint;
+    boundary timestamp := date_trunc('day', localtimestamp) + interval '1 day';
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_class
+        WHERE relname = tbl
+        AND relnamespace = current_schema()::regnamespace
+        AND relkind = 'r'
+    ) THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', tbl, legacy);
+    EXECUTE format('SELECT COALESCE(max(id), 0) + 1 FROM %I', legacy) INTO next_id;
+
+    -- Ids come from one sequence on the parent from now on
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', legacy);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', legacy);
+
+    -- The partition key may not be NULL
+    EXECUTE format('UPDATE %I SET %I = localtimestamp WHERE %I IS NULL', legacy, col, col);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET NOT NULL', legacy, col);
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS) PARTITION BY RANGE (%I)', tbl, legacy, col);
+    EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I', seq);
+    PERFORM setval(seq::regclass, next_id, false);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L::regclass)', tbl, seq);
+    EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', seq, tbl);
+
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%L)', tbl, legacy, boundary);
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT quill_partition_existing('data_records', 'timestamp');
+SELECT quill_partition_existing('modbus_readings', 'read_at');
+DROP FUNCTION quill_partition_existing(text, text);
+
+-- Catches rows outside every partition; stays empty while PartitionManager keeps ahead
+CREATE TABLE IF NOT EXISTS data_records_default PARTITION OF data_records DEFAULT;
+CREATE TABLE IF NOT EXISTS modbus_readings_default PARTITION OF modbus_readings DEFAULT;
+
+-- Partitioned indexes; every new partition gets them automatically
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'data_records_part_pkey') THEN
+        ALTER TABLE data_records ADD CONSTRAINT data_records_part_pkey PRIMARY KEY (id, timestamp);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'modbus_readings_part_pkey') THEN
+        ALTER TABLE modbus_readings ADD CONSTRAINT modbus_readings_part_pkey PRIMARY KEY (id, read_at);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS data_records_ts_id_idx ON data_records (timestamp DESC, id DESC);
+CREATE INDEX IF NOT EXISTS data_records_source_ts_id_idx ON data_records (source_id, timestamp DESC, id DESC);
+CREATE INDEX IF NOT EXISTS data_records_type_ts_id_idx ON data_records (data_type, timestamp DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS modbus_readings_conn_read_at_idx ON modbus_readings (connection_id, read_at DESC);
+CREATE INDEX IF NOT EXISTS modbus_readings_conn_reg_read_at_idx ON modbus_readings (connection_id, register, register_type, read_at DESC);
+CREATE INDEX IF NOT EXISTS modbus_readings_read_at_brin ON modbus_readings USING brin (read_at);
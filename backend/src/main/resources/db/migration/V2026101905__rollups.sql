@@ -0,0 +1,34 @@
+-- Pre-aggregated numeric payload fields per source at 1m/1h/1d resolution
+CREATE TABLE IF NOT EXISTS field_rollups (
+    source_id VARCHAR(255) NOT NULL,
+    field VARCHAR(512) NOT NULL,
+    resolution VARCHAR(4) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    count BIGINT NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    last_value DOUBLE PRECISION NOT NULL,
+    last_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (source_id, field, resolution, bucket)
+);
+
+-- Pre-aggregated Modbus register values at 1m/1h/1d resolution
+CREATE TABLE IF NOT EXISTS register_rollups (
+    connection_id BIGINT NOT NULL,
+    register INTEGER NOT NULL,
+    register_type VARCHAR(32) NOT NULL,
+    resolution VARCHAR(4) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    count BIGINT NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    last_value DOUBLE PRECISION NOT NULL,
+    last_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (connection_id, register, register_type, resolution, bucket)
+);
+
+-- Retention deletes by resolution and age
+CREATE INDEX IF NOT EXISTS idx_field_rollups_retention ON field_rollups (resolution, bucket);
+CREATE INDEX IF NOT EXISTS idx_register_rollups_retention ON register_rollups (resolution, bucket);
@@ -0,0 +1,33 @@
+-- Payloads are stored as text and are not guaranteed to be JSON; this parses them for indexing
+-- and returns NULL instead of failing on anything that is not
+CREATE OR REPLACE FUNCTION quill_try_jsonb(doc text) RETURNS jsonb AS $$
+BEGIN
+    IF left(ltrim(doc), 1) NOT IN ('{', '[') THEN
+        RETURN NULL;
+    END IF;
+    RETURN doc::jsonb;
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE STRICT PARALLEL SAFE;
+
+-- Containment (@>) and JSON path (@@, @?) searches
+CREATE INDEX IF NOT EXISTS idx_data_records_content_jsonb
+    ON data_records USING GIN (quill_try_jsonb(content) jsonb_path_ops);
+
+-- Full-text search; 'simple' keeps identifiers and units unstemmed
+CREATE INDEX IF NOT EXISTS idx_data_records_content_fts
+    ON data_records USING GIN (to_tsvector('simple', coalesce(content, '')));
+
+-- Substring search needs pg_trgm, which may not be installable without superuser rights
+DO $$
+BEGIN
+    BEGIN
+        CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    EXCEPTION WHEN others THEN
+        RAISE NOTICE 'pg_trgm is not available, substring search will not be indexed: %', SQLERRM;
+    END;
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        EXECUTE 'CREATE INDEX IF NOT EXISTS idx_data_records_content_trgm ON data_records USING GIN (content gin_trgm_ops)';
+    END IF;
+END $$;
@@ -0,0 +1,13 @@
+-- Checkpoint of the in-memory record counters behind /api/data/stats
+CREATE TABLE IF NOT EXISTS ingest_stats (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    total_records BIGINT NOT NULL,
+    error_records BIGINT NOT NULL,
+    checkpoint_at TIMESTAMP NOT NULL
+);
+
+-- Records stored per minute over the last 24 hours
+CREATE TABLE IF NOT EXISTS ingest_stats_minutes (
+    minute TIMESTAMP PRIMARY KEY,
+    records BIGINT NOT NULL
+);
@@ -0,0 +1,27 @@
+-- Background exports to a FILESYSTEM or S3 storage; checkpoint_cursor and target_state let an
+-- interrupted job resume where it left off
+CREATE TABLE IF NOT EXISTS export_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    format VARCHAR(16) NOT NULL,
+    storage_id BIGINT NOT NULL,
+    object_key VARCHAR(1024) NOT NULL,
+    source_id VARCHAR(255),
+    data_type VARCHAR(255),
+    start_time TIMESTAMP,
+    end_time TIMESTAMP,
+    row_limit INTEGER,
+    start_cursor VARCHAR(255),
+    checkpoint_cursor VARCHAR(255),
+    records_written BIGINT NOT NULL DEFAULT 0,
+    bytes_written BIGINT NOT NULL DEFAULT 0,
+    target_state TEXT,
+    error TEXT,
+    owner_node VARCHAR(128),
+    heartbeat_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_export_jobs_status ON export_jobs (status, id);
@@ -0,0 +1,40 @@
+-- Follow-up to the partitioning migration: restore the modbus_readings foreign key, which
+-- CREATE TABLE ... (LIKE ...) does not copy, and name the partitioned indexes idx_<table>_<columns>
+-- like every other index
+
+-- Readings of connections deleted while the key was missing could not have existed before
+DELETE FROM modbus_readings r
+WHERE NOT EXISTS (SELECT 1 FROM connections c WHERE c.id = r.connection_id);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_constraint
+        WHERE conname = 'fk_modbus_readings_connection'
+        AND conrelid = 'modbus_readings'::regclass
+    ) THEN
+        ALTER TABLE modbus_readings
+            ADD CONSTRAINT fk_modbus_readings_connection FOREIGN KEY (connection_id) REFERENCES connections(id);
+    END IF;
+END $$;
+
+CREATE OR REPLACE FUNCTION quill_rename_index(old_name text, new_name text, legacy_name text) RETURNS void AS $$
+BEGIN
+    IF to_regclass(old_name) IS NULL THEN
+        RETURN;
+    END IF;
+    -- On converted databases the _legacy partition still owns an index under the new name
+    IF to_regclass(new_name) IS NOT NULL THEN
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', new_name, legacy_name);
+    END IF;
+    EXECUTE format('ALTER INDEX %I RENAME TO %I', old_name, new_name);
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT quill_rename_index('data_records_ts_id_idx', 'idx_data_records_ts_id', 'idx_data_records_legacy_ts_id');
+SELECT quill_rename_index('data_records_source_ts_id_idx', 'idx_data_records_source_ts_id', 'idx_data_records_legacy_source_ts_id');
+SELECT quill_rename_index('data_records_type_ts_id_idx', 'idx_data_records_type_ts_id', 'idx_data_records_legacy_type_ts_id');
+SELECT quill_rename_index('modbus_readings_conn_read_at_idx', 'idx_modbus_readings_conn_read_at', 'idx_modbus_readings_legacy_conn_read_at');
+SELECT quill_rename_index('modbus_readings_conn_reg_read_at_idx', 'idx_modbus_readings_conn_reg_read_at', 'idx_modbus_readings_legacy_conn_reg_read_at');
+SELECT quill_rename_index('modbus_readings_read_at_brin', 'idx_modbus_readings_read_at_brin', 'idx_modbus_readings_legacy_read_at_brin');
+DROP FUNCTION quill_rename_index(text, text, text);
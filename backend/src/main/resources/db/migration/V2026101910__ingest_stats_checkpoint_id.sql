@@ -0,0 +1,3 @@
+-- The ingest stats checkpoint covers every record up to this id. Rows checkpointed before it
+-- existed are recounted once at startup
+ALTER TABLE ingest_stats ADD COLUMN IF NOT EXISTS checkpoint_id BIGINT;
@@ -0,0 +1,89 @@
+package com.quill.backend.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuCacheTest {
+
+    // A window of 1 and a main region of 99
+    private final TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 16);
+
+    @Test
+    void losingCandidateDoesNotEvictTheResident() {
+        fillMain();
+        touch("a", 3);
+        touch("b", 3);
+
+        cache.put("c", "C", 10);
+
+        assertEquals(2, cache.size());
+        assertEquals(99, cache.weight());
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b"));
+    }
+
+    @Test
+    void candidateBeatingOnlySomeVictimsEvictsNone() {
+        fillMain();
+        touch("b", 5);
+        // Missed lookups count too: c is more popular than a, less than b
+        touch("c", 2);
+
+        // Needs room from both a and b, but b wins
+        cache.put("c", "C", 60);
+
+        assertEquals(99, cache.weight());
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    void winningCandidateEvictsOnlyWhatItNeeds() {
+        fillMain();
+        touch("b", 1);
+        touch("c", 3);
+
+        cache.put("c", "C", 10);
+
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(59, cache.weight());
+    }
+
+    @Test
+    void weightStaysWithinTheBound() {
+        for (int i = 0; i < 1000; i++) {
+            String key = "k" + (i % 37);
+            touch(key, i % 5);
+            cache.put(key, key, 1 + i % 23);
+            assertTrue(cache.weight() <= 100, "weight " + cache.weight() + " after put " + i);
+        }
+    }
+
+    @Test
+    void tooHeavyValueIsNotCached() {
+        assertFalse(cache.put("huge", "H", 100));
+        assertEquals(0, cache.weight());
+    }
+
+    /**
+     * a (50) then b (49) pass through the window into an empty main region, which they fill
+     */
+    private void fillMain() {
+        cache.put("a", "A", 50);
+        cache.put("b", "B", 49);
+        assertEquals(99, cache.weight());
+    }
+
+    private void touch(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get(key);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.quill.backend.service.datasource.sparkplug;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SparkplugSessionTest {
+    private static final SparkplugTopic NBIRTH = SparkplugTopic.parse("spBv1.0/plant/NBIRTH/edge1");
+    private static final SparkplugTopic NDATA = SparkplugTopic.parse("spBv1.0/plant/NDATA/edge1");
+
+    private final SparkplugSession session = new SparkplugSession();
+
+    @Test
+    void decodesBirthMetrics() {
+        SparkplugPayload payload = SparkplugCodec.decode(birth());
+
+        assertEquals(1_700_000_000_000L, payload.getTimestamp());
+        assertEquals(0, payload.getSeq());
+        assertEquals(2, payload.getMetrics().size());
+
+        SparkplugPayload.Metric temperature = payload.getMetrics().get(0);
+        assertEquals("Temperature", temperature.getName());
+        assertEquals(1, temperature.getAlias());
+        assertEquals(SparkplugDataType.DOUBLE, temperature.getDataType());
+        assertEquals(21.5, temperature.getValue());
+
+        SparkplugPayload.Metric level = payload.getMetrics().get(1);
+        assertEquals("Level", level.getName());
+        assertEquals(2, level.getAlias());
+        assertEquals(SparkplugDataType.INT16, level.getDataType());
+        // Signed values travel as two's complement in an unsigned field
+        assertEquals(-3, SparkplugCodec.typedValue(level, level.getDataType()));
+    }
+
+    @Test
+    void rebirthRequestRoundTrips() {
+        SparkplugPayload payload = SparkplugCodec.decode(SparkplugCodec.encodeRebirthRequest(42L));
+
+        assertEquals(42L, payload.getTimestamp());
+        assertEquals(1, payload.getMetrics().size());
+        SparkplugPayload.Metric metric = payload.getMetrics().get(0);
+        assertEquals(SparkplugCodec.REBIRTH_METRIC, metric.getName());
+        assertEquals(SparkplugDataType.BOOLEAN, metric.getDataType());
+        assertEquals(true, metric.getValue());
+    }
+
+    @Test
+    void dataResolvesAliasesFromBirth() {
+        SparkplugSession.Result birth = session.process(NBIRTH, birth());
+        assertEquals(2, birth.getUpdates().size());
+        assertFalse(birth.isRebirthRequired());
+
+        SparkplugSession.Result data = session.process(NDATA, data(1, 1_700_000_001_000L));
+
+        assertFalse(data.isRebirthRequired());
+        List<SparkplugSession.Update> updates = data.getUpdates();
+        assertEquals(2, updates.size());
+        assertEquals("plant/edge1/Temperature", updates.get(0).getKey());
+        assertEquals(1_700_000_001_000L, updates.get(0).getTimestamp());
+        Map<String, Object> temperature = updates.get(0).getContent();
+        assertEquals("Temperature", temperature.get("metric"));
+        assertEquals("DOUBLE", temperature.get("datatype"));
+        assertEquals(22.25, temperature.get("value"));
+        Map<String, Object> level = updates.get(1).getContent();
+        assertEquals("Level", level.get("metric"));
+        assertEquals("INT16", level.get("datatype"));
+        assertEquals(-7, level.get("value"));
+        assertEquals(0, session.getSequenceGaps());
+    }
+
+    @Test
+    void sequenceGapRequestsRebirth() {
+        session.process(NBIRTH, birth());
+
+        // seq 1 was lost
+        SparkplugSession.Result data = session.process(NDATA, data(2, 1_700_000_002_000L));
+
+        assertTrue(data.isRebirthRequired());
+        assertEquals(1, session.getSequenceGaps());
+        // The metrics are still resolved from the birth certificate
+        assertEquals(2, data.getUpdates().size());
+    }
+
+    @Test
+    void unknownAliasRequestsRebirth() {
+        session.process(NBIRTH, birth());
+
+        byte[] payload = new Proto()
+            .varint(1, 1_700_000_003_000L)
+            .message(2, new Proto().varint(2, 9).fixed64(13, Double.doubleToLongBits(1.0)))
+            .varint(3, 1)
+            .bytes();
+        SparkplugSession.Result data = session.process(NDATA, payload);
+
+        assertTrue(data.isRebirthRequired());
+        assertTrue(data.getUpdates().isEmpty());
+        assertEquals(1, session.getUnknownAliases());
+    }
+
+    @Test
+    void dataBeforeBirthRequestsRebirth() {
+        SparkplugSession.Result data = session.process(NDATA, data(5, 1_700_000_004_000L));
+
+        assertTrue(data.isRebirthRequired());
+        assertTrue(data.getUpdates().isEmpty());
+    }
+
+    @Test
+    void aliasTableGrowsAndDropsDevices() {
+        SparkplugAliasTable table = new SparkplugAliasTable();
+        for (int alias = 0; alias < 200; alias++) {
+            table.put(alias, new SparkplugAliasTable.Definition("m" + alias, SparkplugDataType.INT32,
+                alias % 2 == 0 ? "even" : "odd"));
+        }
+        assertEquals(200, table.size());
+        assertEquals("m137", table.get(137).getName());
+
+        table.removeDevice("even");
+
+        assertEquals(100, table.size());
+        assertNull(table.get(136));
+        assertEquals("m137", table.get(137).getName());
+    }
+
+    /**
+     * NBIRTH with seq 0: Temperature (alias 1, DOUBLE 21.5) and Level (alias 2, INT16 -3)
+     */
+    private static byte[] birth() {
+        return new Proto()
+            .varint(1, 1_700_000_000_000L)
+            .message(2, new Proto().string(1, "Temperature").varint(2, 1).varint(4, SparkplugDataType.DOUBLE.getCode())
+                .fixed64(13, Double.doubleToLongBits(21.5)))
+            .message(2, new Proto().string(1, "Level").varint(2, 2).varint(4, SparkplugDataType.INT16.getCode())
+                .varint(10, -3 & 0xFFFFFFFFL))
+            .varint(3, 0)
+            .bytes();
+    }
+
+    /**
+     * NDATA carrying only aliases and values: Temperature 22.25 and Level -7
+     */
+    private static byte[] data(long seq, long timestamp) {
+        return new Proto()
+            .varint(1, timestamp)
+            .message(2, new Proto().varint(2, 1).fixed64(13, Double.doubleToLongBits(22.25)))
+            .message(2, new Proto().varint(2, 2).varint(10, -7 & 0xFFFFFFFFL))
+            .varint(3, seq)
+            .bytes();
+    }
+
+    /**
+     * Protobuf writer for the few wire types the Sparkplug schema uses
+     */
+    private static final class Proto {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Proto varint(int field, long value) {
+            writeVarint((long) field << 3);
+            writeVarint(value);
+            return this;
+        }
+
+        Proto fixed64(int field, long value) {
+            writeVarint((long) field << 3 | 1);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (value >>> (8 * i)));
+            }
+            return this;
+        }
+
+        Proto string(int field, String value) {
+            return delimited(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Proto message(int field, Proto message) {
+            return delimited(field, message.bytes());
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+
+        private Proto delimited(int field, byte[] value) {
+            writeVarint((long) field << 3 | 2);
+            writeVarint(value.length);
+            out.writeBytes(value);
+            return this;
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.quill.backend.service.expression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpressionCompilerTest {
+
+    private final ExpressionCompiler compiler = new ExpressionCompiler();
+
+    @Test
+    void orWithFalseConstantDependsOnVariable() {
+        CompiledExpression expression = compiler.compile("0 || x");
+
+        assertFalse(expression.isConstant());
+        assertEquals(List.of("x"), expression.getVariables());
+        assertEquals(0.0, expression.evaluate(new double[] {0.0}));
+        assertEquals(1.0, expression.evaluate(new double[] {5.0}));
+    }
+
+    @Test
+    void andWithTrueConstantDependsOnVariable() {
+        CompiledExpression expression = compiler.compile("1 && x");
+
+        assertFalse(expression.isConstant());
+        assertEquals(0.0, expression.evaluate(new double[] {0.0}));
+        assertEquals(1.0, expression.evaluate(new double[] {2.0}));
+    }
+
+    @Test
+    void orWithTrueConstantFoldsToOne() {
+        CompiledExpression expression = compiler.compile("1 || x");
+
+        assertTrue(expression.isConstant());
+        assertEquals(1.0, expression.evaluate(new double[] {0.0}));
+    }
+
+    @Test
+    void andWithFalseConstantFoldsToZero() {
+        CompiledExpression expression = compiler.compile("0 && x");
+
+        assertTrue(expression.isConstant());
+        assertEquals(0.0, expression.evaluate(new double[] {1.0}));
+    }
+
+    @Test
+    void constantOperandsFold() {
+        assertTrue(compiler.compile("1 && 0 || 2 > 1").isConstant());
+        assertEquals(1.0, compiler.compile("1 && 0 || 2 > 1").evaluate(new double[0]));
+    }
+}
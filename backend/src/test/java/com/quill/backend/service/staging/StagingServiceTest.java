@@ -0,0 +1,104 @@
+package com.quill.backend.service.staging;
+
+import com.quill.backend.model.DataRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Read paths run in read-only transactions, possibly on a replica, so they must never reach the
+ * DDL that creates a source's staging table
+ */
+class StagingServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StagingService stagingService = new StagingService(jdbcTemplate, true, 1, 16);
+
+    @BeforeEach
+    void readOnlyTransaction() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("pump")))
+            .thenReturn(List.of("stg_pump_0001"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("unknown")))
+            .thenReturn(List.of());
+        ResultSet column = mock(ResultSet.class);
+        when(column.getString(1)).thenReturn("temp");
+        when(column.getString(2)).thenReturn("temp");
+        when(column.getString(3)).thenReturn("DOUBLE");
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(column);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq("pump"));
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readersLoadTheSchemaWithoutDdl() {
+        StagedColumn column = stagingService.findColumn("pump", "temp");
+
+        assertEquals("temp", column.getColumn());
+        assertEquals(ColumnType.DOUBLE, column.getType());
+        assertEquals("stg_pump_0001", stagingService.getTableName("pump"));
+        assertEquals("stg_pump_0001", stagingService.getSchema("pump").get("table"));
+        assertNoDdl();
+    }
+
+    @Test
+    void columnarExportColumnsLoadWithoutDdl() {
+        List<StagedColumn> columns = stagingService.getColumns("pump");
+
+        assertEquals(1, columns.size());
+        assertEquals("temp", columns.get(0).getField());
+        assertEquals(List.of(), stagingService.getColumns("unknown"));
+        assertNoDdl();
+    }
+
+    @Test
+    void unknownSourceIsNotCreated() {
+        assertNull(stagingService.getSchema("unknown"));
+        assertNull(stagingService.findColumn("unknown", "temp"));
+        assertEquals(List.of(), stagingService.query("unknown", List.of(), null, null, 10));
+        assertNoDdl();
+    }
+
+    @Test
+    void ingestRefusesDdlInReadOnlyTransaction() {
+        DataRecord record = new DataRecord();
+        record.setId(1L);
+        record.setSourceId("new-source");
+        record.setDataType("generic");
+        record.setTimestamp(LocalDateTime.now());
+        record.setContent("{\"temp\": 21.5}");
+
+        stagingService.onStored(List.of(record));
+
+        assertNoDdl();
+    }
+
+    private void assertNoDdl() {
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}